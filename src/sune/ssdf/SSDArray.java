@@ -1,10 +1,19 @@
 package sune.ssdf;
 
-import java.util.Arrays;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents a data array that is used
@@ -19,16 +28,34 @@ public class SSDArray implements Iterable<SSDObject> {
 	/**
 	 * The array name*/
 	private final String name;
+	/**
+	 * The array name with the delimiter at the end,
+	 * or an empty string for the main array*/
+	private final String prefix;
+	/**
+	 * Whether the array is read-only and shared by more threads*/
+	private final boolean shared;
 	
 	/**
 	 * Current array index*/
 	private int currentIndex;
+	/**
+	 * The indexes of values of fields of arrays, or null*/
+	private List<SSDFIndex> indexes;
+	/**
+	 * The arrays returned by this array that still read its objects, or null*/
+	private List<Reference<SubtreeMap>> views;
+	/**
+	 * The number of views after which the released views are removed*/
+	private int viewsLimit;
 	
 	/**
 	 * Creates new instance of Data Array.*/
 	protected SSDArray() {
 		this.objects = new LinkedHashMap<>();
 		this.name	 = "";
+		this.prefix	 = "";
+		this.shared	 = false;
 	}
 	
 	/**
@@ -36,14 +63,83 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param name 		The object's name
 	 * @param object 	The object*/
 	protected void put(String name, SSDObject object) {
-		objects.put(name, object);
+		if(views != null)
+			detachViews();
+		SSDObject previous = objects.put(name, object);
+		if(indexes != null)
+			updateIndexes(name, previous, object);
 	}
 	
 	/**
 	 * Puts a Map (list) of objects to the array.
 	 * @param data The Map (list) of objects to put*/	
 	protected void putAll(Map<String, SSDObject> data) {
-		objects.putAll(data);
+		if(views != null)
+			detachViews();
+		if(indexes == null) {
+			objects.putAll(data);
+			return;
+		}
+		
+		for(Entry<String, SSDObject> entry : data.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+	
+	/**
+	 * Removes an object with the given name from the array.
+	 * @param name The object's name*/
+	private void remove(String name) {
+		if(views != null)
+			detachViews();
+		SSDObject previous = objects.remove(name);
+		if(indexes != null && previous != null)
+			updateIndexes(name, previous, null);
+	}
+	
+	/**
+	 * Creates a view of an array in this array. The view reads the objects
+	 * of this array, until this array is changed for the first time.
+	 * @param prefix The prefix of full names of the objects
+	 * @param offset The number of characters removed from the full names
+	 * @return The view*/
+	private SubtreeMap view(String prefix, int offset) {
+		SubtreeMap view = new SubtreeMap(objects, prefix, offset);
+		// The objects of a shared array never change
+		if(shared)
+			return view;
+		if(views == null) {
+			views	   = new ArrayList<>();
+			viewsLimit = 16;
+		} else if(views.size() >= viewsLimit) {
+			views.removeIf((reference) -> reference.get() == null);
+			viewsLimit = Math.max(16, views.size() * 2);
+		}
+		
+		views.add(new WeakReference<>(view));
+		return view;
+	}
+	
+	/**
+	 * Copies the objects of all views, before this array is changed,
+	 * so that the changes do not affect the returned arrays.*/
+	private void detachViews() {
+		List<Reference<SubtreeMap>> detached = views;
+		views = null;
+		for(Reference<SubtreeMap> reference : detached) {
+			SubtreeMap view = reference.get();
+			if(view != null)
+				view.detach();
+		}
+	}
+	
+	/**
+	 * Updates all indexes, when an object was changed.
+	 * @param name	   The object's name
+	 * @param previous The previous object, or null, if it was added
+	 * @param object   The new object, or null, if it was removed*/
+	private void updateIndexes(String name, SSDObject previous, SSDObject object) {
+		for(SSDFIndex index : indexes)
+			index.update(name, previous, object);
 	}
 	
 	/**
@@ -65,8 +161,21 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param name The name of the array
 	 * @param objects The Map (list) of objects*/
 	public SSDArray(String name, Map<String, SSDObject> objects) {
+		this(name, objects, false);
+	}
+	
+	/**
+	 * Creates new instance of Data Array.
+	 * @param name The name of the array
+	 * @param objects The Map (list) of objects
+	 * @param shared Whether the array is read-only and shared
+	 * by more threads, its state is then never changed
+	 * @since 1.2*/
+	SSDArray(String name, Map<String, SSDObject> objects, boolean shared) {
 		this.name 	 = name;
+		this.prefix	 = name.isEmpty() ? "" : name + ".";
 		this.objects = objects;
+		this.shared	 = shared;
 	}
 	
 	/**
@@ -76,7 +185,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param name The object name
 	 * @return The true name of the object*/
 	private String getTrueName(String name) {
-		return this.name + (this.name.isEmpty() ? "" : ".") + name;
+		return prefix.isEmpty() ? name : prefix.concat(name);
 	}
 	
 	/**
@@ -85,42 +194,239 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @return The SSD object*/
 	public SSDObject getObject(String name) {
 		try {
-			if(!hasObject(name)) throw new NoSuchFieldException
+			SSDObject object = objects.get(name);
+			if(object == null) throw new NoSuchFieldException
 				("The object '" + name + "' does not exist!");
-			return objects.get(name);
+			return object;
 		} catch(NoSuchFieldException ex) {
 			ex.printStackTrace();
 		}
 		
 		return null;
 	}
+	
+	/**
+	 * Gets the object by the given precompiled path.
+	 * @param path The path of the object to get
+	 * @return The SSD object, or null, if there is no such object
+	 * @since 1.2*/
+	public SSDObject getObject(SSDPath path) {
+		return objects.get(path.path());
+	}
+	
+	/**
+	 * Finds the object by the given name. Unlike {@link #getObject(String)},
+	 * a missing object is not reported.
+	 * @param name The name of the object to find
+	 * @return The SSD object, or an empty optional, if there is no such object
+	 * @since 1.2*/
+	public Optional<SSDObject> find(String name) {
+		return Optional.ofNullable(objects.get(name));
+	}
+	
+	/**
+	 * Finds the object by the given precompiled path. Unlike
+	 * {@link #getObject(SSDPath)}, a missing object is not reported.
+	 * @param path The path of the object to find
+	 * @return The SSD object, or an empty optional, if there is no such object
+	 * @since 1.2*/
+	public Optional<SSDObject> find(SSDPath path) {
+		return Optional.ofNullable(objects.get(path.path()));
+	}
+	
+	/**
+	 * Gets the value of the integer object by the given name.
+	 * @param name 		   The name of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not an integer that fits into an int
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public int getInt(String name, int defaultValue) {
+		return intValue(objects.get(name), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the integer object by the given precompiled path.
+	 * @param path 		   The path of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not an integer that fits into an int
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public int getInt(SSDPath path, int defaultValue) {
+		return intValue(objects.get(path.path()), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the integer object by the given name.
+	 * @param name 		   The name of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not an integer that fits into a long
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public long getLong(String name, long defaultValue) {
+		return longValue(objects.get(name), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the integer object by the given precompiled path.
+	 * @param path 		   The path of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not an integer that fits into a long
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public long getLong(SSDPath path, long defaultValue) {
+		return longValue(objects.get(path.path()), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the number object by the given name.
+	 * @param name 		   The name of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not a number
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public double getDouble(String name, double defaultValue) {
+		return doubleValue(objects.get(name), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the number object by the given precompiled path.
+	 * @param path 		   The path of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not a number
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public double getDouble(SSDPath path, double defaultValue) {
+		return doubleValue(objects.get(path.path()), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the boolean object by the given name.
+	 * @param name 		   The name of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not a boolean
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public boolean getBoolean(String name, boolean defaultValue) {
+		return booleanValue(objects.get(name), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the boolean object by the given precompiled path.
+	 * @param path 		   The path of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not a boolean
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public boolean getBoolean(SSDPath path, boolean defaultValue) {
+		return booleanValue(objects.get(path.path()), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the string object by the given name.
+	 * @param name 		   The name of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not a string
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public String getString(String name, String defaultValue) {
+		return stringValue(objects.get(name), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the string object by the given precompiled path.
+	 * @param path 		   The path of the object
+	 * @param defaultValue The value used when there is no such object,
+	 * 					   or it is not a string
+	 * @return The object's value, or the default value
+	 * @since 1.2*/
+	public String getString(SSDPath path, String defaultValue) {
+		return stringValue(objects.get(path.path()), defaultValue);
+	}
+	
+	/**
+	 * Gets the value of the given integer object.
+	 * @param object 	   The object, or null
+	 * @param defaultValue The default value
+	 * @return The object's value, or the default value*/
+	private static int intValue(SSDObject object, int defaultValue) {
+		long value = longValue(object, Long.MIN_VALUE);
+		if(value == Long.MIN_VALUE || (int) value != value)
+			return defaultValue;
+		return (int) value;
+	}
+	
+	/**
+	 * Gets the value of the given integer object.
+	 * @param object 	   The object, or null
+	 * @param defaultValue The default value
+	 * @return The object's value, or the default value*/
+	private static long longValue(SSDObject object, long defaultValue) {
+		if(object == null || object.type() != SSDType.INTEGER)
+			return defaultValue;
+		
+		try {
+			return object.longValue();
+		} catch(NumberFormatException ex) {
+			// The integer does not fit into a long
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * Gets the value of the given number object.
+	 * @param object 	   The object, or null
+	 * @param defaultValue The default value
+	 * @return The object's value, or the default value*/
+	private static double doubleValue(SSDObject object, double defaultValue) {
+		if(object == null)
+			return defaultValue;
+		
+		SSDType type = object.type();
+		return type == SSDType.INTEGER || type == SSDType.FLOAT
+					? object.doubleValue()
+					: defaultValue;
+	}
+	
+	/**
+	 * Gets the value of the given boolean object.
+	 * @param object 	   The object, or null
+	 * @param defaultValue The default value
+	 * @return The object's value, or the default value*/
+	private static boolean booleanValue(SSDObject object, boolean defaultValue) {
+		return object != null && object.type() == SSDType.BOOLEAN
+					? object.booleanValue()
+					: defaultValue;
+	}
+	
+	/**
+	 * Gets the value of the given string object.
+	 * @param object 	   The object, or null
+	 * @param defaultValue The default value
+	 * @return The object's value, or the default value*/
+	private static String stringValue(SSDObject object, String defaultValue) {
+		return object != null && object.type() == SSDType.STRING
+					? object.stringValue()
+					: defaultValue;
+	}
 
 	/**
 	 * Gets an array of all objects that are in the
-	 * given array object.
+	 * given array object. The objects are not copied, the returned
+	 * array reads them from this array, until either of the arrays
+	 * is changed for the first time. Then the objects are copied,
+	 * so the returned array always has the objects this array had
+	 * when the array was returned. Objects of this array are searched
+	 * only up to the first object of the given array.
 	 * @param name The name of the array to get
 	 * @return The SSD Array object with all objects in the
 	 * 		   given array*/
 	public SSDArray getArray(String name) {
+		SubtreeMap map = view(name + ".", name.length() + (name.isEmpty() ? 0 : 1));
 		try {
-			if(!hasArray(name)) throw new NoSuchFieldException
+			if(map.isEmpty() && !hasArray(name)) throw new NoSuchFieldException
 				("The array '" + name + "' does not exist!");
 			
-			Map<String, SSDObject> map = new LinkedHashMap<>();
-			for(Iterator<Entry<String, SSDObject>> it = objects.entrySet().iterator(); it.hasNext();) {
-				Entry<String, SSDObject> entry = it.next();
-				String entryName 			   = entry.getKey();
-				SSDObject entryObject 		   = entry.getValue();
-				
-				String[] splitEntryName = entryName.split("\\.");
-				String joinedEntryName	= String.join(".", Arrays.copyOfRange(
-					splitEntryName, 0, name.split("\\.").length));
-				
-				if(joinedEntryName.equals(name) && !entryName.equals(name))
-					map.put(entryName.substring(name.length() + (name.isEmpty() ? 0 : 1)),
-							entryObject);
-			}
-			
 			return new SSDArray(this.name + (this.name.isEmpty() ? "" : ".") + name, map);
 		} catch(NoSuchFieldException ex) {
 			ex.printStackTrace();
@@ -129,6 +435,23 @@ public class SSDArray implements Iterable<SSDObject> {
 		return null;
 	}
 	
+	/**
+	 * Gets an array of all objects that are in the
+	 * array object given by the precompiled path. The objects
+	 * are not copied, as in {@link #getArray(String)}.
+	 * @param path The path of the array to get
+	 * @return The SSD Array object with all objects in the
+	 * 		   given array, or null, if there is no such array
+	 * @since 1.2*/
+	public SSDArray getArray(SSDPath path) {
+		if(path.length() == 0)
+			return getArray(path.path());
+		
+		String arrayPrefix = path.prefix();
+		SubtreeMap map	   = view(arrayPrefix, arrayPrefix.length());
+		return map.isEmpty() ? null : new SSDArray(path.resolve(name), map);
+	}
+	
 	/**
 	 * Gets an array of all existing objects.
 	 * @return The SSD Array object with all
@@ -143,7 +466,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(String name, String value) {
 		String objectName = getTrueName(name);
-		objects.put(objectName, new SSDObject(objectName, "\"" + value + "\""));
+		put(objectName, new SSDObject(objectName, "\"" + value + "\""));
 	}
 	
 	/**
@@ -152,7 +475,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(String name, int value) {
 		String objectName = getTrueName(name);
-		objects.put(objectName, new SSDObject(objectName, Integer.toString(value)));
+		put(objectName, new SSDObject(objectName, Integer.toString(value)));
 	}
 	
 	/**
@@ -161,7 +484,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(String name, double value) {
 		String objectName = getTrueName(name);
-		objects.put(objectName, new SSDObject(objectName, Double.toString(value)));
+		put(objectName, new SSDObject(objectName, Double.toString(value)));
 	}
 	
 	/**
@@ -170,7 +493,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(String name, boolean value) {
 		String objectName = getTrueName(name);
-		objects.put(objectName, new SSDObject(objectName, Boolean.toString(value)));
+		put(objectName, new SSDObject(objectName, Boolean.toString(value)));
 	}
 	
 	/**
@@ -178,7 +501,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param name 	The object's name*/
 	public void setObject(String name) {
 		String objectName = getTrueName(name);
-		objects.put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
+		put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
 	}
 	
 	/**
@@ -186,7 +509,65 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param name 	 The object's name
 	 * @param object The object*/
 	public void setObject(String name, SSDObject object) {
-		objects.put(getTrueName(name), object);
+		put(getTrueName(name), object);
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param path 	The object's precompiled path
+	 * @param value New object's value
+	 * @since 1.2*/
+	public void setObject(SSDPath path, String value) {
+		String objectName = path.resolve(name);
+		put(objectName, new SSDObject(objectName, "\"" + value + "\""));
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param path 	The object's precompiled path
+	 * @param value New object's value
+	 * @since 1.2*/
+	public void setObject(SSDPath path, int value) {
+		String objectName = path.resolve(name);
+		put(objectName, new SSDObject(objectName, Integer.toString(value)));
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param path 	The object's precompiled path
+	 * @param value New object's value
+	 * @since 1.2*/
+	public void setObject(SSDPath path, double value) {
+		String objectName = path.resolve(name);
+		put(objectName, new SSDObject(objectName, Double.toString(value)));
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param path 	The object's precompiled path
+	 * @param value New object's value
+	 * @since 1.2*/
+	public void setObject(SSDPath path, boolean value) {
+		String objectName = path.resolve(name);
+		put(objectName, new SSDObject(objectName, Boolean.toString(value)));
+	}
+	
+	/**
+	 * Sets the object value to null.
+	 * @param path The object's precompiled path
+	 * @since 1.2*/
+	public void setObject(SSDPath path) {
+		String objectName = path.resolve(name);
+		put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
+	}
+	
+	/**
+	 * Sets the object.
+	 * @param path 	 The object's precompiled path
+	 * @param object The object
+	 * @since 1.2*/
+	public void setObject(SSDPath path, SSDObject object) {
+		put(path.resolve(name), object);
 	}
 	
 	/**
@@ -195,7 +576,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(int index, String value) {
 		String objectName = getTrueName(Integer.toString(index));
-		objects.put(objectName, new SSDObject(objectName, "\"" + value + "\""));
+		put(objectName, new SSDObject(objectName, "\"" + value + "\""));
 	}
 	
 	/**
@@ -204,7 +585,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(int index, int value) {
 		String objectName = getTrueName(Integer.toString(index));
-		objects.put(objectName, new SSDObject(objectName, Integer.toString(value)));
+		put(objectName, new SSDObject(objectName, Integer.toString(value)));
 	}
 	
 	/**
@@ -213,7 +594,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(int index, double value) {
 		String objectName = getTrueName(Integer.toString(index));
-		objects.put(objectName, new SSDObject(objectName, Double.toString(value)));
+		put(objectName, new SSDObject(objectName, Double.toString(value)));
 	}
 	
 	/**
@@ -222,7 +603,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value New object's value*/
 	public void setObject(int index, boolean value) {
 		String objectName = getTrueName(Integer.toString(index));
-		objects.put(objectName, new SSDObject(objectName, Boolean.toString(value)));
+		put(objectName, new SSDObject(objectName, Boolean.toString(value)));
 	}
 	
 	/**
@@ -230,7 +611,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param index	The index*/
 	public void setObject(int index) {
 		String objectName = getTrueName(Integer.toString(index));
-		objects.put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
+		put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
 	}
 	
 	/**
@@ -238,7 +619,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param index	 The index
 	 * @param object The object*/
 	public void setObject(int index, SSDObject object) {
-		objects.put(getTrueName(Integer.toString(index)), object);
+		put(getTrueName(Integer.toString(index)), object);
 	}
 	
 	/**
@@ -246,7 +627,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value Object's value*/
 	public void appendObject(String value) {
 		String objectName = getTrueName(Integer.toString(currentIndex++));
-		objects.put(objectName, new SSDObject(objectName, "\"" + value + "\""));
+		put(objectName, new SSDObject(objectName, "\"" + value + "\""));
 	}
 	
 	/**
@@ -254,7 +635,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value Object's value*/
 	public void appendObject(int value) {
 		String objectName = getTrueName(Integer.toString(currentIndex++));
-		objects.put(objectName, new SSDObject(objectName, Integer.toString(value)));
+		put(objectName, new SSDObject(objectName, Integer.toString(value)));
 	}
 	
 	/**
@@ -262,7 +643,7 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value Object's value*/
 	public void appendObject(double value) {
 		String objectName = getTrueName(Integer.toString(currentIndex++));
-		objects.put(objectName, new SSDObject(objectName, Double.toString(value)));
+		put(objectName, new SSDObject(objectName, Double.toString(value)));
 	}
 	
 	/**
@@ -270,49 +651,46 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * @param value Object's value*/
 	public void appendObject(boolean value) {
 		String objectName = getTrueName(Integer.toString(currentIndex++));
-		objects.put(objectName, new SSDObject(objectName, Boolean.toString(value)));
+		put(objectName, new SSDObject(objectName, Boolean.toString(value)));
 	}
 	
 	/**
 	 * Appends the null object.*/
 	public void appendObject() {
 		String objectName = getTrueName(Integer.toString(currentIndex++));
-		objects.put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
+		put(objectName, new SSDObject(objectName, SSDType.NULL, "null"));
 	}
 	
 	/**
 	 * Appends the object.
 	 * @param object The object*/
 	public void appendObject(SSDObject object) {
-		objects.put(getTrueName(Integer.toString(currentIndex++)), object);
+		put(getTrueName(Integer.toString(currentIndex++)), object);
 	}
 	
 	/**
 	 * Appends the array (from a map of objects).
 	 * @param array The Map (list) of all objects to set*/
 	public void appendArray(Map<String, SSDObject> array) {
-		objects.putAll(array);
+		putAll(array);
 	}
 	
 	/**
-	 * Appends the array.
+	 * Appends the array. The objects are renamed, but their values
+	 * are shared with the appended array, they are not copied.
 	 * @param array The array object*/
 	public void appendArray(SSDArray array) {
-		Map<String, SSDObject> map = new LinkedHashMap<>();
-		for(Entry<String, SSDObject> entry : array.getAllObjects().entrySet()) {
-			String fullName 	= getTrueName(entry.getKey());
-			SSDObject object 	= entry.getValue();
-			SSDType objectType  = object.type();
-			String objectValue	= object.stringValue();
-			
-			if(objectType == SSDType.STRING)
-				objectValue = "\"" + objectValue + "\"";
-			SSDObject newObject = new SSDObject(fullName,
-				objectType, objectValue);
-			map.put(fullName, newObject);
-		}
+		Map<String, SSDObject> source = array.getObjects();
+		// An array appended to itself, or to an array it is a view of,
+		// must not be changed while it is read
+		if(source == objects
+				|| source instanceof SubtreeMap && ((SubtreeMap) source).isViewOf(objects))
+			source = new LinkedHashMap<>(source);
 		
-		objects.putAll(map);
+		for(Entry<String, SSDObject> entry : source.entrySet()) {
+			String fullName = getTrueName(entry.getKey());
+			put(fullName, new SSDObject(fullName, entry.getValue()));
+		}
 	}
 	
 	/**
@@ -324,6 +702,16 @@ public class SSDArray implements Iterable<SSDObject> {
 		return objects.containsKey(name);
 	}
 	
+	/**
+	 * Checks if the SSD File contains an object
+	 * by the given precompiled path.
+	 * @param path The object's path
+	 * @return True, if the object was found, otherwise false
+	 * @since 1.2*/
+	public boolean hasObject(SSDPath path) {
+		return objects.containsKey(path.path());
+	}
+	
 	/**
 	 * Checks if the SSD File contains an array
 	 * by the given name.
@@ -344,25 +732,47 @@ public class SSDArray implements Iterable<SSDObject> {
 	 * does not exist, nothing happens.
 	 * @param name The object's name*/
 	public void removeObject(String name) {
-		objects.remove(getTrueName(name));
+		remove(getTrueName(name));
 	}
 	
 	/**
-	 * Removes the array. When the array
+	 * Removes the object. When the object
 	 * does not exist, nothing happens.
-	 * @param name The object's name*/
+	 * @param path The object's precompiled path
+	 * @since 1.2*/
+	public void removeObject(SSDPath path) {
+		remove(path.resolve(name));
+	}
+	
+	/**
+	 * Removes the array. When the array
+	 * does not exist, nothing happens. The name is relative
+	 * to this array, like the names of objects.
+	 * @param name The array's name*/
 	public void removeArray(String name) {
+		if(views != null)
+			detachViews();
+		String arrayName = getTrueName(name) + ".";
 		for(Iterator<Entry<String, SSDObject>> it = objects.entrySet().iterator(); it.hasNext();) {
 			Entry<String, SSDObject> entry = it.next();
-			if(entry.getKey().startsWith(name))
+			if(entry.getKey().startsWith(arrayName)) {
 				it.remove();
+				if(indexes != null)
+					updateIndexes(entry.getKey(), entry.getValue(), null);
+			}
 		}
 	}
 	
 	/**
 	 * Clears the whole array.*/
 	public void clear() {
+		if(views != null)
+			detachViews();
 		objects.clear();
+		if(indexes != null) {
+			for(SSDFIndex index : indexes)
+				index.clear();
+		}
 	}
 	
 	/**
@@ -372,6 +782,208 @@ public class SSDArray implements Iterable<SSDObject> {
 		return new LinkedHashMap<>(objects);
 	}
 	
+	/**
+	 * Creates a hash index of the values of the given field of elements
+	 * of the given array, so that the elements can be looked up by their
+	 * values in constant time. Elements are the arrays (objects) in the array
+	 * with indexes as their names. The index is kept up to date when
+	 * the objects are changed using the methods of this array. An existing
+	 * index of the field is replaced.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field, may contain dots
+	 * @see #lookup(String, String, Object)
+	 * @since 1.2*/
+	public void createIndex(String array, String field) {
+		createIndex(array, field, false);
+	}
+	
+	/**
+	 * Creates an index of the values of the given field of elements
+	 * of the given array. A sorted index also allows to look up ranges
+	 * of values, but its lookups take logarithmic time.
+	 * @param array	 The name of the array of elements
+	 * @param field	 The name of the field, may contain dots
+	 * @param sorted Whether the index should be sorted
+	 * @throws UnsupportedOperationException When the array is shared,
+	 * 		   e.g. a document of {@link SSDFCache}
+	 * @see #createIndex(String, String)
+	 * @see #lookupRange(String, String, Object, Object)
+	 * @since 1.2*/
+	public void createIndex(String array, String field, boolean sorted) {
+		if(array == null || array.isEmpty())
+			throw new IllegalArgumentException("Array name cannot be null or empty");
+		if(field == null || field.isEmpty())
+			throw new IllegalArgumentException("Field name cannot be null or empty");
+		if(shared)
+			throw new UnsupportedOperationException("Indexes cannot be created on a shared array");
+		
+		removeIndex(array, field);
+		SSDFIndex index = new SSDFIndex(array, getTrueName(array), field, sorted);
+		for(Entry<String, SSDObject> entry : objects.entrySet())
+			index.update(entry.getKey(), null, entry.getValue());
+		
+		if(indexes == null)
+			indexes = new ArrayList<>();
+		indexes.add(index);
+	}
+	
+	/**
+	 * Removes the index of the given field of elements of the given array.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @return True, if the index was removed, otherwise false
+	 * @since 1.2*/
+	public boolean removeIndex(String array, String field) {
+		SSDFIndex index = findIndex(array, field);
+		if(index == null)
+			return false;
+		
+		indexes.remove(index);
+		if(indexes.isEmpty())
+			indexes = null;
+		return true;
+	}
+	
+	/**
+	 * Checks if there is an index of the given field of elements
+	 * of the given array.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @return True, if the index exists, otherwise false
+	 * @since 1.2*/
+	public boolean hasIndex(String array, String field) {
+		return findIndex(array, field) != null;
+	}
+	
+	/**
+	 * Looks up the first element of the given array whose field has
+	 * the given value, using the index of the field. Values are compared
+	 * by their meaning, e.g. 4711 is equal to 4711.0, but not to "4711".
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @param value The value, i.e. a string, number, boolean, object,
+	 * 				or null for null values
+	 * @return The element with the lowest index, or an empty Optional,
+	 * 		   if there is no such element
+	 * @throws IllegalArgumentException If the field is not indexed
+	 * @since 1.2*/
+	public Optional<SSDArray> lookup(String array, String field, Object value) {
+		int[] elements = index(array, field).get(value);
+		return elements.length > 0 ? Optional.of(element(array, elements[0])) : Optional.empty();
+	}
+	
+	/**
+	 * Looks up all elements of the given array whose field has the given
+	 * value, using the index of the field.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @param value The value
+	 * @return The List of elements, ordered by their indexes
+	 * @throws IllegalArgumentException If the field is not indexed
+	 * @see #lookup(String, String, Object)
+	 * @since 1.2*/
+	public List<SSDArray> lookupAll(String array, String field, Object value) {
+		return elements(array, index(array, field).get(value));
+	}
+	
+	/**
+	 * Looks up all elements of the given array whose field has a value
+	 * in the given range, using the sorted index of the field. Nulls are
+	 * lower than booleans, booleans are lower than numbers and numbers
+	 * are lower than strings.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @param from	The lowest value, inclusive
+	 * @param to	The highest value, exclusive
+	 * @return The List of elements, ordered by their values
+	 * @throws IllegalArgumentException If the field does not have
+	 * 		   a sorted index
+	 * @since 1.2*/
+	public List<SSDArray> lookupRange(String array, String field, Object from, Object to) {
+		SSDFIndex index = index(array, field);
+		if(!index.isSorted())
+			throw new IllegalArgumentException("The index of '" + field + "' in the array '"
+				+ array + "' is not sorted");
+		return elements(array, index.range(from, to));
+	}
+	
+	/**
+	 * Finds the index of the given field of elements of the given array.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @return The index, or null, if it does not exist*/
+	private SSDFIndex findIndex(String array, String field) {
+		if(indexes != null) {
+			for(SSDFIndex index : indexes) {
+				if(index.array().equals(array) && index.field().equals(field))
+					return index;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the index of the given field of elements of the given array.
+	 * @param array The name of the array of elements
+	 * @param field The name of the field
+	 * @return The index
+	 * @throws IllegalArgumentException If the index does not exist*/
+	private SSDFIndex index(String array, String field) {
+		SSDFIndex index = findIndex(array, field);
+		if(index == null)
+			throw new IllegalArgumentException("The field '" + field + "' in the array '"
+				+ array + "' is not indexed");
+		return index;
+	}
+	
+	/**
+	 * Gets the element of the given array. The element is not checked
+	 * whether it exists, since it was found in an index.
+	 * @param array The name of the array of elements
+	 * @param index The index of the element
+	 * @return The element, a view of this array*/
+	private SSDArray element(String array, int index) {
+		String elementName = getTrueName(array + "." + index);
+		return new SSDArray(elementName, view(elementName + ".", elementName.length() + 1));
+	}
+	
+	/**
+	 * Gets the elements of the given array.
+	 * @param array	  The name of the array of elements
+	 * @param indexes The indexes of the elements
+	 * @return The List of elements*/
+	private List<SSDArray> elements(String array, int[] indexes) {
+		if(indexes.length == 0)
+			return Collections.emptyList();
+		
+		List<SSDArray> elements = new ArrayList<>(indexes.length);
+		for(int index : indexes)
+			elements.add(element(array, index));
+		return elements;
+	}
+	
+	/**
+	 * Estimates the size of all objects of the array in memory,
+	 * including their names, values and the map entries.
+	 * @return The estimated size, in bytes
+	 * @see #footprint()
+	 * @since 1.2*/
+	public long estimateRetainedSize() {
+		return SSDFFootprint.of(name, objects, false).getTotalBytes();
+	}
+	
+	/**
+	 * Estimates the size of all objects of the array in memory, split
+	 * into names, values, map entries and headers of objects, together
+	 * with the numbers of objects of each type and the footprints of
+	 * all direct arrays.
+	 * @return The footprint of the array
+	 * @since 1.2*/
+	public SSDFFootprint footprint() {
+		return SSDFFootprint.of(name, objects, true);
+	}
+	
 	/**
 	 * Called when the object should be converted
 	 * into a string.
@@ -381,6 +993,205 @@ public class SSDArray implements Iterable<SSDObject> {
 		return objects.toString();
 	}
 
+	/**
+	 * Map (list) of objects of an array in another array. The objects
+	 * are read from the parent's objects, until the map or the parent
+	 * is changed. Then the objects are copied and the map is detached
+	 * from the parent.
+	 * @author Sune*/
+	private static final class SubtreeMap extends AbstractMap<String, SSDObject> {
+		
+		/**
+		 * The parent's objects*/
+		private final Map<String, SSDObject> parent;
+		/**
+		 * The prefix of full names of the objects in the parent*/
+		private final String prefix;
+		/**
+		 * The number of characters removed from the full names*/
+		private final int offset;
+		/**
+		 * The removed part of the full names*/
+		private final String removed;
+		/**
+		 * The copied objects, or null, if the map is still a view*/
+		private Map<String, SSDObject> copy;
+		
+		/**
+		 * Creates new instance of Subtree Map.
+		 * @param parent The parent's objects
+		 * @param prefix The prefix of full names of the objects
+		 * @param offset The number of characters removed from the full names*/
+		SubtreeMap(Map<String, SSDObject> parent, String prefix, int offset) {
+			this.parent	 = parent;
+			this.prefix	 = prefix;
+			this.offset	 = offset;
+			this.removed = prefix.substring(0, offset);
+		}
+		
+		/**
+		 * Copies the objects from the parent, if they are not copied yet.
+		 * @return The copied objects*/
+		private Map<String, SSDObject> copy() {
+			Map<String, SSDObject> map = copy;
+			if(map == null) {
+				map = new LinkedHashMap<>();
+				for(Entry<String, SSDObject> entry : parent.entrySet()) {
+					String entryName = entry.getKey();
+					if(entryName.startsWith(prefix))
+						map.put(entryName.substring(offset), entry.getValue());
+				}
+				
+				copy = map;
+			}
+			
+			return map;
+		}
+		
+		/**
+		 * Copies the objects from the parent, before the parent is changed.*/
+		void detach() {
+			copy();
+		}
+		
+		/**
+		 * Checks whether the objects are read from the given map,
+		 * either directly or through other views.
+		 * @param map The map
+		 * @return True, if the objects are read from the map, otherwise false*/
+		boolean isViewOf(Map<String, SSDObject> map) {
+			return copy == null && (parent == map
+						|| parent instanceof SubtreeMap && ((SubtreeMap) parent).isViewOf(map));
+		}
+		
+		@Override
+		public SSDObject get(Object name) {
+			if(copy != null)
+				return copy.get(name);
+			if(!(name instanceof String))
+				return null;
+			
+			String fullName = removed.concat((String) name);
+			return fullName.startsWith(prefix) ? parent.get(fullName) : null;
+		}
+		
+		@Override
+		public boolean containsKey(Object name) {
+			return get(name) != null;
+		}
+		
+		@Override
+		public boolean isEmpty() {
+			return copy != null ? copy.isEmpty() : !entrySet().iterator().hasNext();
+		}
+		
+		@Override
+		public SSDObject put(String name, SSDObject object) {
+			return copy().put(name, object);
+		}
+		
+		@Override
+		public SSDObject remove(Object name) {
+			return copy().remove(name);
+		}
+		
+		@Override
+		public void clear() {
+			copy = new LinkedHashMap<>();
+		}
+		
+		@Override
+		public Set<Entry<String, SSDObject>> entrySet() {
+			if(copy != null)
+				return copy.entrySet();
+			
+			return new AbstractSet<Entry<String, SSDObject>>() {
+				
+				@Override
+				public Iterator<Entry<String, SSDObject>> iterator() {
+					return new Iterator<Entry<String, SSDObject>>() {
+						
+						/**
+						 * The iterator of the parent's objects, or of the remaining
+						 * copied objects, if the map was detached*/
+						private Iterator<Entry<String, SSDObject>> it = parent.entrySet().iterator();
+						/**
+						 * Whether the copied objects are iterated*/
+						private boolean detached;
+						/**
+						 * The number of returned entries that were not removed*/
+						private int returned;
+						/**
+						 * The next entry, or null*/
+						private Entry<String, SSDObject> next = advance();
+						/**
+						 * The last returned entry, or null*/
+						private Entry<String, SSDObject> current;
+						
+						/**
+						 * Finds the next entry of the array.
+						 * @return The entry, or null, if there are no more entries*/
+						private Entry<String, SSDObject> advance() {
+							if(!detached && copy != null) {
+								// The map was detached while it was iterated, the rest
+								// is read from the copy, that can be changed meanwhile
+								List<Entry<String, SSDObject>> rest = new ArrayList<>(copy.entrySet());
+								it		 = rest.subList(Math.min(returned, rest.size()), rest.size()).iterator();
+								detached = true;
+							}
+							
+							while(it.hasNext()) {
+								Entry<String, SSDObject> entry = it.next();
+								if(detached)
+									return entry;
+								
+								String entryName = entry.getKey();
+								if(entryName.startsWith(prefix))
+									return new SimpleImmutableEntry<>(
+										entryName.substring(offset), entry.getValue());
+							}
+							
+							return null;
+						}
+						
+						@Override
+						public boolean hasNext() {
+							return next != null;
+						}
+						
+						@Override
+						public Entry<String, SSDObject> next() {
+							if(next == null)
+								throw new NoSuchElementException();
+							current = next;
+							returned++;
+							next	= advance();
+							return current;
+						}
+						
+						@Override
+						public void remove() {
+							if(current == null)
+								throw new IllegalStateException();
+							// The parent is not changed, the rest is read from it
+							copy().remove(current.getKey());
+							returned--;
+							current = null;
+						}
+					};
+				}
+				
+				@Override
+				public int size() {
+					int size = 0;
+					for(Iterator<Entry<String, SSDObject>> it = iterator(); it.hasNext(); it.next())
+						size++;
+					return size;
+				}
+			};
+		}
+	}
+	
 	/**
 	 * SSD Array iterator. Allows to use SSD Array object
 	 * in loops easily.
@@ -388,16 +1199,17 @@ public class SSDArray implements Iterable<SSDObject> {
 	private class SSDArrayIterator implements Iterator<SSDObject> {
 		
 		/**
-		 * The index of current item*/
-		private int index;
-
+		 * The iterator of the array's objects*/
+		private final Iterator<Entry<String, SSDObject>> it
+			= SSDArray.this.objects.entrySet().iterator();
+		
 		/**
 		 * Checks if the array has next item.
 		 * @return True, if the array has next item,
 		 * 		   otherwise false*/
 		@Override
 		public boolean hasNext() {
-			return index < SSDArray.this.objects.size();
+			return it.hasNext();
 		}
 		
 		/**
@@ -417,21 +1229,11 @@ public class SSDArray implements Iterable<SSDObject> {
 		 * 		   available*/
 		@Override
 		public SSDObject next() {
-			if(index >= SSDArray.this.objects.size())
+			if(!it.hasNext())
 				throw new ArrayIndexOutOfBoundsException
 				("Index is bigger than the array size!");
 			
-			Iterator<Entry<String, SSDObject>> it
-				= SSDArray.this.objects.entrySet().iterator();
-			
-			int k = 0;
-			while(k++ < index && it.hasNext())
-				it.next();
-			
-			index++;
-			if(it.hasNext())
-				return it.next().getValue();
-			return null;
+			return it.next().getValue();
 		}
 	}
 	
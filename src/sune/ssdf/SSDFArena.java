@@ -0,0 +1,207 @@
+package sune.ssdf;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores values of objects outside of the Java heap, in direct byte
+ * buffers. Objects whose values are stored in an arena keep only
+ * a reference to the value, the value is decoded every time it is
+ * requested. This reduces the number of objects on the heap, and
+ * therefore the work of the garbage collector, when very large
+ * documents are read.<br><br>
+ * Values that consist only of Latin-1 characters are stored using
+ * one byte per character, other values using two bytes per character.
+ * <br><br>
+ * Values can be stored only by a single thread at a time, but can be
+ * read by any number of threads. Once the arena is closed, the values
+ * of all objects stored in it cannot be read anymore.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFArena implements Closeable {
+	
+	/**
+	 * The default size of chunks, in bytes*/
+	private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+	/**
+	 * The size of the header of a value, in bytes*/
+	private static final int HEADER_SIZE = 4;
+	
+	/**
+	 * The size of chunks, in bytes*/
+	private final int chunkSize;
+	
+	/**
+	 * All allocated chunks, or null, if the arena is closed*/
+	private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+	/**
+	 * The chunk where the values are currently stored, or null*/
+	private ByteBuffer chunk;
+	/**
+	 * The index of the current chunk*/
+	private int chunkIndex = -1;
+	/**
+	 * The number of allocated bytes*/
+	private long allocatedBytes;
+	/**
+	 * The number of used bytes*/
+	private long usedBytes;
+	
+	/**
+	 * Creates new instance of SSDF Arena with the default size
+	 * of chunks.*/
+	public SSDFArena() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Arena.
+	 * @param chunkSize The size of chunks of memory that are allocated
+	 * 					at once, in bytes. Values larger than the size
+	 * 					are stored in their own chunks.*/
+	public SSDFArena(int chunkSize) {
+		if(chunkSize < 64)
+			throw new IllegalArgumentException("Chunk size must be at least 64 bytes");
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * Stores the given value.
+	 * @param value The value
+	 * @return The reference of the stored value*/
+	synchronized long put(CharSequence value) {
+		ByteBuffer[] all = chunks;
+		if(all == null)
+			throw new IllegalStateException("The arena is closed");
+		
+		int length	  = value.length();
+		boolean latin = true;
+		for(int i = 0; i < length; i++) {
+			if(value.charAt(i) > 0xff) {
+				latin = false;
+				break;
+			}
+		}
+		
+		long size = HEADER_SIZE + (latin ? (long) length : 2L * length);
+		if(size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The value is too large");
+		
+		ByteBuffer target = chunk;
+		int index		  = chunkIndex;
+		if(target == null || target.remaining() < size) {
+			target = ByteBuffer.allocateDirect(Math.max(chunkSize, (int) size));
+			index  = all.length;
+			ByteBuffer[] grown = new ByteBuffer[index + 1];
+			System.arraycopy(all, 0, grown, 0, index);
+			grown[index] = target;
+			allocatedBytes += target.capacity();
+			
+			// Keep the current chunk, if a large value has its own chunk
+			if(size <= chunkSize || chunk == null) {
+				chunk	   = target;
+				chunkIndex = index;
+			}
+			
+			chunks = grown;
+		}
+		
+		int offset = target.position();
+		// Negative length marks values stored using two bytes per character
+		target.putInt(latin ? length : -length - 1);
+		if(latin) {
+			for(int i = 0; i < length; i++)
+				target.put((byte) value.charAt(i));
+		} else {
+			for(int i = 0; i < length; i++)
+				target.putChar(value.charAt(i));
+		}
+		
+		usedBytes += size;
+		return ((long) index << 32) | offset;
+	}
+	
+	/**
+	 * Gets the stored value.
+	 * @param ref The reference of the value
+	 * @return The value*/
+	String get(long ref) {
+		ByteBuffer buffer = chunk(ref);
+		int offset = (int) ref;
+		int header = buffer.getInt(offset);
+		
+		ByteBuffer data = buffer.duplicate();
+		data.position(offset + HEADER_SIZE);
+		if(header >= 0) {
+			byte[] bytes = new byte[header];
+			data.get(bytes);
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+		
+		char[] chars = new char[-header - 1];
+		data.asCharBuffer().get(chars);
+		return new String(chars);
+	}
+	
+	/**
+	 * Gets the length of the stored value.
+	 * @param ref The reference of the value
+	 * @return The number of characters of the value*/
+	int length(long ref) {
+		int header = chunk(ref).getInt((int) ref);
+		return header >= 0 ? header : -header - 1;
+	}
+	
+	/**
+	 * Gets the chunk where the value with the given reference is stored.
+	 * @param ref The reference of the value
+	 * @return The chunk*/
+	private ByteBuffer chunk(long ref) {
+		ByteBuffer[] all = chunks;
+		if(all == null)
+			throw new IllegalStateException("The arena is closed");
+		return all[(int) (ref >>> 32)];
+	}
+	
+	/**
+	 * Gets the number of bytes allocated by the arena.
+	 * @return The number of bytes*/
+	public synchronized long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	
+	/**
+	 * Gets the number of bytes used by the stored values.
+	 * @return The number of bytes*/
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+	
+	/**
+	 * Checks whether the arena is closed.
+	 * @return True, if the arena is closed, otherwise false*/
+	public boolean isClosed() {
+		return chunks == null;
+	}
+	
+	/**
+	 * Closes the arena. The memory is released once the chunks
+	 * are collected by the garbage collector.*/
+	@Override
+	public synchronized void close() {
+		chunks	   = null;
+		chunk	   = null;
+		chunkIndex = -1;
+	}
+	
+	/**
+	 * Called when the arena should be converted
+	 * into a string.
+	 * @return The string of the arena*/
+	@Override
+	public synchronized String toString() {
+		return String.format("[allocated=%d, used=%d, closed=%b]",
+			allocatedBytes, usedBytes, chunks == null);
+	}
+}
\ No newline at end of file
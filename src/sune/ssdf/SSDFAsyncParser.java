@@ -0,0 +1,341 @@
+package sune.ssdf;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Reads top-level SSDF objects from chunks of bytes as they arrive,
+ * e.g. from a non-blocking channel. The parser never blocks, it only
+ * processes the bytes it is given and keeps its state (including
+ * partially decoded characters, strings and comments) between the chunks.
+ * Every completed top-level object is read and either passed to the
+ * listener, or queued, so that it can be obtained by {@link #poll()}.
+ * <br><br>
+ * When a completed document cannot be read, or the listener throws
+ * an exception, the rest of the input given to the call is not processed,
+ * or only partly. The parser stays usable, however, since the input is
+ * not complete anymore, {@link #reset()} should be called before another
+ * input is given to it.
+ * {@link #finish()} resets the parser itself, when the input ends inside
+ * a document.
+ * <br><br>
+ * The parser is not thread-safe.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFAsyncParser {
+	
+	/**
+	 * The size of the decoding buffers*/
+	private static final int BUFFER_SIZE = 8192;
+	/**
+	 * The maximum capacity of the document builder that
+	 * is kept between documents*/
+	private static final int MAX_RETAINED_CAPACITY = 65536;
+	
+	/**
+	 * The decoder of the bytes*/
+	private final CharsetDecoder decoder;
+	/**
+	 * Bytes that are waiting to be decoded*/
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+	/**
+	 * Decoded characters*/
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	/**
+	 * The parser of completed documents*/
+	private final SSDFParser parser;
+	/**
+	 * Completed documents that were not polled yet*/
+	private final Queue<SSDArray> completed = new ArrayDeque<>();
+	
+	/**
+	 * The content of the current document*/
+	private StringBuilder document = new StringBuilder();
+	/**
+	 * The listener of completed documents, or null*/
+	private Consumer<SSDArray> listener;
+	
+	/**
+	 * The depth of brackets, zero outside of any document*/
+	private int depth;
+	/**
+	 * The current quote character, or zero*/
+	private char quote;
+	/**
+	 * Whether the next character is escaped*/
+	private boolean escaped;
+	/**
+	 * Whether the current character is in a line comment*/
+	private boolean lineComment;
+	/**
+	 * Whether the current character is in a block comment*/
+	private boolean blockComment;
+	/**
+	 * The previous character*/
+	private char previous;
+	/**
+	 * The current line number*/
+	private int line = 1;
+	/**
+	 * The current column number*/
+	private long column = 1;
+	/**
+	 * The number of all processed characters*/
+	private long position;
+	
+	/**
+	 * Creates new instance of SSDF Async Parser that reads
+	 * bytes encoded in UTF-8.*/
+	public SSDFAsyncParser() {
+		this(StandardCharsets.UTF_8, null);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Async Parser.
+	 * @param charset The charset of the bytes
+	 * @param schema  The schema that every document is checked
+	 * 				  against, or null*/
+	public SSDFAsyncParser(Charset charset, SSDFSchema schema) {
+		this.decoder = charset.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.parser  = new SSDFParser(schema);
+	}
+	
+	/**
+	 * Sets the listener that is called with every completed document.
+	 * When there is a listener, the documents are not queued.
+	 * @param listener The listener, or null*/
+	public void setListener(Consumer<SSDArray> listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Processes all the remaining bytes of the given buffer.
+	 * @param buffer The buffer of bytes
+	 * @return The number of documents completed by the bytes
+	 * @throws SSDFException When a completed document violates the schema*/
+	public int feed(ByteBuffer buffer) {
+		int count = 0;
+		while(buffer.hasRemaining()) {
+			int length = Math.min(bytes.remaining(), buffer.remaining());
+			ByteBuffer slice = buffer.duplicate();
+			slice.limit(slice.position() + length);
+			bytes.put(slice);
+			buffer.position(buffer.position() + length);
+			count += decode(false);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Processes all the given characters.
+	 * @param content The characters
+	 * @return The number of documents completed by the characters
+	 * @throws SSDFException When a completed document violates the schema*/
+	public int feed(CharSequence content) {
+		int count = 0;
+		for(int i = 0, l = content.length(); i < l; i++) {
+			if(process(content.charAt(i)))
+				count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Signals that there are no more bytes. All the remaining bytes
+	 * are processed.
+	 * @return The number of documents completed by the remaining bytes
+	 * @throws SSDFException When the input ends inside a document*/
+	public int finish() {
+		int count = decode(true);
+		chars.clear();
+		decoder.flush(chars);
+		chars.flip();
+		count += process(chars);
+		decoder.reset();
+		
+		if(depth > 0) {
+			reset();
+			throw new SSDFException("Unexpected end of the input", position, line, column);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Decodes the waiting bytes and processes the decoded characters.
+	 * @param endOfInput Whether there are no more bytes
+	 * @return The number of completed documents*/
+	private int decode(boolean endOfInput) {
+		int count = 0;
+		bytes.flip();
+		try {
+			while(true) {
+				chars.clear();
+				boolean overflow = decoder.decode(bytes, chars, endOfInput).isOverflow();
+				chars.flip();
+				count += process(chars);
+				if(!overflow) break;
+			}
+		} finally {
+			// Keep the waiting bytes ready for the next call, even when a document failed
+			bytes.compact();
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Processes all the characters of the given buffer.
+	 * @param buffer The buffer of characters
+	 * @return The number of completed documents*/
+	private int process(CharBuffer buffer) {
+		int count = 0;
+		while(buffer.hasRemaining()) {
+			if(process(buffer.get()))
+				count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Processes a single character.
+	 * @param c The character
+	 * @return True, if the character completed a document, otherwise false*/
+	private boolean process(char c) {
+		position++;
+		if(c == '\n') {
+			line++;
+			column = 1;
+		} else {
+			column++;
+		}
+		
+		char prev = previous;
+		previous  = c;
+		
+		if(depth > 0)
+			document.append(c);
+		
+		if(lineComment) {
+			if(c == '\n' || c == '\r')
+				lineComment = false;
+			return false;
+		}
+		
+		if(blockComment) {
+			if(c == '/' && prev == '*') {
+				blockComment = false;
+				// The closing slash cannot start another comment
+				previous 	 = 0;
+			}
+			return false;
+		}
+		
+		if(quote != 0) {
+			if(escaped) 		escaped = false;
+			else if(c == '\\')  escaped = true;
+			else if(c == quote) quote 	= 0;
+			return false;
+		}
+		
+		switch(c) {
+			case '#':
+				lineComment = true;
+				return false;
+			case '*':
+				if(prev == '/') {
+					blockComment = true;
+					// The opening star cannot close the comment
+					previous 	 = 0;
+				}
+				return false;
+			case '\"':
+			case '\'':
+				if(depth > 0)
+					quote = c;
+				return false;
+			case '{':
+				if(depth++ == 0)
+					document.append(c);
+				return false;
+			case '[':
+				if(depth > 0)
+					depth++;
+				return false;
+			case '}':
+			case ']':
+				if(depth > 0 && --depth == 0) {
+					complete();
+					return true;
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * Reads the completed document.*/
+	private void complete() {
+		SSDArray array;
+		try {
+			array = parser.parse(document);
+		} finally {
+			if(document.capacity() > MAX_RETAINED_CAPACITY)
+				document = new StringBuilder();
+			document.setLength(0);
+		}
+		
+		if(listener != null) listener.accept(array);
+		else 				 completed.add(array);
+	}
+	
+	/**
+	 * Gets the next completed document.
+	 * @return The array of all objects of the document, or null,
+	 * 		   if there is no completed document*/
+	public SSDArray poll() {
+		return completed.poll();
+	}
+	
+	/**
+	 * Gets the number of completed documents that were not polled yet.
+	 * @return The number of completed documents*/
+	public int available() {
+		return completed.size();
+	}
+	
+	/**
+	 * Checks whether the parser is not in the middle of a document.
+	 * @return True, if no document is being read, otherwise false*/
+	public boolean isIdle() {
+		return depth == 0;
+	}
+	
+	/**
+	 * Discards the current document and all the waiting bytes,
+	 * so that the parser can be used for another input.*/
+	public void reset() {
+		bytes.clear();
+		decoder.reset();
+		document.setLength(0);
+		depth		 = 0;
+		quote		 = 0;
+		escaped		 = false;
+		lineComment	 = false;
+		blockComment = false;
+		previous	 = 0;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,533 @@
+package sune.ssdf;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds SSD objects and arrays to Java objects and back.
+ * Each field of a bound class is mapped to an object with
+ * the same name, nested classes are mapped to arrays, and
+ * Java arrays and lists are mapped to SSD arrays. Fields of type
+ * Object and items of lists without a known element type get the raw
+ * values of the objects, i.e. strings, numbers or booleans.<br><br>
+ * Classes are bound either through their no-argument constructor
+ * and fields, or, if there is no such constructor, through
+ * the constructor whose parameters match all the fields in
+ * their declared order (e.g. the canonical constructor of a record).
+ * The accessors of every class are created only once and cached.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFBinder {
+	
+	/**
+	 * Marks a value that was not found in the array*/
+	private static final Object MISSING = new Object();
+	
+	/**
+	 * Cached binding plans of all already bound classes*/
+	private static final Map<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+	
+	// Forbid anyone to create an instance of this class
+	private SSDFBinder() {
+	}
+	
+	/**
+	 * Binds the objects of the given array to a new instance
+	 * of the given class.
+	 * @param array The array from which to read the objects
+	 * @param clazz The class to bind to
+	 * @return The new instance of the given class*/
+	public static <T> T bind(SSDArray array, Class<T> clazz) {
+		Plan plan	 = plan(clazz);
+		Object value = plan.bind(array.getObjects(), "");
+		if(value == MISSING) {
+			Object[] values = new Object[plan.properties.length];
+			Arrays.fill(values, MISSING);
+			value = plan.create(values);
+		}
+		return clazz.cast(value);
+	}
+	
+	/**
+	 * Unbinds the given object, i.e. converts all its fields
+	 * to SSD objects and arrays.
+	 * @param object The object to unbind
+	 * @return The array containing all the objects*/
+	public static SSDArray unbind(Object object) {
+		if(object == null)
+			throw new IllegalArgumentException("Object cannot be null");
+		
+		SSDArray array = new SSDArray();
+		plan(object.getClass()).unbind(object, "", array.getObjects());
+		return array;
+	}
+	
+	/**
+	 * Gets the binding plan of the given class, creates
+	 * the plan if it does not exist yet.
+	 * @param clazz The class
+	 * @return The binding plan of the class*/
+	private static Plan plan(Class<?> clazz) {
+		Plan plan = plans.get(clazz);
+		if(plan == null) {
+			plan = new Plan(clazz);
+			Plan prev = plans.putIfAbsent(clazz, plan);
+			if(prev != null) plan = prev;
+		}
+		
+		return plan;
+	}
+	
+	/**
+	 * Checks whether the given type is stored as a single object.
+	 * Other numbers than the listed ones are not supported.
+	 * @param type The type
+	 * @return True, if the type is a scalar type, otherwise false*/
+	private static boolean isScalar(Class<?> type) {
+		return type.isPrimitive()
+					|| type == String.class
+					|| type == Character.class
+					|| type == Boolean.class
+					|| type == Integer.class
+					|| type == Long.class
+					|| type == Double.class
+					|| type == Float.class
+					|| type == Short.class
+					|| type == Byte.class
+					|| type == BigInteger.class
+					|| type == BigDecimal.class
+					|| type.isEnum();
+	}
+	
+	/**
+	 * Gets the element type of the given list type.
+	 * @param type The generic list type
+	 * @return The class of the list's elements, or the Object class,
+	 * 		   if the class cannot be determined*/
+	private static Class<?> elementType(Type type) {
+		if(type instanceof ParameterizedType) {
+			Type arg = ((ParameterizedType) type).getActualTypeArguments()[0];
+			if(arg instanceof Class)
+				return (Class<?>) arg;
+			if(arg instanceof ParameterizedType)
+				return (Class<?>) ((ParameterizedType) arg).getRawType();
+		}
+		
+		// Raw lists, wildcards and type variables contain raw values
+		return Object.class;
+	}
+	
+	/**
+	 * Reads a value of the given type from the objects.
+	 * @param objects 	  The Map (list) of objects
+	 * @param name 		  The name of the value
+	 * @param type		  The class of the value
+	 * @param genericType The generic type of the value
+	 * @return The read value, or {@code MISSING}, if the value
+	 * 		   does not exist*/
+	private static Object read(Map<String, SSDObject> objects, String name,
+			Class<?> type, Type genericType) {
+		if(type == Object.class) {
+			// The type is not known, the raw value of the object is used
+			SSDObject object = objects.get(name);
+			return object == null ? MISSING : rawValue(object);
+		}
+		
+		if(isScalar(type)) {
+			SSDObject object = objects.get(name);
+			return object == null ? MISSING : convert(object, type);
+		}
+		
+		if(type.isArray()) {
+			Class<?> elementType = type.getComponentType();
+			List<Object> list	 = readList(objects, name, elementType, elementType);
+			if(list == null) return MISSING;
+			
+			Object array = Array.newInstance(elementType, list.size());
+			for(int i = 0, l = list.size(); i < l; i++) {
+				Object value = list.get(i);
+				if(value != null || !elementType.isPrimitive())
+					Array.set(array, i, value);
+			}
+			
+			return array;
+		}
+		
+		if(type.isAssignableFrom(ArrayList.class)) {
+			Class<?> elementType = elementType(genericType);
+			List<Object> list	 = readList(objects, name, elementType, elementType);
+			return list == null ? MISSING : list;
+		}
+		
+		return plan(type).bind(objects, name + ".");
+	}
+	
+	/**
+	 * Reads all the items of an array.
+	 * @param objects 	  The Map (list) of objects
+	 * @param name 		  The name of the array
+	 * @param type		  The class of the items
+	 * @param genericType The generic type of the items
+	 * @return The list of the items, or null, if the array
+	 * 		   does not exist*/
+	private static List<Object> readList(Map<String, SSDObject> objects, String name,
+			Class<?> type, Type genericType) {
+		List<Object> list = new ArrayList<>();
+		String prefix	  = name + ".";
+		for(int i = 0;; i++) {
+			Object value = read(objects, prefix + i, type, genericType);
+			if(value == MISSING) break;
+			list.add(value);
+		}
+		
+		return list.isEmpty() ? null : list;
+	}
+	
+	/**
+	 * Converts the object to the given scalar type.
+	 * @param object The object
+	 * @param type	 The scalar type
+	 * @return The converted value*/
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object convert(SSDObject object, Class<?> type) {
+		SSDType objectType = object.type();
+		if(objectType == SSDType.NULL || objectType == SSDType.UNDEFINED)
+			return null;
+		
+		String value = object.stringValue();
+		if(type == String.class)	 							return value;
+		if(type == int.class 	 || type == Integer.class) 		return object.integerValue();
+		if(type == long.class 	 || type == Long.class) 		return object.longValue();
+		if(type == double.class  || type == Double.class) 		return object.doubleValue();
+		if(type == float.class 	 || type == Float.class) 		return (float) object.doubleValue();
+		if(type == boolean.class || type == Boolean.class) 		return object.booleanValue();
+		if(type == short.class 	 || type == Short.class) 		return Short.parseShort(value);
+		if(type == byte.class 	 || type == Byte.class) 		return Byte.parseByte(value);
+		if(type == char.class 	 || type == Character.class) 	return value.isEmpty() ? null : value.charAt(0);
+		if(type == BigInteger.class)							return new BigInteger(value);
+		if(type == BigDecimal.class)							return new BigDecimal(value);
+		if(type.isEnum()) 										return Enum.valueOf((Class) type, value);
+		
+		throw new IllegalArgumentException
+			("Unsupported type '" + type.getName() + "'");
+	}
+	
+	/**
+	 * Gets the raw value of the object, as a Java type matching
+	 * the object's type.
+	 * @param object The object
+	 * @return The value, i.e. a String, Long, BigInteger, Double
+	 * 		   or Boolean, or null*/
+	private static Object rawValue(SSDObject object) {
+		switch(object.type()) {
+			case STRING:
+				return object.stringValue();
+			case INTEGER:
+				try {
+					return object.longValue();
+				} catch(NumberFormatException ex) {
+					// The number is too big for a long
+					return new BigInteger(object.stringValue());
+				}
+			case FLOAT:
+				return object.doubleValue();
+			case BOOLEAN:
+				return object.booleanValue();
+			default:
+				return null;
+		}
+	}
+	
+	/**
+	 * Writes the value to the objects. The objects are created with their
+	 * types and values, as they are by the parser, the values are not
+	 * matched against the types' regular expressions.
+	 * @param objects The Map (list) of objects
+	 * @param name	  The name of the value
+	 * @param value	  The value*/
+	private static void write(Map<String, SSDObject> objects, String name, Object value) {
+		if(value == null) {
+			objects.put(name, new SSDObject(name, SSDType.NULL, "null", false));
+		} else if(value instanceof String
+					|| value instanceof Character
+					|| value instanceof Enum) {
+			String string = value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+			objects.put(name, new SSDObject(name, SSDType.STRING, string, false));
+		} else if(value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			// Infinities and NaN cannot be written in SSDF Syntax
+			objects.put(name, Double.isFinite(number)
+				? new SSDObject(name, SSDType.FLOAT, Double.toString(number),
+					Double.doubleToRawLongBits(number))
+				: new SSDObject(name, SSDType.NULL, "null", false));
+		} else if(value instanceof BigDecimal) {
+			BigDecimal number = (BigDecimal) value;
+			objects.put(name, new SSDObject(name, SSDType.FLOAT, number.toString(),
+				Double.doubleToRawLongBits(number.doubleValue())));
+		} else if(value instanceof Number && isScalar(value.getClass())) {
+			// Integers too long to be parsed in advance are parsed from the value
+			objects.put(name, new SSDObject(name, SSDType.INTEGER, value.toString(),
+				((Number) value).longValue()));
+		} else if(value instanceof Boolean) {
+			objects.put(name, new SSDObject(name, SSDType.BOOLEAN, value.toString(), false));
+		} else if(value.getClass().isArray()) {
+			String prefix = name + ".";
+			for(int i = 0, l = Array.getLength(value); i < l; i++)
+				write(objects, prefix + i, Array.get(value, i));
+		} else if(value instanceof Collection) {
+			String prefix = name + ".";
+			int i = 0;
+			for(Object item : (Collection<?>) value)
+				write(objects, prefix + (i++), item);
+		} else {
+			plan(value.getClass()).unbind(value, name + ".", objects);
+		}
+	}
+	
+	/**
+	 * Gets the default value of the given type.
+	 * @param type The type
+	 * @return The default value*/
+	private static Object defaultValue(Class<?> type) {
+		if(!type.isPrimitive()) return null;
+		if(type == boolean.class) 	return false;
+		if(type == char.class) 		return '\0';
+		if(type == long.class) 		return 0L;
+		if(type == double.class) 	return 0.0;
+		if(type == float.class) 	return 0.0f;
+		if(type == short.class) 	return (short) 0;
+		if(type == byte.class) 		return (byte) 0;
+		return 0;
+	}
+	
+	/**
+	 * Represents a bound field of a class.
+	 * @author Sune*/
+	private static final class Property {
+		
+		/**
+		 * The name of the property*/
+		final String name;
+		/**
+		 * The class of the property*/
+		final Class<?> type;
+		/**
+		 * The generic type of the property*/
+		final Type genericType;
+		/**
+		 * The getter of the property, (Object)Object*/
+		final MethodHandle getter;
+		/**
+		 * The setter of the property, (Object,Object)void,
+		 * or null, if the property is set through a constructor*/
+		final MethodHandle setter;
+		
+		/**
+		 * Creates new instance of Property.
+		 * @param field  The field
+		 * @param getter The getter of the field
+		 * @param setter The setter of the field*/
+		Property(Field field, MethodHandle getter, MethodHandle setter) {
+			this.name		 = field.getName();
+			this.type		 = field.getType();
+			this.genericType = field.getGenericType();
+			this.getter		 = getter;
+			this.setter		 = setter;
+		}
+	}
+	
+	/**
+	 * Represents a binding plan of a class.
+	 * @author Sune*/
+	private static final class Plan {
+		
+		/**
+		 * The bound class*/
+		final Class<?> clazz;
+		/**
+		 * All bound properties*/
+		final Property[] properties;
+		/**
+		 * The constructor, either ()Object, or (Object[])Object
+		 * when the properties are set through the constructor*/
+		final MethodHandle constructor;
+		/**
+		 * Whether the properties are set through the constructor*/
+		final boolean canonical;
+		
+		/**
+		 * Creates new binding plan of the given class.
+		 * @param clazz The class*/
+		Plan(Class<?> clazz) {
+			if(clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())
+					|| clazz.getName().startsWith("java."))
+				throw new IllegalArgumentException
+					("Unable to bind the class '" + clazz.getName() + "'");
+			
+			this.clazz = clazz;
+			List<Field> fields = new ArrayList<>();
+			for(Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+				List<Field> declared = new ArrayList<>();
+				for(Field field : c.getDeclaredFields()) {
+					int mod = field.getModifiers();
+					if(!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !field.isSynthetic())
+						declared.add(field);
+				}
+				
+				fields.addAll(0, declared);
+			}
+			
+			for(Field field : fields) {
+				Class<?> type = field.getType();
+				if(Number.class.isAssignableFrom(type) && !isScalar(type))
+					throw new IllegalArgumentException
+						("Unsupported type '" + type.getName() + "' of the field '"
+							+ field.getName() + "'");
+			}
+			
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodType getterType = MethodType.methodType(Object.class, Object.class);
+				MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+				
+				Constructor<?> ctor = findConstructor(clazz, fields);
+				this.canonical		= ctor.getParameterCount() > 0;
+				ctor.setAccessible(true);
+				
+				MethodHandle handle = lookup.unreflectConstructor(ctor);
+				this.constructor	= canonical
+					? handle.asSpreader(Object[].class, fields.size())
+							.asType(MethodType.methodType(Object.class, Object[].class))
+					: handle.asType(MethodType.methodType(Object.class));
+				
+				this.properties = new Property[fields.size()];
+				for(int i = 0, l = fields.size(); i < l; i++) {
+					Field field = fields.get(i);
+					field.setAccessible(true);
+					MethodHandle getter = lookup.unreflectGetter(field).asType(getterType);
+					MethodHandle setter = canonical || Modifier.isFinal(field.getModifiers())
+							? null : lookup.unreflectSetter(field).asType(setterType);
+					properties[i] = new Property(field, getter, setter);
+				}
+			} catch(ReflectiveOperationException | RuntimeException ex) {
+				throw new IllegalArgumentException
+					("Unable to bind the class '" + clazz.getName() + "'", ex);
+			}
+		}
+		
+		/**
+		 * Finds the constructor that should be used for binding.
+		 * @param clazz  The class
+		 * @param fields All bound fields of the class
+		 * @return The no-argument constructor, or the constructor
+		 * 		   with parameters matching all the fields
+		 * @throws NoSuchMethodException When there is no such constructor*/
+		private static Constructor<?> findConstructor(Class<?> clazz, List<Field> fields)
+				throws NoSuchMethodException {
+			Class<?>[] types = new Class<?>[fields.size()];
+			for(int i = 0; i < types.length; i++)
+				types[i] = fields.get(i).getType();
+			
+			Constructor<?> found = null;
+			for(Constructor<?> ctor : clazz.getDeclaredConstructors()) {
+				if(ctor.getParameterCount() == 0)
+					return ctor;
+				if(Arrays.equals(ctor.getParameterTypes(), types))
+					found = ctor;
+			}
+			
+			if(found == null)
+				throw new NoSuchMethodException("No suitable constructor");
+			return found;
+		}
+		
+		/**
+		 * Creates new instance of the class.
+		 * @param values The values of all properties, {@code MISSING}
+		 * 				 for values that were not found
+		 * @return The new instance*/
+		Object create(Object[] values) {
+			try {
+				if(canonical) {
+					for(int i = 0; i < values.length; i++) {
+						if(values[i] == null || values[i] == MISSING)
+							values[i] = defaultValue(properties[i].type);
+					}
+					
+					return (Object) constructor.invokeExact(values);
+				}
+				
+				Object instance = (Object) constructor.invokeExact();
+				for(int i = 0; i < values.length; i++) {
+					Property property = properties[i];
+					Object value	  = values[i];
+					// Keep the value set by the constructor, if it was not found
+					if(property.setter != null && value != MISSING
+							&& (value != null || !property.type.isPrimitive()))
+						property.setter.invokeExact(instance, value);
+				}
+				
+				return instance;
+			} catch(Throwable ex) {
+				throw new IllegalStateException
+					("Unable to create an instance of '" + clazz.getName() + "'", ex);
+			}
+		}
+		
+		/**
+		 * Binds the objects with the given prefix to a new instance.
+		 * @param objects The Map (list) of objects
+		 * @param prefix  The prefix of the objects
+		 * @return The new instance, or {@code MISSING}, if there are
+		 * 		   no objects for this instance*/
+		Object bind(Map<String, SSDObject> objects, String prefix) {
+			Object[] values = new Object[properties.length];
+			boolean found	= false;
+			for(int i = 0; i < properties.length; i++) {
+				Property property = properties[i];
+				Object value	  = read(objects, prefix + property.name,
+					property.type, property.genericType);
+				
+				values[i] = value;
+				if(value != MISSING)
+					found = true;
+			}
+			
+			return found ? create(values) : MISSING;
+		}
+		
+		/**
+		 * Writes all properties of the given instance to the objects.
+		 * @param instance The instance
+		 * @param prefix   The prefix of the objects
+		 * @param objects  The Map (list) of objects*/
+		void unbind(Object instance, String prefix, Map<String, SSDObject> objects) {
+			for(Property property : properties) {
+				Object value;
+				try {
+					value = (Object) property.getter.invokeExact(instance);
+				} catch(Throwable ex) {
+					throw new IllegalStateException
+						("Unable to read the field '" + property.name + "'", ex);
+				}
+				
+				write(objects, prefix + property.name, value);
+			}
+		}
+	}
+}
\ No newline at end of file
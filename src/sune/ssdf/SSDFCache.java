@@ -0,0 +1,345 @@
+package sune.ssdf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Caches read SSD Files, so that the same file is read only once
+ * and its objects are shared by everyone who reads it. A cached file
+ * is read again when its modification time or size changes.<br><br>
+ * The documents returned by the cache are shared and therefore
+ * read-only, any attempt to change their objects or to create an index
+ * of them throws {@code UnsupportedOperationException}. When the total
+ * estimated size of all cached documents exceeds the maximum weight,
+ * the least recently used documents are evicted.<br><br>
+ * The cache is thread-safe. When more threads request the same file
+ * at the same time, the file is read only by one of them.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFCache {
+	
+	/**
+	 * The default maximum weight of the default cache, in bytes*/
+	private static final long DEFAULT_MAX_WEIGHT = 64L * 1024L * 1024L;
+	/**
+	 * The default cache*/
+	private static final SSDFCache DEFAULT = new SSDFCache(DEFAULT_MAX_WEIGHT);
+	
+	/**
+	 * The maximum weight of all documents, in bytes*/
+	private final long maxWeight;
+	/**
+	 * All cached documents, in the access order*/
+	private final LinkedHashMap<Path, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	/**
+	 * Documents that are currently being read*/
+	private final Map<Path, Load> loads = new ConcurrentHashMap<>();
+	
+	/**
+	 * The current weight of all documents, in bytes*/
+	private long weight;
+	/**
+	 * The number of cache hits*/
+	private long hitCount;
+	/**
+	 * The number of cache misses*/
+	private long missCount;
+	/**
+	 * The number of evicted documents*/
+	private long evictionCount;
+	
+	/**
+	 * Creates new instance of SSDF Cache.
+	 * @param maxWeight The maximum estimated size of all cached
+	 * 					documents, in bytes*/
+	public SSDFCache(long maxWeight) {
+		if(maxWeight < 0)
+			throw new IllegalArgumentException("Max weight cannot be negative");
+		this.maxWeight = maxWeight;
+	}
+	
+	/**
+	 * Gets the default process-wide cache.
+	 * @return The default cache*/
+	public static SSDFCache getDefault() {
+		return DEFAULT;
+	}
+	
+	/**
+	 * Gets the document of the given file. The file is read only if
+	 * it is not cached yet or if it has changed since it was cached.
+	 * @param file The file
+	 * @return The shared read-only document
+	 * @throws IOException When the file cannot be accessed*/
+	public SSDFCore get(File file) throws IOException {
+		return get(file.toPath());
+	}
+	
+	/**
+	 * Gets the document of the given file. The file is read only if
+	 * it is not cached yet or if it has changed since it was cached.
+	 * @param path The path of the file
+	 * @return The shared read-only document
+	 * @throws IOException When the file cannot be accessed*/
+	public SSDFCore get(Path path) throws IOException {
+		Path key = path.toAbsolutePath().normalize();
+		while(true) {
+			BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+			long modified = attrs.lastModifiedTime().toMillis();
+			long size	  = attrs.size();
+			
+			synchronized(entries) {
+				CacheEntry entry = entries.get(key);
+				if(entry != null && entry.modified == modified && entry.size == size) {
+					hitCount++;
+					return entry.document;
+				}
+			}
+			
+			Load load = new Load(key, modified, size);
+			Load prev = loads.putIfAbsent(key, load);
+			if(prev != null) {
+				// Someone else is reading the file, wait for them
+				SSDFCore document = prev.await();
+				if(prev.modified == modified && prev.size == size) {
+					synchronized(entries) {
+						hitCount++;
+					}
+					
+					return document;
+				}
+				
+				// The file has changed in the meantime, try it again. The finished
+				// reading is removed, so that it is not waited for again.
+				loads.remove(key, prev);
+				continue;
+			}
+			
+			try {
+				load.task.run();
+				SSDFCore document = load.await();
+				synchronized(entries) {
+					missCount++;
+					put(key, new CacheEntry(document, modified, size, estimateWeight(document)));
+				}
+				
+				return document;
+			} finally {
+				loads.remove(key, load);
+			}
+		}
+	}
+	
+	/**
+	 * Puts an entry to the cache and evicts the least recently used
+	 * entries, if the cache is too heavy.
+	 * @param key 	The key
+	 * @param entry The entry*/
+	private void put(Path key, CacheEntry entry) {
+		CacheEntry prev = entries.put(key, entry);
+		if(prev != null)
+			weight -= prev.weight;
+		weight += entry.weight;
+		
+		for(Iterator<CacheEntry> it = entries.values().iterator();
+				weight > maxWeight && it.hasNext();) {
+			weight -= it.next().weight;
+			it.remove();
+			evictionCount++;
+		}
+	}
+	
+	/**
+	 * Estimates the size of the given document in memory.
+	 * @param document The document
+	 * @return The estimated size, in bytes*/
+	private static long estimateWeight(SSDFCore document) {
+		return document.getArray().estimateRetainedSize();
+	}
+	
+	/**
+	 * Reads the document of the given file.
+	 * @param path The path of the file
+	 * @return The read-only document*/
+	private static SSDFCore read(Path path) {
+		SSDArray array = new SSDFCore(path.toFile()).getArray();
+		return new SSDFCore(new SSDArray(array.getName(),
+			Collections.unmodifiableMap(array.getObjects()), true));
+	}
+	
+	/**
+	 * Removes the document of the given file from the cache.
+	 * @param path The path of the file*/
+	public void invalidate(Path path) {
+		Path key = path.toAbsolutePath().normalize();
+		synchronized(entries) {
+			CacheEntry entry = entries.remove(key);
+			if(entry != null)
+				weight -= entry.weight;
+		}
+	}
+	
+	/**
+	 * Removes all documents from the cache.*/
+	public void clear() {
+		synchronized(entries) {
+			entries.clear();
+			weight = 0L;
+		}
+	}
+	
+	/**
+	 * Gets the number of cached documents.
+	 * @return The number of documents*/
+	public int size() {
+		synchronized(entries) {
+			return entries.size();
+		}
+	}
+	
+	/**
+	 * Gets the total estimated size of all cached documents.
+	 * @return The weight, in bytes*/
+	public long getWeight() {
+		synchronized(entries) {
+			return weight;
+		}
+	}
+	
+	/**
+	 * Gets the maximum weight of all cached documents.
+	 * @return The maximum weight, in bytes*/
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+	
+	/**
+	 * Gets the number of requests that were served from the cache.
+	 * @return The number of cache hits*/
+	public long getHitCount() {
+		synchronized(entries) {
+			return hitCount;
+		}
+	}
+	
+	/**
+	 * Gets the number of requests that had to read the file.
+	 * @return The number of cache misses*/
+	public long getMissCount() {
+		synchronized(entries) {
+			return missCount;
+		}
+	}
+	
+	/**
+	 * Gets the number of documents that were evicted from the cache.
+	 * @return The number of evictions*/
+	public long getEvictionCount() {
+		synchronized(entries) {
+			return evictionCount;
+		}
+	}
+	
+	/**
+	 * Called when the cache should be converted
+	 * into a string.
+	 * @return The string of the cache*/
+	@Override
+	public String toString() {
+		synchronized(entries) {
+			return String.format(
+				"[size=%d, weight=%d, hits=%d, misses=%d, evictions=%d]",
+				entries.size(), weight, hitCount, missCount, evictionCount);
+		}
+	}
+	
+	/**
+	 * Represents a cached document.
+	 * @author Sune*/
+	private static final class CacheEntry {
+		
+		/**
+		 * The document*/
+		final SSDFCore document;
+		/**
+		 * The modification time of the file*/
+		final long modified;
+		/**
+		 * The size of the file*/
+		final long size;
+		/**
+		 * The estimated size of the document in memory*/
+		final long weight;
+		
+		/**
+		 * Creates new instance of Cache Entry.
+		 * @param document The document
+		 * @param modified The modification time of the file
+		 * @param size	   The size of the file
+		 * @param weight   The estimated size of the document in memory*/
+		CacheEntry(SSDFCore document, long modified, long size, long weight) {
+			this.document = document;
+			this.modified = modified;
+			this.size	  = size;
+			this.weight	  = weight;
+		}
+	}
+	
+	/**
+	 * Represents a reading of a file that is in progress.
+	 * @author Sune*/
+	private static final class Load {
+		
+		/**
+		 * The task that reads the file*/
+		final FutureTask<SSDFCore> task;
+		/**
+		 * The modification time of the file*/
+		final long modified;
+		/**
+		 * The size of the file*/
+		final long size;
+		
+		/**
+		 * Creates new instance of Load.
+		 * @param path 	   The path of the file
+		 * @param modified The modification time of the file
+		 * @param size	   The size of the file*/
+		Load(Path path, long modified, long size) {
+			this.task	  = new FutureTask<>(() -> read(path));
+			this.modified = modified;
+			this.size	  = size;
+		}
+		
+		/**
+		 * Waits for the reading to finish.
+		 * @return The read document
+		 * @throws IOException When the file could not be read*/
+		SSDFCore await() throws IOException {
+			try {
+				return task.get();
+			} catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch(ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if(cause instanceof Error)
+					throw (Error) cause;
+				throw new IOException(cause);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,274 @@
+package sune.ssdf;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores all supported compressions of SSD Files. Compressed
+ * files are detected automatically when they are read.
+ * @author Sune
+ * @since 1.2*/
+public enum SSDFCompression {
+	
+	/**
+	 * No compression.*/
+	NONE,
+	/**
+	 * The gzip format.*/
+	GZIP,
+	/**
+	 * The zlib (deflate) format.*/
+	DEFLATE,
+	/**
+	 * The gzip format, where the content is split into blocks that
+	 * are compressed in parallel. Each block is a separate gzip member,
+	 * so the result is a valid gzip file that can be read by any
+	 * gzip reader.*/
+	PARALLEL_GZIP;
+	
+	/**
+	 * The size of buffers of the streams*/
+	private static final int BUFFER_SIZE = 8192;
+	/**
+	 * The number of characters in a single block of
+	 * the parallel compression*/
+	private static final int BLOCK_SIZE = 1 << 20;
+	
+	/**
+	 * Gets the compression by the extension of the given file name.
+	 * @param fileName The file name
+	 * @return The compression of the file*/
+	public static SSDFCompression forFileName(String fileName) {
+		String name = fileName.toLowerCase();
+		if(name.endsWith(".gz") || name.endsWith(".gzip")) 	 return GZIP;
+		if(name.endsWith(".zz") || name.endsWith(".deflate")) return DEFLATE;
+		return NONE;
+	}
+	
+	/**
+	 * Wraps the given input stream so that its content is decompressed,
+	 * if it is compressed by any of the supported compressions.
+	 * The content is decompressed while it is read.
+	 * @param stream The input stream
+	 * @return The input stream of the decompressed content
+	 * @throws IOException When the stream cannot be read*/
+	static InputStream decompress(InputStream stream) throws IOException {
+		InputStream in = stream.markSupported() ? stream
+			: new BufferedInputStream(stream, BUFFER_SIZE);
+		
+		in.mark(2);
+		int b0 = in.read();
+		int b1 = in.read();
+		in.reset();
+		
+		// The gzip magic number
+		if(b0 == 0x1f && b1 == 0x8b)
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		// The zlib header with the default window, no preset dictionary
+		if(b0 == 0x78 && b1 >= 0 && (b1 & 0x20) == 0 && ((b0 << 8) | b1) % 31 == 0)
+			return new InflaterInputStream(in);
+		return in;
+	}
+	
+	/**
+	 * Writes the content of the given writer to the output stream,
+	 * compressed by this compression. The content is compressed while
+	 * it is created. The stream is not closed.
+	 * @param content The writer of the content
+	 * @param stream  The output stream
+	 * @throws IOException When the content cannot be written*/
+	void write(SSDFWriter content, OutputStream stream) throws IOException {
+		switch(this) {
+			case NONE:
+				writeText(content, stream);
+				break;
+			case GZIP: {
+				GZIPOutputStream out = new GZIPOutputStream(stream, BUFFER_SIZE);
+				writeText(content, out);
+				out.finish();
+				break;
+			}
+			case DEFLATE: {
+				DeflaterOutputStream out = new DeflaterOutputStream(stream);
+				writeText(content, out);
+				out.finish();
+				break;
+			}
+			case PARALLEL_GZIP: {
+				ParallelWriter out = new ParallelWriter(stream);
+				try {
+					content.write(out);
+					out.finish();
+				} finally {
+					out.cancel();
+				}
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Writes the content of the given writer to the output stream in UTF-8.
+	 * @param content The writer of the content
+	 * @param stream  The output stream
+	 * @throws IOException When the content cannot be written*/
+	private static void writeText(SSDFWriter content, OutputStream stream) throws IOException {
+		Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+		content.write(writer);
+		writer.flush();
+	}
+	
+	/**
+	 * Compresses a block of the content to a gzip member.
+	 * @param content The content
+	 * @param start	  The start of the block
+	 * @param end	  The end of the block
+	 * @return The compressed block
+	 * @throws IOException When the block cannot be compressed*/
+	private static byte[] compressBlock(String content, int start, int end) throws IOException {
+		ByteBuffer bytes = StandardCharsets.UTF_8.newEncoder()
+			.encode(CharBuffer.wrap(content, start, end));
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.remaining() / 4 + 64);
+		try(GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+			gzip.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+		}
+		
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Writer that splits the content into blocks that are compressed
+	 * in parallel, but written to the output stream in their order.
+	 * @author Sune*/
+	private static final class ParallelWriter extends Writer {
+		
+		/**
+		 * The output stream*/
+		private final OutputStream stream;
+		/**
+		 * The pool where the blocks are compressed*/
+		private final ForkJoinPool pool = ForkJoinPool.commonPool();
+		/**
+		 * The maximum number of compressed blocks waiting in memory*/
+		private final int window = Math.max(2, pool.getParallelism() * 2);
+		/**
+		 * The blocks being compressed, in their order*/
+		private final Deque<Future<byte[]>> blocks = new ArrayDeque<>();
+		/**
+		 * The current block*/
+		private StringBuilder block = new StringBuilder(BLOCK_SIZE);
+		/**
+		 * Whether any block was compressed*/
+		private boolean written;
+		
+		/**
+		 * Creates new instance of Parallel Writer.
+		 * @param stream The output stream*/
+		ParallelWriter(OutputStream stream) {
+			this.stream = stream;
+		}
+		
+		@Override
+		public void write(char[] chars, int offset, int length) throws IOException {
+			for(int end = offset + length; offset < end;) {
+				int count = Math.min(end - offset, BLOCK_SIZE - block.length());
+				block.append(chars, offset, count);
+				offset += count;
+				if(block.length() >= BLOCK_SIZE)
+					submit();
+			}
+		}
+		
+		@Override
+		public Writer append(CharSequence chars) throws IOException {
+			for(int start = 0, length = chars.length(); start < length;) {
+				int count = Math.min(length - start, BLOCK_SIZE - block.length());
+				block.append(chars, start, start + count);
+				start += count;
+				if(block.length() >= BLOCK_SIZE)
+					submit();
+			}
+			
+			return this;
+		}
+		
+		/**
+		 * Starts compression of the current block and writes the oldest
+		 * compressed blocks, if there are too many of them.
+		 * @throws IOException When a block cannot be written*/
+		private void submit() throws IOException {
+			String content = block.toString();
+			int end		   = content.length();
+			block		   = new StringBuilder(BLOCK_SIZE);
+			// Do not split surrogate pairs
+			if(end > 1 && Character.isHighSurrogate(content.charAt(end-1)))
+				block.append(content.charAt(--end));
+			
+			int to = end;
+			blocks.add(pool.submit(() -> compressBlock(content, 0, to)));
+			written = true;
+			while(blocks.size() >= window)
+				writeBlock();
+		}
+		
+		/**
+		 * Writes the oldest compressed block to the output stream.
+		 * @throws IOException When the block cannot be written*/
+		private void writeBlock() throws IOException {
+			try {
+				stream.write(blocks.poll().get());
+			} catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException(ex);
+			} catch(ExecutionException ex) {
+				throw new IOException(ex.getCause());
+			}
+		}
+		
+		/**
+		 * Compresses the rest of the content and writes all the blocks.
+		 * An empty content is written as an empty gzip member.
+		 * @throws IOException When the content cannot be written*/
+		void finish() throws IOException {
+			if(block.length() > 0 || !written)
+				submit();
+			while(!blocks.isEmpty())
+				writeBlock();
+		}
+		
+		/**
+		 * Cancels compression of all blocks that were not written.*/
+		void cancel() {
+			for(Future<byte[]> future : blocks)
+				future.cancel(false);
+			blocks.clear();
+		}
+		
+		@Override
+		public void flush() {
+			// The blocks are written when they are compressed
+		}
+		
+		@Override
+		public void close() {
+			cancel();
+		}
+	}
+}
\ No newline at end of file
@@ -1,56 +1,36 @@
 package sune.ssdf;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Helps with reading SSDF Syntax and contains methods
  * that helps with manipulating with objects in SSD files.
- * @version 1.1
+ * @version 1.2
  * @author Sune*/
 public final class SSDFCore {
 	
 	/**
 	 * The main SSD Array object*/
 	protected final SSDArray array;
-	
-	/**
-	 * Opening object brackets*/
-	private final char oOB = '{';
-	/**
-	 * Closing object brackets*/
-	private final char cOB = '}';
-	/**
-	 * Opening array brackets*/
-	private final char oAB = '[';
 	/**
-	 * Closing array brackets*/
-	private final char cAB = ']';
+	 * The positions of values in the read file, or null*/
+	private SSDFSource source;
 	/**
-	 * Name/value delimiter*/
-	private final char nvd = ':';
-	/**
-	 * Items delimiter*/
-	private final char itd = ',';
-	
-	/**
-	 * Stores all special words that should
-	 * not be read as a string*/
-	private final String[] words = {
-		"true", "false", "null"
-	};
+	 * The estimated peak size of the memory used while reading
+	 * the content, or -1*/
+	private long peakTransientBytes = -1L;
 	
 	/**
 	 * Creates new instance of SSDF Core.*/
@@ -62,14 +42,14 @@ public final class SSDFCore {
 	 * Creates new instance of SSDF Core.
 	 * @param content The content of SSDF file in SSDF Syntax*/
 	public SSDFCore(String content) {
-		this.array = getObjects(format(content));
+		this(content, (SSDFSchema) null);
 	}
 	
 	/**
 	 * Creates new instance of SSDF Core.
 	 * @param file The file object to read*/
 	public SSDFCore(File file) {
-		this.array = getObjects(format(getContent(file)));
+		this(file, null);
 	}
 	
 	/**
@@ -78,7 +58,7 @@ public final class SSDFCore {
 	 * should be read.
 	 * @since 1.1*/
 	public SSDFCore(InputStream stream) {
-		this.array = getObjects(format(fromStream(stream, "UTF-8")));
+		this(stream, null);
 	}
 	
 	/**
@@ -90,299 +70,329 @@ public final class SSDFCore {
 	}
 	
 	/**
-	 * Gets the content of the given file.
-	 * @param file The file object from where to get the
-	 * 			   content
-	 * @return The content of the given file*/
-	private String getContent(File file) {
-		StringBuilder builder = new StringBuilder();
-		try(BufferedReader reader = new BufferedReader(
-				new FileReader(file))) {
-			String line = "";
-			while((line = reader.readLine()) != null) {
-				builder.append(line).append("\n");
-			}
-			
-			return builder.toString();
-		} catch(Exception ex) {
+	 * Creates new instance of SSDF Core. The content is checked
+	 * against the given schema while it is being read.
+	 * @param content The content of SSDF file in SSDF Syntax
+	 * @param schema  The schema, or null
+	 * @throws SSDFException When the content violates the schema
+	 * @since 1.2*/
+	public SSDFCore(String content, SSDFSchema schema) {
+		SSDFParser parser = SSDFParser.local();
+		parser.setSchema(schema);
+		try {
+			this.array = parser.parse(content);
+		} finally {
+			parser.setSchema(null);
 		}
 		
-		return null;
+		this.peakTransientBytes = parser.getPeakTransientBytes();
 	}
 	
 	/**
-	 * Gets a string from an input stream. The output string is decoded
-	 * to the given charset.
-	 * @param stream Input stream from which the string should be read.
-	 * @param charset Name of the charset
-	 * @return String from the given input stream.
-	 * @since 1.1*/
-	private String fromStream(InputStream stream, String charset) {
-		if(stream == null) return null;
-		
+	 * Creates new instance of SSDF Core. The content is checked
+	 * against the given schema while it is being read.
+	 * @param file 	 The file object to read
+	 * @param schema The schema, or null
+	 * @throws SSDFException When the content violates the schema
+	 * @since 1.2*/
+	public SSDFCore(File file, SSDFSchema schema) {
+		this(file, schema, null);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Core. The content is checked
+	 * against the given schema while it is being read.
+	 * @param stream Input stream from which all the object
+	 * 				 should be read.
+	 * @param schema The schema, or null
+	 * @throws SSDFException When the content violates the schema
+	 * @since 1.2*/
+	public SSDFCore(InputStream stream, SSDFSchema schema) {
+		this(stream, schema, null);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Core. The values of strings
+	 * and numbers are stored in the given arena, outside of the heap.
+	 * The values cannot be read after the arena is closed.
+	 * @param file 	 The file object to read
+	 * @param schema The schema, or null
+	 * @param arena	 The arena, or null
+	 * @throws SSDFException When the content violates the schema
+	 * @since 1.2*/
+	public SSDFCore(File file, SSDFSchema schema, SSDFArena arena) {
+		this.array = parse(file, schema, arena, null);
+		this.peakTransientBytes = SSDFParser.local().getPeakTransientBytes();
+	}
+	
+	/**
+	 * Creates new instance of SSDF Core. The values of strings
+	 * and numbers are stored in the given arena, outside of the heap.
+	 * The values cannot be read after the arena is closed.
+	 * @param stream Input stream from which all the object
+	 * 				 should be read.
+	 * @param schema The schema, or null
+	 * @param arena	 The arena, or null
+	 * @throws SSDFException When the content violates the schema
+	 * @since 1.2*/
+	public SSDFCore(InputStream stream, SSDFSchema schema, SSDFArena arena) {
+		this.array = parse(stream, schema, arena, null);
+		this.peakTransientBytes = SSDFParser.local().getPeakTransientBytes();
+	}
+	
+	/**
+	 * Reads the given file and remembers the positions of all values
+	 * in it. When the file is saved using {@link #savePreserving(Path)},
+	 * only the changed values are replaced, comments, whitespace and
+	 * everything else are copied from the file as they are.<br><br>
+	 * The file is decoded as UTF-8. The positions are not remembered,
+	 * if the file is compressed.
+	 * @param file The file to read
+	 * @return The document
+	 * @throws IOException When the file cannot be read
+	 * @since 1.2*/
+	public static SSDFCore loadPreserving(Path file) throws IOException {
+		SSDFSource source = new SSDFSource(file);
+		SSDFCore core	  = new SSDFCore(source.read());
+		core.source = source;
+		core.peakTransientBytes = SSDFParser.local().getPeakTransientBytes();
+		return core;
+	}
+	
+	/**
+	 * Reads only the objects of the given content that match the given
+	 * projection. All other objects are skipped without creating their
+	 * names and values, so that only a small part of a large content
+	 * is kept in memory.
+	 * @param content	 The content of SSDF file in SSDF Syntax
+	 * @param projection The paths of objects to read, or null,
+	 * 					 if all objects should be read
+	 * @return The document
+	 * @since 1.2*/
+	public static SSDFCore load(String content, SSDFProjection projection) {
+		SSDFParser parser = SSDFParser.local();
+		parser.setProjection(projection);
+		SSDFCore core;
 		try {
-			StringBuilder builder  = new StringBuilder();
-			CharsetDecoder decoder = Charset.forName(charset).newDecoder();
-			byte[] buffer 		   = new byte[8192];
-			
-			int read;
-			while((read = stream.read(buffer)) != -1) {
-				CharBuffer cbuffer = decoder.decode(
-					ByteBuffer.wrap(Arrays.copyOf(buffer, read)));
-				builder.append(cbuffer.array());
-			}
-			
-			return builder.toString();
-		} catch(Exception ex) {
+			core = new SSDFCore(parser.parse(content));
 		} finally {
-			try {
-				stream.close();
-			} catch(Exception ex) {
-			}
+			parser.setProjection(null);
 		}
 		
-		return null;
-	}
-	
-	/**
-	 * Formats the string. It removes useless and not
-	 * important spaces, breaks (line delimiters) and
-	 * other characters.
-	 * @param string The string to format
-	 * @return The formatted string*/
-	private String format(String string) {
-		// Is double-quoted
-		boolean idq = false;
-		// Is single-quoted
-		boolean isq = false;
-		// Is escaped
-		boolean esc = false;
-		
-		// Is line-commented
-		boolean islc = false;
-		// Is block-commented
-		boolean isbc = false;
-		
-		/* How many characters should be
-		 * skipped*/
-		int skip = 0;
-		
-		char[] chars 	 = string.toCharArray();
-		StringBuilder sb = new StringBuilder();
-		for(int p = 0, l = string.length(); p < l; p++) {
-			// Characters skipping
-			if(skip > 0) { skip--; continue; }
-			
-			// Gets character on the position
-			char c = chars[p];
-			
-			// Quoting
-			if(c == '\"' && !isq && !esc) idq = !idq;
-			if(c == '\'' && !idq && !esc) isq = !isq;
-			
-			// Line comments support
-			if(c == '#' && !(idq || isq)) 			islc = true;
-			if((c == '\n' || c == '\r') && islc)	islc = false;
-			
-			// Block comments support
-			if((c == '/' && chars[p+1] == '*') && !(idq || isq)) { isbc = true; continue; }
-			if((c == '*' && chars[p+1] == '/') && !(idq || isq)) { isbc = false; skip = 1; continue; }
-
-			// Ignores special characters or comments
-			if(((c == ' ' || c == '\t' || c == '\n' || c == '\r') && !(idq || isq)) || islc || isbc)
-				continue;
-			
-			// Adds the character
-			sb.append(c);
-			
-			/* Removes the escaping. This allows to escape
-			 * only one character at the time.*/
-			if(esc)	esc = false;
-			// Escapes the next character
-			if(c == '\\') esc = true;
+		core.peakTransientBytes = parser.getPeakTransientBytes();
+		return core;
+	}
+	
+	/**
+	 * Reads only the objects of the given file that match the given
+	 * projection. The file can be compressed.
+	 * @param file		 The file object to read
+	 * @param projection The paths of objects to read, or null,
+	 * 					 if all objects should be read
+	 * @return The document
+	 * @see #load(String, SSDFProjection)
+	 * @since 1.2*/
+	public static SSDFCore load(File file, SSDFProjection projection) {
+		SSDFCore core = new SSDFCore(parse(file, null, null, projection));
+		core.peakTransientBytes = SSDFParser.local().getPeakTransientBytes();
+		return core;
+	}
+	
+	/**
+	 * Reads only the objects of the given input stream that match
+	 * the given projection. The stream is closed after reading.
+	 * The content can be compressed.
+	 * @param stream	 Input stream from which the objects should be read
+	 * @param projection The paths of objects to read, or null,
+	 * 					 if all objects should be read
+	 * @return The document
+	 * @see #load(String, SSDFProjection)
+	 * @since 1.2*/
+	public static SSDFCore load(InputStream stream, SSDFProjection projection) {
+		SSDFCore core = new SSDFCore(parse(stream, null, null, projection));
+		core.peakTransientBytes = SSDFParser.local().getPeakTransientBytes();
+		return core;
+	}
+	
+	/**
+	 * Creates a reader of a sequence of top-level objects (records)
+	 * in the given content.
+	 * @param content The content containing the records
+	 * @return The reader of the records
+	 * @since 1.2*/
+	public static SSDFRecordReader records(String content) {
+		return new SSDFRecordReader(content);
+	}
+	
+	/**
+	 * Creates a reader of a sequence of top-level objects (records)
+	 * in the given file. The file can be compressed.
+	 * @param file The file object to read
+	 * @return The reader of the records
+	 * @throws IOException When the file cannot be opened
+	 * @since 1.2*/
+	public static SSDFRecordReader records(File file) throws IOException {
+		return new SSDFRecordReader(openReader(file));
+	}
+	
+	/**
+	 * Creates a reader of a sequence of top-level objects (records)
+	 * in the given input stream. The stream is closed when the reader
+	 * is closed. The content of the stream can be compressed.
+	 * @param stream Input stream from which the records should be read
+	 * @return The reader of the records
+	 * @throws IOException When the stream cannot be read
+	 * @since 1.2*/
+	public static SSDFRecordReader records(InputStream stream) throws IOException {
+		return new SSDFRecordReader(openReader(stream));
+	}
+	
+	/**
+	 * Checks that the given content is well-formed, without reading
+	 * any objects.
+	 * @param content The content in SSDF Syntax
+	 * @throws SSDFException When the content is not well-formed,
+	 * 		   it contains the line and column of the first error
+	 * @see SSDFParser#validate(CharSequence)
+	 * @since 1.2*/
+	public static void validate(String content) {
+		SSDFParser.local().validate(content);
+	}
+	
+	/**
+	 * Checks that the given file is well-formed, without reading
+	 * any objects. The file can be compressed.
+	 * @param path The path of the file
+	 * @throws IOException When the file cannot be read
+	 * @throws SSDFException When the content is not well-formed,
+	 * 		   it contains the line and column of the first error
+	 * @see SSDFParser#validate(CharSequence)
+	 * @since 1.2*/
+	public static void validate(Path path) throws IOException {
+		try(Reader reader = openReader(path.toFile())) {
+			SSDFParser.local().validate(reader);
 		}
-		
-		return sb.toString();
 	}
 	
 	/**
-	 * Formats object's name.
-	 * @param name The object's name to format
-	 * @return The formatted object's name*/
-	private String formatName(String name) {
-		List<String> list = SSDFUtils.regex("([A-Za-z0-9\\_]+)", name);
-		return list.isEmpty() ? null : list.get(0);
+	 * Checks that the content of the given input stream is well-formed,
+	 * without reading any objects. The stream is closed after reading.
+	 * The content can be compressed.
+	 * @param stream Input stream to check
+	 * @throws IOException When the stream cannot be read
+	 * @throws SSDFException When the content is not well-formed,
+	 * 		   it contains the line and column of the first error
+	 * @see SSDFParser#validate(CharSequence)
+	 * @since 1.2*/
+	public static void validate(InputStream stream) throws IOException {
+		try(InputStream in = stream;
+			Reader reader = openReader(in)) {
+			SSDFParser.local().validate(reader);
+		}
 	}
-
+	
 	/**
-	 * Formats object's value.
-	 * @param value The object's value to format
-	 * @return The formatted object's value*/
-	private String formatValue(String value) {
-		// Is double-quoted
-		boolean idq = false;
-		// Is single-quoted
-		boolean isq = false;
-		// Is escaped
-		boolean esc = false;
-		// Is a digit
-		boolean dig = false;
-		
-		// Special words
-		boolean add = false;
-		int addInt 	= 0;
-		
-		char[] chars	 = value.toCharArray();
-		StringBuilder sb = new StringBuilder();
-		for(int p = 0, l = value.length(); p < l; p++) {
-			char c = chars[p];
-			if(p == 0 && Character.isDigit(c))
-				dig = true;
-
-			// Quoting
-			if(c == '\"' && !isq && !esc) idq = !idq;
-			if(c == '\'' && !idq && !esc) isq = !isq;
-			// Escapes the next character
-			if(c == '\\') { esc = true; continue; }
-			
-			if(!dig && !(isq || idq) && !add) {
-				int k = 0;
-				for(String word : words) {
-					int f = word.length();
-					if(((k = p)+f) <= l) {
-						for(int i = 0; i < f; i++) {
-							if(word.charAt(i) != chars[k++])
-								break;
-							if(i == f-1)
-								add = true;
-						}
-						
-						if(add) {
-							addInt = f;
-							break;
-						}
-					}
-				}
-			}
-			
-			if((dig && (Character.isDigit(c) || c == '.')) || (isq || idq) || ((!idq && c == '\"') || (!isq && c == '\'')) || (add && addInt-- > 0))
-				sb.append(c);
-			
-			/* Removes the escaping. This allows to escape
-			 * only one character at the time.*/
-			if(esc)	esc = false;
+	 * Checks whether the given file is well-formed.
+	 * @param path The path of the file
+	 * @return True, if the file is well-formed, otherwise false
+	 * @throws IOException When the file cannot be read
+	 * @see #validate(Path)
+	 * @since 1.2*/
+	public static boolean isValid(Path path) throws IOException {
+		try {
+			validate(path);
+			return true;
+		} catch(SSDFException ex) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Opens a reader of the given file. If the file is compressed,
+	 * it is decompressed while it is read and decoded as UTF-8,
+	 * otherwise the platform's default charset is used.
+	 * @param file The file object to read
+	 * @return The reader of the file's content
+	 * @throws IOException When the file cannot be opened*/
+	private static Reader openReader(File file) throws IOException {
+		InputStream stream = new FileInputStream(file);
+		try {
+			InputStream in = SSDFCompression.decompress(stream);
+			return new InputStreamReader(in, in instanceof InflaterInputStream
+				? StandardCharsets.UTF_8 : Charset.defaultCharset());
+		} catch(IOException | RuntimeException ex) {
+			stream.close();
+			throw ex;
 		}
-		
-		return sb.toString();
 	}
 	
 	/**
-	 * Gets all objects in the given SSD File's content string.
-	 * @param string The SSD file's content
-	 * @return The Map (list) of all read objects*/
-	private SSDArray getObjects(String string) {
-		return getObjects(getBracketsContent(string, oOB, cOB), "", false);
+	 * Opens a reader of the given input stream in UTF-8. If the content
+	 * is compressed, it is decompressed while it is read.
+	 * @param stream Input stream to read
+	 * @return The reader of the stream's content
+	 * @throws IOException When the stream cannot be read*/
+	private static Reader openReader(InputStream stream) throws IOException {
+		return new InputStreamReader(SSDFCompression.decompress(stream),
+			StandardCharsets.UTF_8);
 	}
-
+	
 	/**
-	 * Gets content between the two given brackets' characters.
-	 * @param string 		The string where to get the content
-	 * @param openBrackets 	The character of opening brackets
-	 * @param closeBrackets The character of closing brackets
-	 * @return The content between the two given brackets' characters*/
-	private String getBracketsContent(String string, char openBrackets, char closeBrackets) {
-		int b = 0;
-		int l = 0;
-		
-		char[] chars 	 = string.toCharArray();
-		StringBuilder sb = new StringBuilder();
-		for(int p = 0, m = string.length(); p < m; p++) {
-			char c = chars[p];
-			if(!(b == 0 && c == openBrackets) && !(b == 1 && c == closeBrackets))
-				sb.append(c);
-			
-			if(c == openBrackets) 	b++;
-			if(c == closeBrackets) 	b--;
-			
-			if(b == 0)
-				break;
+	 * Reads all objects from the given file.
+	 * @param file		 The file object to read
+	 * @param schema	 The schema, or null
+	 * @param arena		 The arena, or null
+	 * @param projection The projection, or null
+	 * @return The main array of all read objects*/
+	private static SSDArray parse(File file, SSDFSchema schema, SSDFArena arena,
+			SSDFProjection projection) {
+		try(Reader reader = openReader(file)) {
+			return parse(reader, schema, arena, projection);
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex);
 		}
-		
-		return SSDFUtils.substringEnd(sb.toString(), 0, l);
-	}
-	
-	/**
-	 * Gets all objects in the given SSD File's content string with
-	 * pre-defined parent name of the all read objects and information
-	 * if the parent object is an array, or not.
-	 * @param string 		The SSD file's content
-	 * @param parentName 	The object's parent name
-	 * @param array 		If true, the parent object is an array, otherwise is not
-	 * @return The Map (list) of all read objects*/
-	private SSDArray getObjects(String string, String parentName, boolean array) {
-		// Is double-quoted
-		boolean idq = false;
-		// Is single-quoted
-		boolean isq = false;
-		// Is escaped
-		boolean esc = false;
-
-		// Can write name
-		boolean wn = !array;
-		// Can write value
-		boolean wv = array;
-		
-		SSDArray ssdArray = new SSDArray();
-		
-		String lastName = "";
-		int lastCount 	= 0;
-		
-		char[] chars	 = string.toCharArray();
-		StringBuilder sb = new StringBuilder();
-		for(int p = 0, l = string.length(); p < l; p++) {
-			char c = chars[p];
-
-			if(wn || wv)
-				sb.append(c);
-			
-			if(c == nvd && !(idq || isq)) {
-				lastName = formatName(sb.toString());
-				sb.setLength(0);
-				wn = false;
-				wv = true;
-			}
-			
-			if((c == itd && !(idq || isq)) || p == l-1) {
-				String name = parentName + (parentName.isEmpty() ? "" : ".") +
-					(array ? Integer.toString(lastCount++) : lastName);
-				ssdArray.put(name, new SSDObject(name, formatValue(sb.toString())));
-				sb.setLength(0);
-				wn = !array;
-				wv = array;
-			}
-			
-			if((c == oOB || c == oAB) && !(idq || isq)) {
-				String content = getBracketsContent(string.substring(p), c == oAB ? oAB : oOB, c == oAB ? cAB : cOB);
-				SSDArray ssdar = getObjects(content, parentName + (parentName.isEmpty() ? "" : ".") +
-					(array ? Integer.toString(lastCount++) : lastName), c == oAB);
-				
-				ssdArray.putAll(ssdar.getObjects());
-				p += content.length()+2;
-				continue;
-			}
-			
-			// Quoting
-			if(c == '\"' && !isq && !esc) idq = !idq;
-			if(c == '\'' && !idq && !esc) isq = !isq;
-			
-			/* Removes the escaping. This allows to escape
-			 * only one character at the time.*/
-			if(esc)	esc = false;
-			// Escapes the next character
-			if(c == '\\') esc = true;
+	}
+	
+	/**
+	 * Reads all objects from the given input stream. The stream
+	 * is closed after reading, even if it cannot be read.
+	 * @param stream	 Input stream from which all the object
+	 * 					 should be read.
+	 * @param schema	 The schema, or null
+	 * @param arena		 The arena, or null
+	 * @param projection The projection, or null
+	 * @return The main array of all read objects*/
+	private static SSDArray parse(InputStream stream, SSDFSchema schema, SSDFArena arena,
+			SSDFProjection projection) {
+		try(InputStream in = stream;
+			Reader reader = openReader(in)) {
+			return parse(reader, schema, arena, projection);
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * Reads all objects from the given reader.
+	 * @param reader	 The reader of the content
+	 * @param schema	 The schema, or null
+	 * @param arena		 The arena, or null
+	 * @param projection The projection, or null
+	 * @return The main array of all read objects
+	 * @throws IOException When the content cannot be read*/
+	private static SSDArray parse(Reader reader, SSDFSchema schema, SSDFArena arena,
+			SSDFProjection projection) throws IOException {
+		SSDFParser parser = SSDFParser.local();
+		parser.setSchema(schema);
+		parser.setArena(arena);
+		parser.setProjection(projection);
+		try {
+			return parser.parse(reader);
+		} finally {
+			parser.setSchema(null);
+			parser.setArena(null);
+			parser.setProjection(null);
 		}
-		
-		return ssdArray;
 	}
 	
 	/**
@@ -397,202 +407,77 @@ public final class SSDFCore {
 	 * @param compress Whether to use compress mode or not.
 	 * @return The content as a string.*/
 	public String getContentString(boolean compress) {
-		StringBuilder sb 				= new StringBuilder();
-		Map<String, SSDArray> arrays 	= new LinkedHashMap<>();
-		Map<String, SSDObject> objects 	= array.getAllObjects();
-		
-		for(Entry<String, SSDObject> entry : objects.entrySet()) {
-			String keyPath 	  = entry.getKey();
-			String[] splitKey = keyPath.split("\\.");
-			
-			while(splitKey.length > 1) {
-				splitKey = keyPath.split("\\.");
-				keyPath	 = String.join(".", Arrays.copyOfRange(
-					splitKey, 0, splitKey.length-1)).trim();
-				
-				if(!keyPath.isEmpty() && !arrays.containsKey(keyPath))
-					arrays.put(keyPath, new SSDArray(keyPath));
-			}
-		}
-		
-		sb.append("{");
-		if(!compress)
-			sb.append("\n");
-		
-		boolean isFirstItem = true;
-		boolean dataWritten = false;
-		for(Entry<String, SSDObject> entry : objects.entrySet()) {
-			String objectName = entry.getKey();
-			String[] splitKey = objectName.split("\\.");
-			
-			if(splitKey.length == 1 && !arrays.containsKey(objectName)) {
-				if(!isFirstItem) {
-					sb.append(",");
-					if(!compress)
-						sb.append("\n");
-				} else {
-					isFirstItem = false;
-				}
-				
-				SSDObject object 	= entry.getValue();
-				SSDType objectType 	= object.type();
-				String objectValue 	= object.stringValue();
-				
-				if(!compress)
-					sb.append("\t");
-				sb.append(objectName);
-				sb.append(":");
-				if(!compress)
-					sb.append(" ");
-				
-				if(objectType == SSDType.STRING) {
-					sb.append("\"");
-					sb.append(objectValue);
-					sb.append("\"");
-				} else {
-					sb.append(objectType == SSDType.UNDEFINED ?
-						"null" : objectValue);
-				}
-				
-				if(!dataWritten)
-					dataWritten = true;
-			}
-		}
-		
-		String content = getArrayContentString(
-			"", arrays, 1, false, false, compress);
-		if(!content.isEmpty() && dataWritten) {
-			sb.append(",");
-			if(!compress)
-				sb.append("\n\n");
-		}
-		
-		sb.append(content);
-		if(!compress)
-			sb.append("\n");
-		sb.append("}");
-		
-		return sb.toString();
-	}
-	
-	/**
-	 * Gets the next depth level of stored objects and converts them
-	 * to a string.
-	 * @param startsWith The specified starting name of objects that
-	 * 					 should be contained in the final result.
-	 * @param arrays	 The map of all the arrays
-	 * @param depth		 The depth level
-	 * @param wasItems	 Whether there were some written items or not.
-	 * @param inArray	 Whether the current content is in an array.
-	 * @param compress	 Whether to use compress mode or not.
-	 * @return The formatted string of the objects.*/
-	private String getArrayContentString(String startsWith, Map<String, SSDArray> arrays,
-		int depth, boolean wasItems, boolean inArray, boolean compress) {
-		StringBuilder sb 				= new StringBuilder();
-		Map<String, SSDObject> objects 	= array.getAllObjects();
+		return getContentString(compress, false);
+	}
 		
-		boolean isFirstArray = true;
-		for(Entry<String, SSDArray> array : arrays.entrySet()) {
-			String arrayKey 	   = array.getKey();
-			String[] splitArrayKey = arrayKey.split("\\.");
-			
-			if(arrayKey.startsWith(startsWith) && splitArrayKey.length == depth) {
-				String arrayName = splitArrayKey[splitArrayKey.length-1];
-				String arrayTab	 = SSDFUtils.repeatString("\t", depth);
-				boolean isArray  = true;
-				
-				for(Entry<String, SSDObject> object : objects.entrySet()) {
-					String objectKey 		= object.getKey();
-					String[] splitObjectKey = objectKey.split("\\.");
-					
-					if(objectKey.startsWith(startsWith) && depth < splitObjectKey.length) {
-						String formatName = splitObjectKey[depth];
-						if(!Pattern.matches("^\\d+$", formatName)) {
-							isArray = false;
-							break;
-						}
-					}
-				}
-				
-				if(!isFirstArray || wasItems) {
-					sb.append(",");
-					if(!compress)
-						sb.append("\n\n");
-				}
-				if(isFirstArray)
-					isFirstArray = false;
-				
-				if(!inArray) {
-					if(!compress)
-						sb.append(arrayTab);
-					sb.append(arrayName);
-					sb.append(":");
-					if(!compress)
-						sb.append("\n");
-				}
-				
-				if(!compress)
-					sb.append(arrayTab);
-				sb.append(isArray ? "[" : "{");
-				if(!compress)
-					sb.append("\n");
-				
-				boolean isFirstItem = true;
-				for(Entry<String, SSDObject> object : objects.entrySet()) {
-					String objectKey 		= object.getKey();
-					String[] splitObjectKey = objectKey.split("\\.");
-					
-					if(splitObjectKey.length == depth+1) {
-						String objectPath = String.join(".", Arrays.copyOfRange(splitObjectKey, 0, splitObjectKey.length-1));
-						String objectTab  = SSDFUtils.repeatString("\t", depth+1);
-						String objectName = splitObjectKey[splitObjectKey.length-1];
-						
-						if(arrayKey.equals(objectPath)) {
-							if(!isFirstItem) {
-								sb.append(",");
-								if(!compress)
-									sb.append("\n");
-							} else {
-								isFirstItem = false;
-							}
-							
-							if(!compress)
-								sb.append(objectTab);
-							
-							if(!isArray) {
-								sb.append(objectName);
-								sb.append(":");
-								if(!compress)
-									sb.append(" ");
-							}
-							
-							SSDObject objectVal = object.getValue();
-							SSDType objectType  = objectVal.type();
-							String objectValue  = objectVal.stringValue();
-							
-							if(objectType == SSDType.STRING) {
-								sb.append("\"");
-								sb.append(objectValue);
-								sb.append("\"");
-							} else {
-								sb.append(objectType == SSDType.UNDEFINED ?
-									"null" : objectValue);
-							}
-						}
-					}
-				}
-				
-				sb.append(getArrayContentString(
-					arrayKey, arrays, depth+1, !isFirstItem, isArray, compress));
-				if(!compress) {
-					sb.append("\n");
-					sb.append(arrayTab);
-				}
-				sb.append(isArray ? "]" : "}");
-			}
+	/**
+	 * Gets the content (all the objects) as a string. In parallel mode,
+	 * large arrays are converted concurrently on the common fork-join pool.
+	 * The content is the same in both the modes.
+	 * @param compress Whether to use compress mode or not.
+	 * @param parallel Whether to use parallel mode or not.
+	 * @return The content as a string.
+	 * @since 1.2*/
+	public String getContentString(boolean compress, boolean parallel) {
+		return new SSDFWriter(array.getObjects(), compress, parallel).write();
+	}
+	
+	/**
+	 * Saves the content (all the objects) to the given file. The file
+	 * is compressed according to its extension (<code>.gz</code> for gzip,
+	 * <code>.zz</code> for deflate).
+	 * @param file The file object where to save the content
+	 * @throws IOException When the file cannot be written
+	 * @since 1.2*/
+	public void save(File file) throws IOException {
+		save(file, SSDFCompression.forFileName(file.getName()));
+	}
+	
+	/**
+	 * Saves the content (all the objects) to the given file using
+	 * the given compression.
+	 * @param file 		  The file object where to save the content
+	 * @param compression The compression
+	 * @throws IOException When the file cannot be written
+	 * @since 1.2*/
+	public void save(File file, SSDFCompression compression) throws IOException {
+		try(OutputStream stream = new FileOutputStream(file)) {
+			save(stream, compression);
 		}
+	}
+	
+	/**
+	 * Saves the content (all the objects) to the given output stream
+	 * in UTF-8, using the given compression. The content is written
+	 * and compressed while it is created, it is never held in memory
+	 * as a whole. The stream is not closed.
+	 * @param stream 	  The output stream where to save the content
+	 * @param compression The compression
+	 * @throws IOException When the content cannot be written
+	 * @since 1.2*/
+	public void save(OutputStream stream, SSDFCompression compression) throws IOException {
+		compression.write(new SSDFWriter(array.getObjects(), false, false), stream);
+		stream.flush();
+	}
+	
+	/**
+	 * Saves the content to the given file, keeping the formatting
+	 * of the file the content was read from by {@link #loadPreserving(Path)}.
+	 * If only values of existing objects were changed, only those values
+	 * are replaced and the rest of the read file is copied as it is.
+	 * Otherwise, e.g. when objects were added or removed, or the read file
+	 * was changed in the meantime, the whole content is written as by
+	 * {@link #save(File)} and the formatting is not kept anymore.<br><br>
+	 * The file can be the read file itself, it is replaced atomically.
+	 * @param file The file where to save the content
+	 * @throws IOException When the file cannot be written
+	 * @since 1.2*/
+	public void savePreserving(Path file) throws IOException {
+		if(source != null && source.save(array.getObjects(), file))
+			return;
 		
-		return sb.toString();
+		source = null;
+		save(file.toFile());
 	}
 	
 	/**
@@ -601,4 +486,17 @@ public final class SSDFCore {
 	public SSDArray getArray() {
 		return array;
 	}
+	
+	/**
+	 * Gets the estimated peak size of the memory that was used while
+	 * the content was read, in addition to the memory retained by the read
+	 * objects. The size is an estimate, it is not measured. The retained
+	 * memory can be estimated using {@link SSDArray#estimateRetainedSize()}.
+	 * @return The estimated size, in bytes, or -1, if the objects
+	 * 		   were not read by this instance
+	 * @see SSDFParser#getPeakTransientBytes()
+	 * @since 1.2*/
+	public long getPeakTransientBytes() {
+		return peakTransientBytes;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package sune.ssdf;
+
+/**
+ * Thrown when the content of SSD File is not valid, e.g.
+ * when it violates a schema. Contains the position in the content
+ * where the problem was found.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFException extends RuntimeException {
+	
+	private static final long serialVersionUID = 8210496154416781563L;
+	
+	/**
+	 * The position (index of character) in the content*/
+	private final long position;
+	/**
+	 * The line number, starting at 1*/
+	private final int line;
+	/**
+	 * The column number, starting at 1*/
+	private final long column;
+	
+	/**
+	 * Creates new instance of SSDF Exception.
+	 * @param message  The message
+	 * @param position The position (index of character) in the content
+	 * @param line	   The line number
+	 * @param column   The column number*/
+	public SSDFException(String message, long position, int line, long column) {
+		super(message + " (line " + line + ", column " + column + ")");
+		this.position = position;
+		this.line	  = line;
+		this.column	  = column;
+	}
+	
+	/**
+	 * Gets the position (index of character) in the content.
+	 * @return The position*/
+	public long getPosition() {
+		return position;
+	}
+	
+	/**
+	 * Gets the line number, starting at 1.
+	 * @return The line number*/
+	public int getLine() {
+		return line;
+	}
+	
+	/**
+	 * Gets the column number, starting at 1.
+	 * @return The column number*/
+	public long getColumn() {
+		return column;
+	}
+}
\ No newline at end of file
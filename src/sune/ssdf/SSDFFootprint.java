@@ -0,0 +1,311 @@
+package sune.ssdf;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Estimated size of objects of an array in memory, split into the sizes
+ * of names (keys), values, map entries and headers of objects, together
+ * with the numbers of objects of each type. The footprint of the whole
+ * array also contains the footprints of its direct arrays (subtrees).
+ * <br><br>
+ * The sizes are estimated for a 64-bit JVM with compressed references,
+ * i.e. 12-byte headers of objects and 8-byte alignment. Strings are
+ * expected to use one byte per character when all their characters are
+ * Latin-1 and the JVM supports compact strings (Java 9+). Values of
+ * special words that are shared by all objects are not counted, neither
+ * are values stored in an arena, which are outside of the heap.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFFootprint {
+	
+	/**
+	 * The size of a header of an object, in bytes*/
+	private static final int HEADER_SIZE = 12;
+	/**
+	 * The size of a reference, in bytes*/
+	private static final int REFERENCE_SIZE = 4;
+	/**
+	 * The size of a header of an array, in bytes*/
+	private static final int ARRAY_HEADER_SIZE = 16;
+	/**
+	 * The size of a string without its characters, in bytes*/
+	private static final int STRING_SIZE = 24;
+	/**
+	 * The size of an SSDObject, in bytes*/
+	static final int OBJECT_SIZE = 32;
+	/**
+	 * The size of an entry of a linked hash map, in bytes*/
+	private static final int ENTRY_SIZE = 40;
+	/**
+	 * The size of a linked hash map without its table, in bytes*/
+	private static final int MAP_SIZE = 56;
+	/**
+	 * Whether strings of Latin-1 characters use one byte per character*/
+	private static final boolean COMPACT_STRINGS
+		= !System.getProperty("java.specification.version", "").startsWith("1.");
+	
+	/**
+	 * The name of the array*/
+	private final String name;
+	/**
+	 * The number of objects*/
+	private long objectCount;
+	/**
+	 * The size of names of objects*/
+	private long keyBytes;
+	/**
+	 * The size of values of objects*/
+	private long valueBytes;
+	/**
+	 * The size of map entries and of the map's table*/
+	private long entryBytes;
+	/**
+	 * The size of headers of objects*/
+	private long objectBytes;
+	/**
+	 * The numbers of objects of each type, by their ordinals*/
+	private final long[] counts = new long[SSDType.values().length];
+	/**
+	 * The footprints of direct arrays*/
+	private Map<String, SSDFFootprint> children = Collections.emptyMap();
+	
+	/**
+	 * Creates new instance of SSDF Footprint.
+	 * @param name The name of the array*/
+	private SSDFFootprint(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * Estimates the footprint of the given objects.
+	 * @param name	   The name of the array
+	 * @param objects  The Map (list) of objects of the array
+	 * @param children Whether the footprints of direct arrays
+	 * 				   should be estimated as well
+	 * @return The footprint*/
+	static SSDFFootprint of(String name, Map<String, SSDObject> objects, boolean children) {
+		SSDFFootprint footprint = new SSDFFootprint(name);
+		Map<String, SSDFFootprint> arrays = children ? new LinkedHashMap<>() : null;
+		// The sources of slices, they are shared by all their objects
+		Map<String, Boolean> sources = null;
+		for(Entry<String, SSDObject> entry : objects.entrySet()) {
+			String key		  = entry.getKey();
+			SSDObject object  = entry.getValue();
+			long keySize	  = sizeOf(key);
+			// The name of the object is usually the key itself
+			if(object.name() != key)
+				keySize += sizeOf(object.name());
+			long valueSize	  = object.estimateValueSize();
+			int type		  = object.type().ordinal();
+			footprint.add(keySize, valueSize, type);
+			
+			String source = object.sliceSource();
+			if(source != null) {
+				if(sources == null)
+					sources = new IdentityHashMap<>();
+				if(sources.put(source, Boolean.TRUE) == null)
+					footprint.valueBytes += sizeOf(source);
+			}
+			
+			int index;
+			if(arrays != null && (index = key.indexOf('.')) > 0) {
+				String arrayName = key.substring(0, index);
+				SSDFFootprint array = arrays.get(arrayName);
+				if(array == null) {
+					String fullName = name.isEmpty() ? arrayName : name + "." + arrayName;
+					arrays.put(arrayName, array = new SSDFFootprint(fullName));
+				}
+				
+				array.add(keySize, valueSize, type);
+			}
+		}
+		
+		// The table of the map, shared by the arrays by their sizes
+		long tableSize = MAP_SIZE + sizeOfReferences(tableCapacity(footprint.objectCount));
+		footprint.entryBytes += tableSize;
+		if(arrays != null) {
+			for(SSDFFootprint array : arrays.values())
+				array.entryBytes += tableSize * array.objectCount / footprint.objectCount;
+			footprint.children = Collections.unmodifiableMap(arrays);
+		}
+		
+		return footprint;
+	}
+	
+	/**
+	 * Adds an object to the footprint.
+	 * @param keySize	The size of the object's name
+	 * @param valueSize The size of the object's value
+	 * @param type		The ordinal of the object's type*/
+	private void add(long keySize, long valueSize, int type) {
+		objectCount++;
+		keyBytes	+= keySize;
+		valueBytes	+= valueSize;
+		entryBytes	+= ENTRY_SIZE;
+		objectBytes += OBJECT_SIZE;
+		counts[type]++;
+	}
+	
+	/**
+	 * Gets the capacity of the table of a hash map with the given
+	 * number of entries, when the entries are put one by one.
+	 * @param size The number of entries
+	 * @return The capacity of the table*/
+	static long tableCapacity(long size) {
+		long capacity = 16L;
+		while(size > capacity * 3L / 4L)
+			capacity <<= 1;
+		return capacity;
+	}
+	
+	/**
+	 * Estimates the size of the given string.
+	 * @param string The string
+	 * @return The size, in bytes*/
+	static long sizeOf(String string) {
+		return STRING_SIZE + sizeOfChars(string);
+	}
+	
+	/**
+	 * Estimates the size of the array of characters of the given
+	 * string or builder.
+	 * @param chars The characters
+	 * @return The size, in bytes*/
+	static long sizeOfChars(CharSequence chars) {
+		int length = chars.length();
+		boolean latin1 = COMPACT_STRINGS;
+		for(int i = 0; i < length && latin1; i++)
+			latin1 = chars.charAt(i) < 0x100;
+		return sizeOfChars(length, latin1);
+	}
+	
+	/**
+	 * Estimates the size of an array of the given number of characters.
+	 * @param length The number of characters
+	 * @param latin1 Whether all the characters are Latin-1
+	 * @return The size, in bytes*/
+	static long sizeOfChars(int length, boolean latin1) {
+		return align(ARRAY_HEADER_SIZE + (latin1 && COMPACT_STRINGS ? 1L : 2L) * length);
+	}
+	
+	/**
+	 * Estimates the size of an object with the given number
+	 * of fields of the size of a reference.
+	 * @param fields The number of fields
+	 * @return The size, in bytes*/
+	static long sizeOfObject(int fields) {
+		return align(HEADER_SIZE + (long) REFERENCE_SIZE * fields);
+	}
+	
+	/**
+	 * Estimates the size of an array of the given number of references.
+	 * @param count The number of references
+	 * @return The size, in bytes*/
+	static long sizeOfReferences(long count) {
+		return align(ARRAY_HEADER_SIZE + REFERENCE_SIZE * count);
+	}
+	
+	/**
+	 * Aligns the given size to 8 bytes.
+	 * @param size The size
+	 * @return The aligned size*/
+	private static long align(long size) {
+		return (size + 7L) & ~7L;
+	}
+	
+	/**
+	 * Gets the name of the array.
+	 * @return The name of the array*/
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the number of objects.
+	 * @return The number of objects*/
+	public long getObjectCount() {
+		return objectCount;
+	}
+	
+	/**
+	 * Gets the number of objects of the given type.
+	 * @param type The type
+	 * @return The number of objects*/
+	public long getCount(SSDType type) {
+		return counts[type.ordinal()];
+	}
+	
+	/**
+	 * Gets the estimated size of names of objects.
+	 * @return The size, in bytes*/
+	public long getKeyBytes() {
+		return keyBytes;
+	}
+	
+	/**
+	 * Gets the estimated size of values of objects.
+	 * @return The size, in bytes*/
+	public long getValueBytes() {
+		return valueBytes;
+	}
+	
+	/**
+	 * Gets the estimated size of map entries, including the map's table.
+	 * @return The size, in bytes*/
+	public long getEntryBytes() {
+		return entryBytes;
+	}
+	
+	/**
+	 * Gets the estimated size of headers of objects, i.e. the size
+	 * of the objects without their names and values.
+	 * @return The size, in bytes*/
+	public long getObjectBytes() {
+		return objectBytes;
+	}
+	
+	/**
+	 * Gets the estimated size of all objects retained by the array.
+	 * @return The size, in bytes*/
+	public long getTotalBytes() {
+		return keyBytes + valueBytes + entryBytes + objectBytes;
+	}
+	
+	/**
+	 * Gets the footprints of the direct arrays, by their names, in the
+	 * order of their first objects. The footprints of direct arrays do
+	 * not contain footprints of their arrays, these can be estimated
+	 * using {@link SSDArray#getArray(String)}. Values shared by all
+	 * objects of the whole array are counted only in its footprint.
+	 * @return The unmodifiable Map (list) of footprints*/
+	public Map<String, SSDFFootprint> getChildren() {
+		return children;
+	}
+	
+	/**
+	 * Called when the footprint should be converted
+	 * into a string.
+	 * @return The string of the footprint*/
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("[name=").append(name)
+		  .append(", objects=").append(objectCount)
+		  .append(", total=").append(getTotalBytes())
+		  .append(", keys=").append(keyBytes)
+		  .append(", values=").append(valueBytes)
+		  .append(", entries=").append(entryBytes)
+		  .append(", headers=").append(objectBytes);
+		SSDType[] types = SSDType.values();
+		for(int i = 0; i < types.length; i++) {
+			if(counts[i] > 0L)
+				sb.append(", ").append(types[i]).append('=').append(counts[i]);
+		}
+		
+		return sb.append(']').toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,361 @@
+package sune.ssdf;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary index of an array of objects (elements), that maps values
+ * of a field of the elements to the indexes of the elements. The index
+ * is either a hash index, for lookups of single values, or a sorted
+ * index, that also allows to look up ranges of values.<br><br>
+ * Values are compared by their meaning, not by their text, i.e. numbers
+ * are equal when they have the same value, regardless of whether they
+ * are integers or floating-point numbers. Nulls are lower than booleans,
+ * booleans are lower than numbers and numbers are lower than strings.
+ * @author Sune
+ * @since 1.2*/
+final class SSDFIndex {
+	
+	/**
+	 * The key of null values*/
+	private static final Object NULL = new Object();
+	/**
+	 * The lowest double that is not lower than all longs*/
+	private static final double MIN_LONG = -0x1p63;
+	/**
+	 * The lowest double that is greater than all longs*/
+	private static final double MAX_LONG = 0x1p63;
+	/**
+	 * The maximum number of digits of an index of an element*/
+	private static final int MAX_INDEX_LENGTH = 9;
+	
+	/**
+	 * The name of the array of elements*/
+	private final String array;
+	/**
+	 * The name of the field of the elements*/
+	private final String field;
+	/**
+	 * The prefix of names of the indexed objects*/
+	private final String prefix;
+	/**
+	 * The suffix of names of the indexed objects*/
+	private final String suffix;
+	/**
+	 * Whether the keys are sorted*/
+	private final boolean sorted;
+	/**
+	 * The indexes of elements by their keys, either an Integer,
+	 * or a sorted int array, if more elements have the same key*/
+	private final Map<Object, Object> entries;
+	
+	/**
+	 * Creates new instance of SSDF Index.
+	 * @param array	   The name of the array of elements
+	 * @param fullName The full name of the array of elements, as it is
+	 * 				   in the names of the objects
+	 * @param field	   The name of the field of the elements
+	 * @param sorted   Whether the keys should be sorted*/
+	SSDFIndex(String array, String fullName, String field, boolean sorted) {
+		this.array	 = array;
+		this.field	 = field;
+		this.prefix	 = fullName + ".";
+		this.suffix	 = "." + field;
+		this.sorted	 = sorted;
+		this.entries = sorted ? new TreeMap<>(SSDFIndex::compare) : new HashMap<>();
+	}
+	
+	/**
+	 * Gets the index of the element that contains the object
+	 * with the given name, if it is the indexed field.
+	 * @param name The object's name
+	 * @return The index of the element, or -1, if the object
+	 * 		   is not indexed*/
+	private int element(String name) {
+		int start = prefix.length();
+		int end	  = name.length() - suffix.length();
+		if(end <= start || end - start > MAX_INDEX_LENGTH
+				|| !name.startsWith(prefix) || !name.endsWith(suffix))
+			return -1;
+		// Indexes with leading zeros are other elements than the same
+		// indexes without them
+		if(name.charAt(start) == '0' && end - start > 1)
+			return -1;
+		
+		int index = 0;
+		for(int i = start; i < end; i++) {
+			char c = name.charAt(i);
+			if(c < '0' || c > '9')
+				return -1;
+			index = index * 10 + (c - '0');
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Updates the index, when an object was changed.
+	 * @param name	   The object's name
+	 * @param previous The previous object, or null, if it was added
+	 * @param object   The new object, or null, if it was removed*/
+	void update(String name, SSDObject previous, SSDObject object) {
+		int index = element(name);
+		if(index < 0)
+			return;
+		if(previous != null)
+			remove(key(previous), index);
+		if(object != null)
+			add(key(object), index);
+	}
+	
+	/**
+	 * Adds an element to the index.
+	 * @param key	The key
+	 * @param index The index of the element*/
+	private void add(Object key, int index) {
+		Object value = entries.get(key);
+		if(value == null) {
+			entries.put(key, index);
+		} else if(value instanceof Integer) {
+			int other = (Integer) value;
+			if(other != index)
+				entries.put(key, other < index ? new int[] { other, index } : new int[] { index, other });
+		} else {
+			int[] indexes = (int[]) value;
+			int position  = Arrays.binarySearch(indexes, index);
+			if(position < 0) {
+				position = -position - 1;
+				int[] copy = new int[indexes.length + 1];
+				System.arraycopy(indexes, 0, copy, 0, position);
+				copy[position] = index;
+				System.arraycopy(indexes, position, copy, position + 1, indexes.length - position);
+				entries.put(key, copy);
+			}
+		}
+	}
+	
+	/**
+	 * Removes an element from the index.
+	 * @param key	The key
+	 * @param index The index of the element*/
+	private void remove(Object key, int index) {
+		Object value = entries.get(key);
+		if(value instanceof Integer) {
+			if((Integer) value == index)
+				entries.remove(key);
+		} else if(value != null) {
+			int[] indexes = (int[]) value;
+			int position  = Arrays.binarySearch(indexes, index);
+			if(position >= 0) {
+				if(indexes.length == 2) {
+					entries.put(key, indexes[1 - position]);
+				} else {
+					int[] copy = new int[indexes.length - 1];
+					System.arraycopy(indexes, 0, copy, 0, position);
+					System.arraycopy(indexes, position + 1, copy, position, copy.length - position);
+					entries.put(key, copy);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Removes all elements from the index.*/
+	void clear() {
+		entries.clear();
+	}
+	
+	/**
+	 * Gets the indexes of elements whose field has the given value.
+	 * @param value The value
+	 * @return The sorted indexes of the elements*/
+	int[] get(Object value) {
+		return indexes(entries.get(key(value)));
+	}
+	
+	/**
+	 * Gets the indexes of elements whose field has a value in the given
+	 * range. The index has to be sorted.
+	 * @param from The lowest value, inclusive
+	 * @param to   The highest value, exclusive
+	 * @return The indexes of the elements, ordered by their values*/
+	int[] range(Object from, Object to) {
+		Object fromKey = key(from), toKey = key(to);
+		if(compare(fromKey, toKey) >= 0)
+			return new int[0];
+		
+		Collection<Object> values = ((NavigableMap<Object, Object>) entries)
+			.subMap(fromKey, true, toKey, false).values();
+		int count = 0;
+		for(Object value : values)
+			count += value instanceof Integer ? 1 : ((int[]) value).length;
+		
+		int[] indexes = new int[count];
+		int position  = 0;
+		for(Object value : values) {
+			if(value instanceof Integer) {
+				indexes[position++] = (Integer) value;
+			} else {
+				int[] array = (int[]) value;
+				System.arraycopy(array, 0, indexes, position, array.length);
+				position += array.length;
+			}
+		}
+		
+		return indexes;
+	}
+	
+	/**
+	 * Converts an entry of the index into indexes of elements.
+	 * @param value The entry's value, or null
+	 * @return The indexes of the elements*/
+	private static int[] indexes(Object value) {
+		if(value == null)
+			return new int[0];
+		if(value instanceof Integer)
+			return new int[] { (Integer) value };
+		return ((int[]) value).clone();
+	}
+	
+	/**
+	 * Gets the key of the given object's value.
+	 * @param object The object
+	 * @return The key*/
+	private static Object key(SSDObject object) {
+		switch(object.type()) {
+			case NULL:
+				return NULL;
+			case BOOLEAN:
+				return object.booleanValue();
+			case INTEGER:
+				try {
+					return object.longValue();
+				} catch(NumberFormatException ex) {
+					// The number is too big for a long
+					return number(object.doubleValue());
+				}
+			case FLOAT:
+				return number(object.doubleValue());
+			default:
+				return object.stringValue();
+		}
+	}
+	
+	/**
+	 * Gets the key of the given value.
+	 * @param value The value, or an object
+	 * @return The key*/
+	static Object key(Object value) {
+		if(value == null)
+			return NULL;
+		if(value instanceof SSDObject)
+			return key((SSDObject) value);
+		if(value instanceof Boolean || value instanceof Long)
+			return value;
+		if(value instanceof Integer || value instanceof Short || value instanceof Byte)
+			return ((Number) value).longValue();
+		if(value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE)
+			return ((BigInteger) value).longValue();
+		if(value instanceof Number)
+			return number(((Number) value).doubleValue());
+		if(value instanceof CharSequence || value instanceof Character)
+			return value.toString();
+		throw new IllegalArgumentException("Values of type " + value.getClass().getName()
+			+ " cannot be indexed");
+	}
+	
+	/**
+	 * Gets the key of a floating-point number. Whole numbers have
+	 * the same keys as integers.
+	 * @param number The number
+	 * @return The key*/
+	private static Object number(double number) {
+		if(number >= MIN_LONG && number < MAX_LONG && number == Math.rint(number))
+			return (long) number;
+		return number;
+	}
+	
+	/**
+	 * Gets the rank of the type of the given key.
+	 * @param key The key
+	 * @return The rank*/
+	private static int rank(Object key) {
+		if(key == NULL)					return 0;
+		if(key instanceof Boolean)		return 1;
+		if(key instanceof Number)		return 2;
+		return 3;
+	}
+	
+	/**
+	 * Compares two keys.
+	 * @param a The first key
+	 * @param b The second key
+	 * @return A negative number, zero or a positive number, if the first
+	 * 		   key is lower than, equal to or greater than the second key*/
+	private static int compare(Object a, Object b) {
+		int rankA = rank(a), rankB = rank(b);
+		if(rankA != rankB)
+			return Integer.compare(rankA, rankB);
+		
+		switch(rankA) {
+			case 1:
+				return Boolean.compare((Boolean) a, (Boolean) b);
+			case 2:
+				if(a instanceof Long) {
+					return b instanceof Long
+								? Long.compare((Long) a, (Long) b)
+								: compareNumbers((Long) a, (Double) b);
+				}
+				
+				return b instanceof Long
+							? -compareNumbers((Long) b, (Double) a)
+							: Double.compare((Double) a, (Double) b);
+			case 3:
+				return ((String) a).compareTo((String) b);
+			default:
+				return 0;
+		}
+	}
+	
+	/**
+	 * Compares an integer with a floating-point number, that is not
+	 * a whole number in the range of longs, exactly.
+	 * @param a The integer
+	 * @param b The floating-point number
+	 * @return A negative number, zero or a positive number, if the integer
+	 * 		   is lower than, equal to or greater than the number*/
+	private static int compareNumbers(long a, double b) {
+		if(Double.isNaN(b) || b >= MAX_LONG)
+			return -1;
+		if(b < MIN_LONG)
+			return 1;
+		// The number is not whole, so it is never equal to the integer
+		return a <= (long) Math.floor(b) ? -1 : 1;
+	}
+	
+	/**
+	 * Gets the name of the array of elements.
+	 * @return The name of the array*/
+	String array() {
+		return array;
+	}
+	
+	/**
+	 * Gets the name of the field of the elements.
+	 * @return The name of the field*/
+	String field() {
+		return field;
+	}
+	
+	/**
+	 * Gets whether the keys are sorted.
+	 * @return True, if the keys are sorted, otherwise false*/
+	boolean isSorted() {
+		return sorted;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,666 @@
+package sune.ssdf;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists changes of an SSD File by appending them to a journal,
+ * instead of rewriting the whole file after every change.<br><br>
+ * Every change of the journaled array (setting, appending or removing
+ * of objects) is appended as a single line to the journal file, that
+ * is stored next to the SSD File, with the <code>.journal</code>
+ * extension. When the file is opened, the journal is replayed over
+ * the content of the file. Once the journal contains enough records,
+ * it is compacted: the whole content is written to the SSD File
+ * by a background thread and the journal is started again.<br><br>
+ * Every record is flushed to the operating system when it is appended,
+ * so it is kept when the application crashes. The system writes it
+ * to the storage device later, {@link #sync()} forces the records appended
+ * so far to be written, so that they are kept even when the system
+ * crashes. The compacted content is always forced to the storage device
+ * before the compacted records are removed. A record that was not
+ * written completely, e.g. due to a crash, is ignored when the journal
+ * is replayed. The journaled array can be changed by a single thread
+ * at a time.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFJournal implements Closeable {
+	
+	/**
+	 * The default number of records after which the journal is compacted*/
+	private static final int DEFAULT_COMPACT_THRESHOLD = 10000;
+	/**
+	 * The extension of journal files*/
+	private static final String JOURNAL_EXTENSION = ".journal";
+	/**
+	 * The extension of journal files that are being compacted*/
+	private static final String COMPACTING_EXTENSION = ".journal.old";
+	
+	/**
+	 * Record of a set object*/
+	private static final char RECORD_SET = 'S';
+	/**
+	 * Record of a removed object*/
+	private static final char RECORD_REMOVE = 'R';
+	/**
+	 * Record of removal of all objects*/
+	private static final char RECORD_CLEAR = 'C';
+	
+	/**
+	 * The SSD File*/
+	private final Path file;
+	/**
+	 * The journal file*/
+	private final Path journalFile;
+	/**
+	 * The journal file that is being compacted*/
+	private final Path compactingFile;
+	/**
+	 * The number of records after which the journal is compacted*/
+	private final int compactThreshold;
+	/**
+	 * The journaled objects*/
+	private final JournalMap objects;
+	/**
+	 * The document with the journaled objects*/
+	private final SSDFCore core;
+	/**
+	 * The executor of compactions*/
+	private final ExecutorService compactor;
+	
+	/**
+	 * The writer of the journal, or null, if the journal is closed*/
+	private Writer writer;
+	/**
+	 * The stream of the journal file*/
+	private FileOutputStream output;
+	/**
+	 * The number of records in the journal*/
+	private int records;
+	/**
+	 * Whether the journal is being compacted*/
+	private volatile boolean compacting;
+	/**
+	 * The error of the last compaction, or null*/
+	private volatile IOException compactError;
+	
+	/**
+	 * Creates new instance of SSDF Journal.
+	 * @param file			   The SSD File
+	 * @param compactThreshold The number of records after which
+	 * 						   the journal is compacted
+	 * @throws IOException When the file or the journal cannot be read*/
+	private SSDFJournal(Path file, int compactThreshold) throws IOException {
+		this.file			  = file;
+		this.journalFile	  = file.resolveSibling(file.getFileName() + JOURNAL_EXTENSION);
+		this.compactingFile	  = file.resolveSibling(file.getFileName() + COMPACTING_EXTENSION);
+		this.compactThreshold = compactThreshold;
+		
+		Map<String, SSDObject> data = Files.exists(file)
+			? new SSDFCore(Files.newInputStream(file)).getArray().getObjects()
+			: new LinkedHashMap<>();
+		
+		// A journal left by an interrupted compaction is replayed first,
+		// replaying records that are already in the file does not change it
+		if(Files.exists(compactingFile))
+			replay(compactingFile, data);
+		if(Files.exists(journalFile)) {
+			truncateIncompleteRecord(journalFile);
+			records = replay(journalFile, data);
+		}
+		
+		this.objects   = new JournalMap(data);
+		this.core	   = new SSDFCore(new SSDArray("", objects));
+		this.compactor = Executors.newSingleThreadExecutor((runnable) -> {
+			Thread thread = new Thread(runnable, "ssdf-journal-compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.writer = openWriter();
+		
+		// Finish the interrupted compaction, the content is written
+		// with all the records, since they can be replayed again
+		if(Files.exists(compactingFile)) {
+			Map<String, SSDObject> snapshot = new LinkedHashMap<>(data);
+			compacting = true;
+			compactor.execute(() -> writeSnapshot(snapshot));
+		}
+	}
+	
+	/**
+	 * Opens the given SSD File with its journal. If the file does not
+	 * exist, it is created when the journal is compacted.
+	 * @param file The SSD File
+	 * @return The journal
+	 * @throws IOException When the file or the journal cannot be read*/
+	public static SSDFJournal open(Path file) throws IOException {
+		return open(file, DEFAULT_COMPACT_THRESHOLD);
+	}
+	
+	/**
+	 * Opens the given SSD File with its journal. If the file does not
+	 * exist, it is created when the journal is compacted.
+	 * @param file			   The SSD File
+	 * @param compactThreshold The number of records after which
+	 * 						   the journal is compacted
+	 * @return The journal
+	 * @throws IOException When the file or the journal cannot be read*/
+	public static SSDFJournal open(Path file, int compactThreshold) throws IOException {
+		if(compactThreshold <= 0)
+			throw new IllegalArgumentException("Compact threshold must be positive");
+		return new SSDFJournal(file.toAbsolutePath(), compactThreshold);
+	}
+	
+	/**
+	 * Replays all records of the given journal file.
+	 * @param journal The journal file
+	 * @param data	  The objects to which the records are applied
+	 * @return The number of replayed records
+	 * @throws IOException When the journal cannot be read*/
+	private static int replay(Path journal, Map<String, SSDObject> data) throws IOException {
+		int count = 0;
+		try(Reader reader = new BufferedReader(new InputStreamReader(
+				Files.newInputStream(journal), StandardCharsets.UTF_8))) {
+			StringBuilder line = new StringBuilder();
+			for(int c; (c = reader.read()) != -1;) {
+				if(c != '\n') {
+					line.append((char) c);
+					continue;
+				}
+				
+				apply(line, data);
+				line.setLength(0);
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Removes the last record of the given journal file, if it was not
+	 * written completely, so that new records can be appended.
+	 * @param journal The journal file
+	 * @throws IOException When the journal cannot be truncated*/
+	private static void truncateIncompleteRecord(Path journal) throws IOException {
+		try(FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			long end = channel.size();
+			for(long position = end; position > 0L;) {
+				int length = (int) Math.min(buffer.capacity(), position);
+				position -= length;
+				buffer.clear().limit(length);
+				while(buffer.hasRemaining()
+						&& channel.read(buffer, position + buffer.position()) >= 0);
+				
+				// Records end with a new line, that is never a part
+				// of a multi-byte character in UTF-8
+				for(int i = length - 1; i >= 0; i--) {
+					if(buffer.get(i) == '\n') {
+						if(position + i + 1 < end)
+							channel.truncate(position + i + 1);
+						return;
+					}
+				}
+			}
+			
+			channel.truncate(0L);
+		}
+	}
+	
+	/**
+	 * Applies the given record to the objects.
+	 * @param record The record
+	 * @param data	 The objects
+	 * @throws IOException When the record is not valid*/
+	private static void apply(CharSequence record, Map<String, SSDObject> data)
+			throws IOException {
+		String[] fields = record.toString().split("\t", -1);
+		switch(fields[0].isEmpty() ? ' ' : fields[0].charAt(0)) {
+			case RECORD_SET:
+				SSDType type = fields.length == 5 ? typeOf(fields[3]) : null;
+				if(type == null) break;
+				data.put(unescape(fields[1]), new SSDObject(unescape(fields[2]),
+					type, unescape(fields[4]), false));
+				return;
+			case RECORD_REMOVE:
+				if(fields.length != 2) break;
+				data.remove(unescape(fields[1]));
+				return;
+			case RECORD_CLEAR:
+				data.clear();
+				return;
+		}
+		
+		throw new IOException("Invalid journal record: " + record);
+	}
+	
+	/**
+	 * Gets the Data Type of the given name.
+	 * @param name The name of the type
+	 * @return The type, or null, if there is no such type*/
+	private static SSDType typeOf(String name) {
+		for(SSDType type : SSDType.values()) {
+			if(type.name().equals(name))
+				return type;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Escapes the characters that separate the fields and records.
+	 * @param string The string
+	 * @return The escaped string*/
+	private static String escape(String string) {
+		StringBuilder sb = null;
+		for(int i = 0, l = string.length(); i < l; i++) {
+			char c = string.charAt(i);
+			String escaped;
+			switch(c) {
+				case '\\': escaped = "\\\\"; break;
+				case '\t': escaped = "\\t";  break;
+				case '\n': escaped = "\\n";  break;
+				case '\r': escaped = "\\r";  break;
+				default:
+					if(sb != null) sb.append(c);
+					continue;
+			}
+			
+			if(sb == null) {
+				sb = new StringBuilder(l + 16);
+				sb.append(string, 0, i);
+			}
+			sb.append(escaped);
+		}
+		
+		return sb != null ? sb.toString() : string;
+	}
+	
+	/**
+	 * Reverts the escaping of the given string.
+	 * @param string The escaped string
+	 * @return The string*/
+	private static String unescape(String string) {
+		if(string.indexOf('\\') < 0)
+			return string;
+		
+		StringBuilder sb = new StringBuilder(string.length());
+		for(int i = 0, l = string.length(); i < l; i++) {
+			char c = string.charAt(i);
+			if(c == '\\' && ++i < l) {
+				c = string.charAt(i);
+				switch(c) {
+					case 't': c = '\t'; break;
+					case 'n': c = '\n'; break;
+					case 'r': c = '\r'; break;
+				}
+			}
+			
+			sb.append(c);
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Opens the writer that appends records to the journal.
+	 * @return The writer
+	 * @throws IOException When the journal cannot be opened*/
+	private Writer openWriter() throws IOException {
+		output = new FileOutputStream(journalFile.toFile(), true);
+		return new OutputStreamWriter(output, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Appends the given record to the journal. The record is flushed
+	 * to the operating system, but it is not forced to the storage device.
+	 * @param record The record, without the line separator*/
+	private synchronized void append(String record) {
+		if(writer == null)
+			throw new IllegalStateException("The journal is closed");
+		
+		try {
+			writer.write(record);
+			writer.write('\n');
+			writer.flush();
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		
+		if(++records >= compactThreshold && !compacting)
+			startCompaction();
+	}
+	
+	/**
+	 * Starts the compaction of the journal. The records are moved
+	 * aside, so that new records can be appended while the content
+	 * is written by the background thread.*/
+	private void startCompaction() {
+		Map<String, SSDObject> snapshot = new LinkedHashMap<>(objects.data);
+		try {
+			// The moved records have to be forced as well, if sync is called
+			// before the compaction is finished
+			writer.flush();
+			output.getChannel().force(false);
+			writer.close();
+			Files.move(journalFile, compactingFile, StandardCopyOption.ATOMIC_MOVE);
+			writer	= openWriter();
+			records = 0;
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		
+		compacting = true;
+		compactor.execute(() -> writeSnapshot(snapshot));
+	}
+	
+	/**
+	 * Writes the given objects to the SSD File and removes
+	 * the compacted records. If the objects cannot be written,
+	 * the compacted records are kept and the journal is not compacted
+	 * again, until {@link #compact()} is called.
+	 * @param snapshot The objects*/
+	private void writeSnapshot(Map<String, SSDObject> snapshot) {
+		try {
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+			try(FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+				new SSDFCore(new SSDArray("", snapshot)).save(stream,
+					SSDFCompression.forFileName(file.getFileName().toString()));
+				// The content has to be on the storage device before it replaces
+				// the file, otherwise a crash could leave an empty file
+				stream.getChannel().force(true);
+			}
+			
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+			// The compacted records are removed only once the move is durable
+			syncDirectory();
+			Files.delete(compactingFile);
+			compactError = null;
+			compacting	 = false;
+		} catch(IOException | RuntimeException ex) {
+			compactError = ex instanceof IOException ? (IOException) ex : new IOException(ex);
+		}
+	}
+	
+	/**
+	 * Forces the entries of the directory of the SSD File to the storage
+	 * device, so that a moved file is kept even when the system crashes.
+	 * @throws IOException When the directory cannot be forced*/
+	private void syncDirectory() throws IOException {
+		try(FileChannel channel = FileChannel.open(file.getParent(), StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch(AccessDeniedException ex) {
+			// Directories cannot be opened on some systems (e.g. Windows),
+			// the entries are then written by the system itself
+		}
+	}
+	
+	/**
+	 * Forces all records appended so far to the storage device, so that
+	 * they are kept even when the system crashes.
+	 * @throws IOException When the journal cannot be forced*/
+	public synchronized void sync() throws IOException {
+		if(writer == null)
+			throw new IllegalStateException("The journal is closed");
+		writer.flush();
+		output.getChannel().force(false);
+	}
+	
+	/**
+	 * Compacts the journal and waits until the content is written
+	 * to the SSD File. A compaction that failed is retried.
+	 * @throws IOException When the content cannot be written*/
+	public void compact() throws IOException {
+		awaitCompaction();
+		synchronized(this) {
+			if(writer == null)
+				throw new IllegalStateException("The journal is closed");
+			if(compacting) {
+				// The records moved aside were not compacted, the newer
+				// records are kept in the journal, they can be replayed again
+				Map<String, SSDObject> snapshot = new LinkedHashMap<>(objects.data);
+				compactor.execute(() -> writeSnapshot(snapshot));
+			} else if(records > 0) {
+				startCompaction();
+			}
+		}
+		
+		awaitCompaction();
+		IOException error = compactError;
+		if(error != null)
+			throw error;
+	}
+	
+	/**
+	 * Waits until the running compaction, if any, is finished.
+	 * @throws IOException When the thread is interrupted*/
+	private void awaitCompaction() throws IOException {
+		try {
+			compactor.submit(() -> {}).get();
+		} catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compacting", ex);
+		} catch(Exception ex) {
+			throw new IOException(ex);
+		}
+	}
+	
+	/**
+	 * Gets the document whose changes are journaled.
+	 * @return The document*/
+	public SSDFCore getCore() {
+		return core;
+	}
+	
+	/**
+	 * Gets the main array whose changes are journaled.
+	 * @return The main array object*/
+	public SSDArray getArray() {
+		return core.getArray();
+	}
+	
+	/**
+	 * Gets the number of records in the journal since
+	 * the last compaction.
+	 * @return The number of records*/
+	public synchronized int getRecordCount() {
+		return records;
+	}
+	
+	/**
+	 * Gets the journal file.
+	 * @return The path of the journal file*/
+	public Path getJournalFile() {
+		return journalFile;
+	}
+	
+	/**
+	 * Closes the journal. The running compaction is finished first,
+	 * the records that were not compacted stay in the journal.
+	 * @throws IOException When the journal cannot be closed*/
+	@Override
+	public void close() throws IOException {
+		synchronized(this) {
+			if(writer == null)
+				return;
+			writer.close();
+			writer = null;
+		}
+		
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		
+		IOException error = compactError;
+		if(error != null)
+			throw error;
+	}
+	
+	/**
+	 * Represents the objects of the journaled array. Every change
+	 * of the objects is appended to the journal.
+	 * @author Sune*/
+	private final class JournalMap extends AbstractMap<String, SSDObject> {
+		
+		/**
+		 * The objects*/
+		final Map<String, SSDObject> data;
+		/**
+		 * The set of entries, or null*/
+		private Set<Entry<String, SSDObject>> entrySet;
+		
+		/**
+		 * Creates new instance of Journal Map.
+		 * @param data The objects*/
+		JournalMap(Map<String, SSDObject> data) {
+			this.data = data;
+		}
+		
+		/**
+		 * Appends the record of the set object.
+		 * @param name	 The object's name
+		 * @param object The object*/
+		void recordSet(String name, SSDObject object) {
+			String value = object.stringValue();
+			append(RECORD_SET + "\t" + escape(name) + "\t" + escape(object.name())
+				+ "\t" + object.type().name() + "\t" + escape(value != null ? value : ""));
+		}
+		
+		/**
+		 * Appends the record of the removed object.
+		 * @param name The object's name*/
+		void recordRemove(Object name) {
+			append(RECORD_REMOVE + "\t" + escape((String) name));
+		}
+		
+		@Override
+		public SSDObject get(Object name) {
+			return data.get(name);
+		}
+		
+		@Override
+		public boolean containsKey(Object name) {
+			return data.containsKey(name);
+		}
+		
+		@Override
+		public int size() {
+			return data.size();
+		}
+		
+		@Override
+		public SSDObject put(String name, SSDObject object) {
+			// The objects are changed first, so that a compaction started
+			// by the record already contains the change
+			SSDObject previous = data.put(name, object);
+			recordSet(name, object);
+			return previous;
+		}
+		
+		@Override
+		public SSDObject remove(Object name) {
+			if(!data.containsKey(name))
+				return null;
+			SSDObject previous = data.remove(name);
+			recordRemove(name);
+			return previous;
+		}
+		
+		@Override
+		public void clear() {
+			if(data.isEmpty())
+				return;
+			data.clear();
+			append(String.valueOf(RECORD_CLEAR));
+		}
+		
+		@Override
+		public Set<Entry<String, SSDObject>> entrySet() {
+			Set<Entry<String, SSDObject>> set = entrySet;
+			if(set == null) {
+				entrySet = set = new AbstractSet<Entry<String, SSDObject>>() {
+					
+					@Override
+					public Iterator<Entry<String, SSDObject>> iterator() {
+						Iterator<Entry<String, SSDObject>> it = data.entrySet().iterator();
+						return new Iterator<Entry<String, SSDObject>>() {
+							
+							/**
+							 * The current entry*/
+							private Entry<String, SSDObject> current;
+							
+							@Override
+							public boolean hasNext() {
+								return it.hasNext();
+							}
+							
+							@Override
+							public Entry<String, SSDObject> next() {
+								Entry<String, SSDObject> entry = it.next();
+								current = entry;
+								return new SimpleEntry<String, SSDObject>(entry) {
+									
+									private static final long serialVersionUID = 1L;
+									
+									@Override
+									public SSDObject setValue(SSDObject object) {
+										SSDObject previous = entry.setValue(object);
+										super.setValue(object);
+										recordSet(entry.getKey(), object);
+										return previous;
+									}
+								};
+							}
+							
+							@Override
+							public void remove() {
+								if(current == null)
+									throw new IllegalStateException();
+								it.remove();
+								recordRemove(current.getKey());
+								current = null;
+							}
+						};
+					}
+					
+					@Override
+					public int size() {
+						return data.size();
+					}
+				};
+			}
+			
+			return set;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,408 @@
+package sune.ssdf;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads characters and tokens of SSDF Syntax from a char sequence
+ * or a reader, through a buffer, and keeps track of the position,
+ * line and column of the current character. The lexer is used by all
+ * readers of SSDF Syntax, so that they read the syntax the same way.
+ * It can be reused to read many contents.
+ * @author Sune
+ * @since 1.2*/
+final class SSDFLexer {
+	
+	/**
+	 * The size of the read buffer*/
+	static final int BUFFER_SIZE = 8192;
+	
+	/**
+	 * The read buffer*/
+	private final char[] buffer = new char[BUFFER_SIZE];
+	/**
+	 * The position in the read buffer*/
+	private int pos;
+	/**
+	 * The number of characters in the read buffer*/
+	private int lim;
+	/**
+	 * The position of the read buffer in the content*/
+	private long base;
+	/**
+	 * Whether the end of the content was reached*/
+	private boolean eof;
+	/**
+	 * The current line number*/
+	private int line;
+	/**
+	 * The position of the current line in the content*/
+	private long lineStart;
+	/**
+	 * The maximum size of the content*/
+	private long maxSize;
+	
+	/**
+	 * The content being read, if it is a char sequence*/
+	private CharSequence sequence;
+	/**
+	 * The position in the char sequence*/
+	private int sequenceIndex;
+	/**
+	 * The content being read, if it is a reader*/
+	private Reader reader;
+	
+	/**
+	 * Starts reading of the given char sequence or reader.
+	 * @param content The char sequence, or null
+	 * @param reader  The reader, or null
+	 * @param maxSize The maximum size of the content*/
+	void begin(CharSequence content, Reader reader, long maxSize) {
+		this.sequence	   = content;
+		this.sequenceIndex = 0;
+		this.reader		   = reader;
+		this.pos		   = 0;
+		this.lim		   = 0;
+		this.base		   = 0L;
+		this.eof		   = false;
+		this.line		   = 1;
+		this.lineStart	   = 0L;
+		this.maxSize	   = maxSize;
+	}
+	
+	/**
+	 * Releases the read content.*/
+	void end() {
+		sequence = null;
+		reader	 = null;
+	}
+	
+	/**
+	 * Gets the content being read, if it is a char sequence.
+	 * @return The char sequence, or null*/
+	CharSequence content() {
+		return sequence;
+	}
+	
+	/**
+	 * Gets the position of the current character in the content.
+	 * @return The position*/
+	long position() {
+		return base + pos;
+	}
+	
+	/**
+	 * Gets the line of the current character.
+	 * @return The line number*/
+	int line() {
+		return line;
+	}
+	
+	/**
+	 * Gets the column of the current character.
+	 * @return The column number*/
+	long column() {
+		return base + pos - lineStart + 1;
+	}
+	
+	/**
+	 * Reads characters from the content to the given array.
+	 * @param chars	 The array
+	 * @param offset The offset in the array
+	 * @param length The maximum number of characters
+	 * @return The number of read characters, or -1 at the end
+	 * @throws IOException When the content cannot be read*/
+	private int read(char[] chars, int offset, int length) throws IOException {
+		if(reader != null)
+			return reader.read(chars, offset, length);
+		
+		int count = Math.min(length, sequence.length() - sequenceIndex);
+		if(count <= 0)
+			return -1;
+		
+		int end = sequenceIndex + count;
+		if(sequence instanceof String) {
+			((String) sequence).getChars(sequenceIndex, end, chars, offset);
+		} else if(sequence instanceof StringBuilder) {
+			((StringBuilder) sequence).getChars(sequenceIndex, end, chars, offset);
+		} else {
+			for(int i = sequenceIndex; i < end; i++)
+				chars[offset++] = sequence.charAt(i);
+		}
+		
+		sequenceIndex = end;
+		return count;
+	}
+	
+	/**
+	 * Makes sure that the given number of characters is available
+	 * in the read buffer, unless the end of the content is reached.
+	 * @param count The number of characters
+	 * @return The number of available characters
+	 * @throws IOException When the content cannot be read*/
+	private int available(int count) throws IOException {
+		int remaining = lim - pos;
+		if(remaining >= count || eof)
+			return remaining;
+		
+		if(pos > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, remaining);
+			base += pos;
+			pos   = 0;
+			lim   = remaining;
+		}
+		
+		while(lim < count && !eof) {
+			int read = read(buffer, lim, buffer.length - lim);
+			if(read < 0) eof  = true;
+			else 		 lim += read;
+		}
+		
+		if(base + lim > maxSize)
+			throw violation("The content is larger than " + maxSize + " characters");
+		return lim - pos;
+	}
+	
+	/**
+	 * Gets the current character without reading it.
+	 * @return The current character, or -1 at the end
+	 * @throws IOException When the content cannot be read*/
+	int peek() throws IOException {
+		return pos < lim || available(1) > 0 ? buffer[pos] : -1;
+	}
+	
+	/**
+	 * Gets the character after the current character
+	 * without reading it.
+	 * @return The character, or -1 at the end
+	 * @throws IOException When the content cannot be read*/
+	int peekNext() throws IOException {
+		return available(2) > 1 ? buffer[pos+1] : -1;
+	}
+	
+	/**
+	 * Reads the current character.
+	 * @return The read character, or -1 at the end
+	 * @throws IOException When the content cannot be read*/
+	int next() throws IOException {
+		if(pos >= lim && available(1) <= 0)
+			return -1;
+		
+		char c = buffer[pos++];
+		if(c == '\n') {
+			line++;
+			lineStart = base + pos;
+		}
+		
+		return c;
+	}
+	
+	/**
+	 * Skips all spaces, breaks (line delimiters) and comments.
+	 * @throws IOException When the content cannot be read*/
+	void skip() throws IOException {
+		for(int c; (c = peek()) >= 0;) {
+			if(c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				next();
+			} else if(c == '#') {
+				// Line comments support
+				while((c = peek()) >= 0 && c != '\n' && c != '\r')
+					next();
+			} else if(c == '/' && peekNext() == '*') {
+				// Block comments support
+				next();
+				next();
+				while((c = next()) >= 0 && !(c == '*' && peek() == '/'));
+				next();
+			} else {
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Reads object's name and appends it to the given builder.
+	 * Only the first sequence of letters, digits and underscores
+	 * is used as the name.
+	 * @param name		The builder of the name
+	 * @param maxLength The maximum length of the name
+	 * @return True, if the name was read, false, if there is no
+	 * 		   name/value delimiter
+	 * @throws IOException When the content cannot be read*/
+	boolean readName(StringBuilder name, int maxLength) throws IOException {
+		int start = name.length();
+		// 0 = not started, 1 = started, 2 = ended
+		int state = 0;
+		int quote = 0;
+		for(int c;;) {
+			if(quote == 0) {
+				skip();
+				if((c = peek()) < 0 || c == ',' || c == '}' || c == ']')
+					return false;
+				next();
+				if(c == ':')
+					return name.length() > start;
+				if(c == '\"' || c == '\'') {
+					quote = c;
+					if(state == 1) state = 2;
+					continue;
+				}
+			} else {
+				if((c = next()) < 0)
+					return false;
+				if(c == quote) {
+					quote = 0;
+					if(state == 1) state = 2;
+					continue;
+				}
+			}
+			
+			boolean word = isNameChar(c);
+			if(word && state < 2) {
+				if(name.length() - start >= maxLength)
+					throw violation("A name is longer than " + maxLength + " characters");
+				name.append((char) c);
+				state = 1;
+			} else if(!word && state == 1) {
+				state = 2;
+			}
+		}
+	}
+	
+	/**
+	 * Reads a number and appends it to the given builder. The number
+	 * can be negative and can have a fraction and an exponent. Other
+	 * dots and digits that follow the number are read as well.
+	 * @param value		The builder of the number
+	 * @param maxLength The maximum length of the number
+	 * @return True, if the number is valid, otherwise false
+	 * @throws IOException When the content cannot be read*/
+	boolean readNumber(StringBuilder value, int maxLength) throws IOException {
+		if(peek() == '-')
+			append(value, maxLength);
+		
+		int c;
+		boolean valid = false;
+		while((c = peek()) >= '0' && c <= '9') {
+			append(value, maxLength);
+			valid = true;
+		}
+		
+		if(c == '.') {
+			append(value, maxLength);
+			boolean digits = false;
+			while((c = peek()) >= '0' && c <= '9') {
+				append(value, maxLength);
+				digits = true;
+			}
+			
+			valid &= digits;
+		}
+		
+		if((c == 'e' || c == 'E') && valid) {
+			append(value, maxLength);
+			if((c = peek()) == '-' || c == '+')
+				append(value, maxLength);
+			
+			boolean digits = false;
+			while((c = peek()) >= '0' && c <= '9') {
+				append(value, maxLength);
+				digits = true;
+			}
+			
+			valid &= digits;
+		}
+		
+		// Other dots make the whole number invalid
+		while((c = peek()) == '.' || (c >= '0' && c <= '9')) {
+			append(value, maxLength);
+			valid = false;
+		}
+		
+		return valid;
+	}
+	
+	/**
+	 * Reads a word of lower-case letters and appends it to the given
+	 * builder.
+	 * @param value		The builder of the word
+	 * @param maxLength The maximum length of the word
+	 * @throws IOException When the content cannot be read*/
+	void readWord(StringBuilder value, int maxLength) throws IOException {
+		for(int c; (c = peek()) >= 'a' && c <= 'z';)
+			append(value, maxLength);
+	}
+	
+	/**
+	 * Reads the current character and appends it to the given builder.
+	 * @param value		The builder
+	 * @param maxLength The maximum length of the builder's content
+	 * @throws IOException When the content cannot be read*/
+	private void append(StringBuilder value, int maxLength) throws IOException {
+		if(value.length() >= maxLength)
+			throw violation("A value is longer than " + maxLength + " characters");
+		value.append((char) next());
+	}
+	
+	/**
+	 * Skips the rest of the value, up to the items delimiter
+	 * or the closing brackets of the parent.
+	 * @param close The closing brackets of the parent
+	 * @throws IOException When the content cannot be read*/
+	void skipValue(char close) throws IOException {
+		int quote = 0;
+		for(int c;;) {
+			if(quote == 0) {
+				skip();
+				if((c = peek()) < 0 || c == ',' || c == close)
+					return;
+				next();
+				if(c == '\"' || c == '\'')
+					quote = c;
+			} else {
+				if((c = next()) < 0)
+					return;
+				if(c == '\\')
+					next();
+				else if(c == quote)
+					quote = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether the given value starts with the given word.
+	 * @param value The value
+	 * @param word	The word
+	 * @return True, if the value starts with the word, otherwise false*/
+	static boolean startsWith(CharSequence value, String word) {
+		int length = word.length();
+		if(value.length() < length)
+			return false;
+		
+		for(int i = 0; i < length; i++) {
+			if(value.charAt(i) != word.charAt(i))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Checks whether the given character can be a part of a name.
+	 * @param c The character
+	 * @return True, if the character is a letter, digit or underscore*/
+	static boolean isNameChar(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+				|| (c >= '0' && c <= '9') || c == '_';
+	}
+	
+	/**
+	 * Creates an exception of an invalid content at the current position.
+	 * @param message The message
+	 * @return The exception*/
+	SSDFException violation(String message) {
+		long position = base + pos;
+		return new SSDFException(message, position, line, position - lineStart + 1);
+	}
+}
\ No newline at end of file
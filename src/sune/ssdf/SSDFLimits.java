@@ -0,0 +1,112 @@
+package sune.ssdf;
+
+/**
+ * Limits of resources used when SSDF content is read. The limits make it
+ * safe to read content from untrusted sources, since the time and memory
+ * needed to read the content are bounded. When a limit is exceeded, the
+ * reading stops immediately with an {@link SSDFException}.<br><br>
+ * By default, there are no limits.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFLimits {
+	
+	/**
+	 * The maximum nesting depth of arrays and objects*/
+	private int maxDepth = Integer.MAX_VALUE;
+	/**
+	 * The maximum size of the content, in characters*/
+	private long maxDocumentSize = Long.MAX_VALUE;
+	/**
+	 * The maximum length of strings, names and other values, in characters*/
+	private int maxStringLength = Integer.MAX_VALUE;
+	/**
+	 * The maximum number of items, objects and arrays*/
+	private int maxElementCount = Integer.MAX_VALUE;
+	
+	/**
+	 * Sets the maximum nesting depth of arrays and objects. The main
+	 * object has the depth 1.
+	 * @param maxDepth The maximum depth
+	 * @return This limits*/
+	public SSDFLimits setMaxDepth(int maxDepth) {
+		if(maxDepth <= 0)
+			throw new IllegalArgumentException("Max depth must be positive");
+		this.maxDepth = maxDepth;
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum size of the content, in characters. Characters
+	 * after the main object are counted as well.
+	 * @param maxDocumentSize The maximum size
+	 * @return This limits*/
+	public SSDFLimits setMaxDocumentSize(long maxDocumentSize) {
+		if(maxDocumentSize <= 0L)
+			throw new IllegalArgumentException("Max document size must be positive");
+		this.maxDocumentSize = maxDocumentSize;
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum length of strings, names and other values,
+	 * in characters.
+	 * @param maxStringLength The maximum length
+	 * @return This limits*/
+	public SSDFLimits setMaxStringLength(int maxStringLength) {
+		if(maxStringLength <= 0)
+			throw new IllegalArgumentException("Max string length must be positive");
+		this.maxStringLength = maxStringLength;
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum number of items in the whole content. Every object,
+	 * array and item of an array is counted.
+	 * @param maxElementCount The maximum number of items
+	 * @return This limits*/
+	public SSDFLimits setMaxElementCount(int maxElementCount) {
+		if(maxElementCount <= 0)
+			throw new IllegalArgumentException("Max element count must be positive");
+		this.maxElementCount = maxElementCount;
+		return this;
+	}
+	
+	/**
+	 * Gets the maximum nesting depth of arrays and objects.
+	 * @return The maximum depth*/
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+	
+	/**
+	 * Gets the maximum size of the content, in characters.
+	 * @return The maximum size*/
+	public long getMaxDocumentSize() {
+		return maxDocumentSize;
+	}
+	
+	/**
+	 * Gets the maximum length of strings, names and other values.
+	 * @return The maximum length*/
+	public int getMaxStringLength() {
+		return maxStringLength;
+	}
+	
+	/**
+	 * Gets the maximum number of items.
+	 * @return The maximum number of items*/
+	public int getMaxElementCount() {
+		return maxElementCount;
+	}
+	
+	/**
+	 * Called when the limits should be converted
+	 * into a string.
+	 * @return The string of the limits*/
+	@Override
+	public String toString() {
+		return String.format(
+			"[maxDepth=%d, maxDocumentSize=%d, maxStringLength=%d, maxElementCount=%d]",
+			maxDepth, maxDocumentSize, maxStringLength, maxElementCount);
+	}
+}
\ No newline at end of file
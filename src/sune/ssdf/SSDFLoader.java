@@ -0,0 +1,298 @@
+package sune.ssdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads many SSD Files concurrently. The files are read by the I/O
+ * executor and then parsed by a bounded pool of parsing threads, so
+ * the loading is limited by the number of cores and the disk, rather
+ * than by the time of reading the files one by one.<br><br>
+ * The files are decoded as UTF-8, compressed files are decompressed
+ * while they are parsed. A file that cannot be read or parsed
+ * does not stop the loading of other files, its error is collected
+ * in the result instead.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFLoader {
+	
+	/**
+	 * The executor of the I/O operations, or null, if an internal
+	 * executor should be used*/
+	private final Executor ioExecutor;
+	/**
+	 * The number of parsing threads*/
+	private final int parallelism;
+	
+	/**
+	 * Creates new instance of SSDF Loader with internal I/O executor
+	 * and one parsing thread per available processor.*/
+	public SSDFLoader() {
+		this(null, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates new instance of SSDF Loader.
+	 * @param ioExecutor  The executor of the I/O operations, or null,
+	 * 					  if an internal executor should be used
+	 * @param parallelism The number of parsing threads*/
+	public SSDFLoader(Executor ioExecutor, int parallelism) {
+		if(parallelism <= 0)
+			throw new IllegalArgumentException("Parallelism must be positive");
+		this.ioExecutor	 = ioExecutor;
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Loads all files in the given directory that match the given glob
+	 * pattern, using the default loader.
+	 * @param dir  The directory
+	 * @param glob The glob pattern, relative to the directory, e.g.
+	 * 			   <code>*.ssdf</code> or <code>**&#47;*.ssdf</code>
+	 * @return The result of the loading
+	 * @throws IOException When the directory cannot be listed*/
+	public static Result loadAll(Path dir, String glob) throws IOException {
+		return new SSDFLoader().load(dir, glob);
+	}
+	
+	/**
+	 * Loads all files in the given directory that match the given glob
+	 * pattern.
+	 * @param dir  The directory
+	 * @param glob The glob pattern, relative to the directory, e.g.
+	 * 			   <code>*.ssdf</code> or <code>**&#47;*.ssdf</code>
+	 * @return The result of the loading
+	 * @throws IOException When the directory cannot be listed*/
+	public Result load(Path dir, String glob) throws IOException {
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		List<Path> files;
+		try(Stream<Path> stream = Files.walk(dir)) {
+			files = stream
+				.filter((path) -> Files.isRegularFile(path)
+									&& matcher.matches(dir.relativize(path)))
+				.sorted()
+				.collect(Collectors.toList());
+		}
+		
+		return load(files);
+	}
+	
+	/**
+	 * Loads all the given files.
+	 * @param files The files
+	 * @return The result of the loading*/
+	public Result load(List<Path> files) {
+		long start = System.nanoTime();
+		Map<Path, SSDFCore> documents = new ConcurrentHashMap<>();
+		Map<Path, Throwable> errors	  = new ConcurrentHashMap<>();
+		AtomicLong readTime			  = new AtomicLong();
+		AtomicLong parseTime		  = new AtomicLong();
+		AtomicLong byteCount		  = new AtomicLong();
+		
+		ExecutorService parsers  = Executors.newFixedThreadPool(parallelism, threadFactory("ssdf-parser-"));
+		ExecutorService internal = ioExecutor == null
+			? Executors.newFixedThreadPool(Math.max(4, parallelism * 2), threadFactory("ssdf-io-"))
+			: null;
+		Executor io = ioExecutor != null ? ioExecutor : internal;
+		
+		try {
+			List<CompletableFuture<?>> futures = new ArrayList<>(files.size());
+			for(Path file : files) {
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					long time = System.nanoTime();
+					try {
+						byte[] bytes = Files.readAllBytes(file);
+						byteCount.addAndGet(bytes.length);
+						return bytes;
+					} catch(IOException ex) {
+						throw new UncheckedIOException(ex);
+					} finally {
+						readTime.addAndGet(System.nanoTime() - time);
+					}
+				}, io).thenApplyAsync((bytes) -> {
+					long time = System.nanoTime();
+					try(Reader reader = new InputStreamReader(SSDFCompression.decompress(
+							new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8)) {
+						return new SSDFCore(SSDFParser.local().parse(reader));
+					} catch(IOException ex) {
+						throw new UncheckedIOException(ex);
+					} finally {
+						parseTime.addAndGet(System.nanoTime() - time);
+					}
+				}, parsers).handle((document, error) -> {
+					if(error != null) {
+						Throwable cause = error instanceof CompletionException
+							&& error.getCause() != null ? error.getCause() : error;
+						if(cause instanceof UncheckedIOException)
+							cause = cause.getCause();
+						errors.put(file, cause);
+					} else {
+						documents.put(file, document);
+					}
+					
+					return null;
+				}));
+			}
+			
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+		} finally {
+			parsers.shutdown();
+			if(internal != null)
+				internal.shutdown();
+		}
+		
+		// Keep the order of the files
+		Map<Path, SSDFCore> orderedDocuments = new LinkedHashMap<>();
+		Map<Path, Throwable> orderedErrors	 = new LinkedHashMap<>();
+		for(Path file : files) {
+			SSDFCore document = documents.get(file);
+			if(document != null) orderedDocuments.put(file, document);
+			Throwable error = errors.get(file);
+			if(error != null) orderedErrors.put(file, error);
+		}
+		
+		return new Result(orderedDocuments, orderedErrors, System.nanoTime() - start,
+			readTime.get(), parseTime.get(), byteCount.get());
+	}
+	
+	/**
+	 * Creates a factory of daemon threads with the given name prefix.
+	 * @param prefix The prefix of the threads' names
+	 * @return The thread factory*/
+	private static ThreadFactory threadFactory(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+		return (runnable) -> {
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+	
+	/**
+	 * Represents the result of loading of files.
+	 * @author Sune*/
+	public static final class Result {
+		
+		/**
+		 * The loaded documents*/
+		private final Map<Path, SSDFCore> documents;
+		/**
+		 * The errors of files that could not be loaded*/
+		private final Map<Path, Throwable> errors;
+		/**
+		 * The total time of the loading, in nanoseconds*/
+		private final long elapsedTime;
+		/**
+		 * The sum of reading times of all files, in nanoseconds*/
+		private final long readTime;
+		/**
+		 * The sum of parsing times of all files, in nanoseconds*/
+		private final long parseTime;
+		/**
+		 * The number of read bytes*/
+		private final long byteCount;
+		
+		/**
+		 * Creates new instance of Result.
+		 * @param documents	  The loaded documents
+		 * @param errors	  The errors of files that could not be loaded
+		 * @param elapsedTime The total time of the loading
+		 * @param readTime	  The sum of reading times of all files
+		 * @param parseTime	  The sum of parsing times of all files
+		 * @param byteCount	  The number of read bytes*/
+		Result(Map<Path, SSDFCore> documents, Map<Path, Throwable> errors,
+				long elapsedTime, long readTime, long parseTime, long byteCount) {
+			this.documents	 = Collections.unmodifiableMap(documents);
+			this.errors		 = Collections.unmodifiableMap(errors);
+			this.elapsedTime = elapsedTime;
+			this.readTime	 = readTime;
+			this.parseTime	 = parseTime;
+			this.byteCount	 = byteCount;
+		}
+		
+		/**
+		 * Gets all loaded documents.
+		 * @return The map of paths and documents*/
+		public Map<Path, SSDFCore> getDocuments() {
+			return documents;
+		}
+		
+		/**
+		 * Gets the errors of all files that could not be loaded.
+		 * @return The map of paths and errors*/
+		public Map<Path, Throwable> getErrors() {
+			return errors;
+		}
+		
+		/**
+		 * Checks whether all files were loaded.
+		 * @return True, if there are no errors, otherwise false*/
+		public boolean isSuccessful() {
+			return errors.isEmpty();
+		}
+		
+		/**
+		 * Gets the total (wall-clock) time of the loading.
+		 * @return The time, in nanoseconds*/
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+		
+		/**
+		 * Gets the sum of reading times of all files.
+		 * @return The time, in nanoseconds*/
+		public long getReadTime() {
+			return readTime;
+		}
+		
+		/**
+		 * Gets the sum of parsing times of all files.
+		 * @return The time, in nanoseconds*/
+		public long getParseTime() {
+			return parseTime;
+		}
+		
+		/**
+		 * Gets the number of read bytes.
+		 * @return The number of bytes*/
+		public long getByteCount() {
+			return byteCount;
+		}
+		
+		/**
+		 * Called when the result should be converted
+		 * into a string.
+		 * @return The string of the result*/
+		@Override
+		public String toString() {
+			return String.format(
+				"[documents=%d, errors=%d, bytes=%d, elapsed=%dms, read=%dms, parse=%dms]",
+				documents.size(), errors.size(), byteCount, elapsedTime / 1000000L,
+				readTime / 1000000L, parseTime / 1000000L);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package sune.ssdf;
+
+import java.math.BigInteger;
+
+/**
+ * Converts decimal numbers, that are already split into a mantissa and
+ * a decimal exponent, to doubles. Most numbers are converted exactly
+ * using only integer arithmetic (the Clinger's fast path and the
+ * Eisel-Lemire algorithm). The few numbers that cannot be converted
+ * this way are left to the caller, which should use
+ * {@link Double#parseDouble(String)} instead.
+ * @author Sune
+ * @since 1.2*/
+final class SSDFNumbers {
+	
+	/**
+	 * The smallest decimal exponent of a non-zero double*/
+	private static final int MIN_EXPONENT = -342;
+	/**
+	 * The largest decimal exponent of a finite double*/
+	private static final int MAX_EXPONENT = 308;
+	/**
+	 * The mask of the lower 32 bits*/
+	private static final long MASK_32 = 0xffffffffL;
+	
+	/**
+	 * Powers of ten that are exactly representable by a double*/
+	private static final double[] POWERS_OF_TEN = {
+		1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	/**
+	 * The 128-bit approximations of powers of five, normalized so that
+	 * the most significant bit is set. Each power has the upper and
+	 * the lower 64 bits, starting with the power {@link #MIN_EXPONENT}.*/
+	private static final long[] POWERS_OF_FIVE = powersOfFive();
+	
+	// Forbid anyone to create an instance of this class
+	private SSDFNumbers() {
+	}
+	
+	/**
+	 * Computes the table of powers of five.
+	 * @return The table of powers of five*/
+	private static long[] powersOfFive() {
+		long[] table	= new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+		BigInteger five = BigInteger.valueOf(5L);
+		BigInteger min	= BigInteger.ONE.shiftLeft(127);
+		BigInteger max	= BigInteger.ONE.shiftLeft(128);
+		for(int q = MIN_EXPONENT, i = 0; q <= MAX_EXPONENT; q++, i += 2) {
+			BigInteger value;
+			if(q < 0) {
+				// The reciprocal of the power, rounded up
+				BigInteger power = five.pow(-q);
+				int z 			 = power.subtract(BigInteger.ONE).bitLength();
+				int b 			 = q >= -27 ? z + 127 : 2 * z + 128;
+				value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+			} else {
+				value = five.pow(q);
+				while(value.compareTo(min) < 0)
+					value = value.shiftLeft(1);
+			}
+			
+			// Truncate the value to 128 bits
+			while(value.compareTo(max) >= 0)
+				value = value.shiftRight(1);
+			
+			table[i]   = value.shiftRight(64).longValue();
+			table[i+1] = value.longValue();
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Converts the number <code>mantissa * 10^exponent</code> to a double.
+	 * @param negative Whether the number is negative
+	 * @param mantissa The mantissa, it must have at most 19 digits,
+	 * 				   it is treated as an unsigned value
+	 * @param exponent The decimal exponent
+	 * @return The double, or {@code NaN}, if the number cannot
+	 * 		   be converted exactly*/
+	static double toDouble(boolean negative, long mantissa, int exponent) {
+		if(mantissa == 0L)
+			return negative ? -0.0 : 0.0;
+		
+		// Clinger's fast path, both the values are exact
+		if(Long.compareUnsigned(mantissa, 1L << 53) <= 0 && exponent >= -22 && exponent <= 22) {
+			double value = exponent < 0
+				? mantissa / POWERS_OF_TEN[-exponent]
+				: mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+		
+		if(exponent < MIN_EXPONENT)
+			return negative ? -0.0 : 0.0;
+		if(exponent > MAX_EXPONENT)
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		
+		long bits = eiselLemire(mantissa, exponent);
+		if(bits < 0L)
+			return Double.NaN;
+		return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+	}
+	
+	/**
+	 * Converts the number <code>mantissa * 10^exponent</code> to the bits
+	 * of a positive double using the Eisel-Lemire algorithm.
+	 * @param mantissa The non-zero mantissa
+	 * @param exponent The decimal exponent, within the range of doubles
+	 * @return The bits of the double, or -1, if the number cannot
+	 * 		   be converted exactly*/
+	private static long eiselLemire(long mantissa, int exponent) {
+		int index	 = 2 * (exponent - MIN_EXPONENT);
+		int lz		 = Long.numberOfLeadingZeros(mantissa);
+		long w		 = mantissa << lz;
+		long factor	 = POWERS_OF_FIVE[index];
+		long high	 = multiplyHigh(w, factor);
+		long low	 = w * factor;
+		
+		// The lower bits are all ones, use the lower half of the power as well
+		if((high & 0x1ffL) == 0x1ffL) {
+			long second = multiplyHigh(w, POWERS_OF_FIVE[index+1]);
+			low += second;
+			if(Long.compareUnsigned(second, low) > 0)
+				high++;
+			// The product can still be inexact
+			if(low == -1L && (exponent < -27 || exponent > 55))
+				return -1L;
+		}
+		
+		int upperBit = (int) (high >>> 63);
+		int shift	 = upperBit + 9;
+		long bits	 = high >>> shift;
+		int power2	 = (int) ((((152170L + 65536L) * exponent) >> 16) + 63)
+							+ upperBit - lz + 1023;
+		
+		if(power2 <= 0) {
+			// Subnormal numbers
+			if(-power2 + 1 >= 64)
+				return 0L;
+			bits >>>= -power2 + 1;
+			bits += bits & 1L;
+			bits >>>= 1;
+			return bits < (1L << 52) ? bits : bits | (1L << 52);
+		}
+		
+		// Exactly between two doubles, round to even
+		if((low == 0L || low == 1L) && exponent >= -4 && exponent <= 23
+				&& (bits & 3L) == 1L && (bits << shift) == high)
+			bits &= ~1L;
+		
+		bits += bits & 1L;
+		bits >>>= 1;
+		if(bits >= (2L << 52)) {
+			bits = 1L << 52;
+			power2++;
+		}
+		
+		if(power2 >= 0x7ff)
+			return 0x7ffL << 52;
+		return (bits & ~(1L << 52)) | ((long) power2 << 52);
+	}
+	
+	/**
+	 * Computes the upper 64 bits of the unsigned 128-bit product
+	 * of the given values.
+	 * @param x The first value
+	 * @param y The second value
+	 * @return The upper 64 bits of the product*/
+	private static long multiplyHigh(long x, long y) {
+		long x0 = x & MASK_32, x1 = x >>> 32;
+		long y0 = y & MASK_32, y1 = y >>> 32;
+		long p01 = x0 * y1;
+		long mid = x1 * y0 + (x0 * y0 >>> 32) + (p01 & MASK_32);
+		return x1 * y1 + (mid >>> 32) + (p01 >>> 32);
+	}
+}
\ No newline at end of file
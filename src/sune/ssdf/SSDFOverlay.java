@@ -0,0 +1,354 @@
+package sune.ssdf;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Creates layered arrays, where the objects of a base array are
+ * overridden by the objects of other arrays (overrides), without copying
+ * any of them. The objects are looked up through the layers when they
+ * are requested, the last override has the highest priority.<br><br>
+ * Arrays and objects of overrides can either be merged with the arrays
+ * and objects of lower layers, object by object, or they can replace them
+ * as a whole. By default, arrays are replaced and objects are merged.
+ * A value always replaces an array or object with the same name in
+ * lower layers, and an array or object always replaces a value.<br><br>
+ * The layered array is read-only, but its arrays returned by
+ * {@link SSDArray#getArray(String)} are copied when they are changed.
+ * Changes of values of all layers are visible. The overrides are indexed
+ * when the layered array is created and its objects are counted when they
+ * are first needed, so no layer should get new arrays or objects, or lose
+ * them, afterwards.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFOverlay {
+	
+	/**
+	 * How arrays or objects of overrides are combined with the arrays
+	 * or objects of lower layers.
+	 * @author Sune*/
+	public enum Mode {
+		
+		/**
+		 * The arrays or objects are merged, object by object.*/
+		MERGE,
+		/**
+		 * The arrays or objects of lower layers are replaced as a whole.*/
+		REPLACE;
+	}
+	
+	/**
+	 * How arrays of overrides are combined*/
+	private Mode arrayMode = Mode.REPLACE;
+	/**
+	 * How objects of overrides are combined*/
+	private Mode objectMode = Mode.MERGE;
+	
+	/**
+	 * Creates a layered array with the default modes, i.e. arrays
+	 * of overrides replace arrays of lower layers and objects are merged.
+	 * @param base		The base array
+	 * @param overrides The overrides, from the lowest to the highest priority
+	 * @return The read-only layered array*/
+	public static SSDArray of(SSDArray base, SSDArray... overrides) {
+		return new SSDFOverlay().overlay(base, overrides);
+	}
+	
+	/**
+	 * Sets how arrays of overrides are combined with arrays of lower
+	 * layers. Arrays are objects whose all items have indexes.
+	 * @param arrayMode The mode
+	 * @return This overlay*/
+	public SSDFOverlay setArrayMode(Mode arrayMode) {
+		if(arrayMode == null)
+			throw new IllegalArgumentException("Array mode cannot be null");
+		this.arrayMode = arrayMode;
+		return this;
+	}
+	
+	/**
+	 * Sets how objects of overrides are combined with objects of lower
+	 * layers.
+	 * @param objectMode The mode
+	 * @return This overlay*/
+	public SSDFOverlay setObjectMode(Mode objectMode) {
+		if(objectMode == null)
+			throw new IllegalArgumentException("Object mode cannot be null");
+		this.objectMode = objectMode;
+		return this;
+	}
+	
+	/**
+	 * Gets how arrays of overrides are combined.
+	 * @return The mode*/
+	public Mode getArrayMode() {
+		return arrayMode;
+	}
+	
+	/**
+	 * Gets how objects of overrides are combined.
+	 * @return The mode*/
+	public Mode getObjectMode() {
+		return objectMode;
+	}
+	
+	/**
+	 * Creates a layered array with the modes of this overlay.
+	 * @param base		The base array
+	 * @param overrides The overrides, from the lowest to the highest priority
+	 * @return The read-only layered array*/
+	public SSDArray overlay(SSDArray base, SSDArray... overrides) {
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Map<String, SSDObject>[] layers = new Map[overrides.length + 1];
+		layers[0] = base.getObjects();
+		for(int i = 0; i < overrides.length; i++)
+			layers[i+1] = overrides[i].getObjects();
+		return new SSDArray(base.getName(), new LayeredMap(layers, arrayMode, objectMode));
+	}
+	
+	/**
+	 * Checks whether the given part of a name is an index of an array.
+	 * @param name	The name
+	 * @param start The start of the part, inclusive
+	 * @param end	The end of the part, exclusive
+	 * @return True, if the part consists only of digits, otherwise false*/
+	private static boolean isIndex(String name, int start, int end) {
+		if(start >= end)
+			return false;
+		for(int i = start; i < end; i++) {
+			char c = name.charAt(i);
+			if(c < '0' || c > '9')
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Map (list) of objects of all layers. Each object is looked up
+	 * from the highest layer down to the lowest layer that is not hidden
+	 * by a higher layer.
+	 * @author Sune*/
+	private static final class LayeredMap extends AbstractMap<String, SSDObject> {
+		
+		/**
+		 * The objects of all layers, from the lowest to the highest priority*/
+		private final Map<String, SSDObject>[] layers;
+		/**
+		 * The lowest visible layer of the objects in the arrays and objects
+		 * with the given names, the lower layers are replaced*/
+		private final Map<String, Integer> subtreeMasks = new HashMap<>();
+		/**
+		 * The lowest visible layer of the values with the given names,
+		 * the lower layers are replaced by arrays or objects*/
+		private final Map<String, Integer> valueMasks = new HashMap<>();
+		/**
+		 * The sorted hash codes of names in the subtree masks, so that names
+		 * of parents of objects do not have to be created to be looked up*/
+		private final int[] maskHashes;
+		/**
+		 * The length of the longest name in the subtree masks*/
+		private int maxMaskLength;
+		/**
+		 * The number of visible objects, or -1, if it is not counted yet*/
+		private int size = -1;
+		
+		/**
+		 * Creates new instance of Layered Map.
+		 * @param layers	 The objects of all layers
+		 * @param arrayMode	 How arrays of overrides are combined
+		 * @param objectMode How objects of overrides are combined*/
+		LayeredMap(Map<String, SSDObject>[] layers, Mode arrayMode, Mode objectMode) {
+			this.layers = layers;
+			// Only the overrides are indexed, nothing is hidden by the base
+			for(int layer = 1; layer < layers.length; layer++) {
+				// Whether all items of the arrays and objects have indexes
+				Map<String, Boolean> subtrees = new HashMap<>();
+				for(String name : layers[layer].keySet()) {
+					for(int index = name.indexOf('.'); index > 0;) {
+						int next = name.indexOf('.', index + 1);
+						boolean indexed = isIndex(name, index + 1, next < 0 ? name.length() : next);
+						subtrees.merge(name.substring(0, index), indexed, Boolean::logicalAnd);
+						index = next;
+					}
+				}
+				
+				for(Entry<String, Boolean> entry : subtrees.entrySet()) {
+					String name = entry.getKey();
+					valueMasks.put(name, layer);
+					if((entry.getValue() ? arrayMode : objectMode) == Mode.REPLACE)
+						mask(name, layer);
+				}
+				
+				// Values replace arrays and objects with the same name
+				for(String name : layers[layer].keySet())
+					mask(name, layer);
+			}
+			
+			maskHashes = subtreeMasks.keySet().stream()
+				.mapToInt(String::hashCode).distinct().sorted().toArray();
+		}
+		
+		/**
+		 * Hides the objects of the array or object with the given name
+		 * in the layers below the given layer.
+		 * @param name	The name of the array or object
+		 * @param layer The layer*/
+		private void mask(String name, int layer) {
+			subtreeMasks.put(name, layer);
+			maxMaskLength = Math.max(maxMaskLength, name.length());
+		}
+		
+		/**
+		 * Gets the lowest layer where the object with the given name
+		 * is visible.
+		 * @param name The object's name
+		 * @return The index of the layer*/
+		private int lowestLayer(String name) {
+			int lowest = 0;
+			if(!valueMasks.isEmpty()) {
+				Integer mask = valueMasks.get(name);
+				if(mask != null)
+					lowest = mask;
+			}
+			
+			if(maskHashes.length > 0) {
+				// The hash code of the name of the parent is computed
+				// the same way as by String.hashCode()
+				int hash = 0;
+				for(int i = 0, l = Math.min(name.length(), maxMaskLength + 1); i < l; i++) {
+					char c = name.charAt(i);
+					if(c == '.' && i > 0 && Arrays.binarySearch(maskHashes, hash) >= 0) {
+						Integer mask = subtreeMasks.get(name.substring(0, i));
+						if(mask != null && mask > lowest)
+							lowest = mask;
+					}
+					
+					hash = 31 * hash + c;
+				}
+			}
+			
+			return lowest;
+		}
+		
+		/**
+		 * Finds the object with the given name in the highest layer
+		 * that contains it.
+		 * @param name	 The object's name
+		 * @param lowest The lowest layer where to find the object
+		 * @return The object, or null, if it was not found*/
+		private SSDObject find(String name, int lowest) {
+			for(int i = layers.length-1; i >= lowest; i--) {
+				SSDObject object = layers[i].get(name);
+				if(object != null)
+					return object;
+			}
+			
+			return null;
+		}
+		
+		@Override
+		public SSDObject get(Object name) {
+			if(!(name instanceof String))
+				return null;
+			
+			String objectName = (String) name;
+			return find(objectName, layers.length == 1 ? 0 : lowestLayer(objectName));
+		}
+		
+		@Override
+		public boolean containsKey(Object name) {
+			return get(name) != null;
+		}
+		
+		@Override
+		public Set<Entry<String, SSDObject>> entrySet() {
+			return new AbstractSet<Entry<String, SSDObject>>() {
+				
+				@Override
+				public Iterator<Entry<String, SSDObject>> iterator() {
+					return new Iterator<Entry<String, SSDObject>>() {
+						
+						/**
+						 * The index of the current layer*/
+						private int layer;
+						/**
+						 * The iterator of the current layer*/
+						private Iterator<Entry<String, SSDObject>> it = layers[0].entrySet().iterator();
+						/**
+						 * The next entry, or null*/
+						private Entry<String, SSDObject> next = advance();
+						
+						/**
+						 * Finds the next visible object. Objects are returned
+						 * in the order of their first visible layer, with
+						 * the values of the highest layer.
+						 * @return The entry, or null, if there are no more objects*/
+						private Entry<String, SSDObject> advance() {
+							for(;;) {
+								next:
+								while(it.hasNext()) {
+									Entry<String, SSDObject> entry = it.next();
+									String name = entry.getKey();
+									if(layers.length > 1) {
+										int lowest = lowestLayer(name);
+										if(layer < lowest)
+											continue;
+										// Objects of lower layers were already returned
+										for(int i = lowest; i < layer; i++) {
+											if(layers[i].containsKey(name))
+												continue next;
+										}
+									}
+									
+									// The object can be overridden only by higher layers
+									SSDObject object = find(name, layer + 1);
+									return new SimpleImmutableEntry<>(name,
+										object != null ? object : entry.getValue());
+								}
+								
+								if(++layer >= layers.length)
+									return null;
+								it = layers[layer].entrySet().iterator();
+							}
+						}
+						
+						@Override
+						public boolean hasNext() {
+							return next != null;
+						}
+						
+						@Override
+						public Entry<String, SSDObject> next() {
+							if(next == null)
+								throw new NoSuchElementException();
+							Entry<String, SSDObject> entry = next;
+							next = advance();
+							return entry;
+						}
+					};
+				}
+				
+				@Override
+				public int size() {
+					// The names of all layers are fixed, so are the visible objects
+					if(size < 0) {
+						int count = 0;
+						for(Iterator<Entry<String, SSDObject>> it = iterator(); it.hasNext(); it.next())
+							count++;
+						size = count;
+					}
+					
+					return size;
+				}
+			};
+		}
+	}
+}
\ No newline at end of file
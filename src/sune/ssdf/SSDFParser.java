@@ -0,0 +1,1056 @@
+package sune.ssdf;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads SSDF Syntax in a single pass. The parser keeps its buffers
+ * between calls, so it can be reused to read many documents without
+ * allocating anything else than the read objects.<br><br>
+ * The parser is not thread-safe. Use one instance per thread.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFParser {
+	
+	/**
+	 * Opening object brackets*/
+	private static final char oOB = '{';
+	/**
+	 * Closing object brackets*/
+	private static final char cOB = '}';
+	/**
+	 * Opening array brackets*/
+	private static final char oAB = '[';
+	/**
+	 * Closing array brackets*/
+	private static final char cAB = ']';
+	/**
+	 * Name/value delimiter*/
+	private static final char nvd = ':';
+	/**
+	 * Items delimiter*/
+	private static final char itd = ',';
+	
+	/**
+	 * The maximum capacity of a scratch builder that
+	 * is kept between calls*/
+	private static final int MAX_RETAINED_CAPACITY = 65536;
+	
+	/**
+	 * Parsers of all threads*/
+	private static final ThreadLocal<SSDFParser> LOCAL
+		= ThreadLocal.withInitial(SSDFParser::new);
+	
+	/**
+	 * The lexer of the content*/
+	private final SSDFLexer lexer = new SSDFLexer();
+	
+	/**
+	 * The name of the current object*/
+	private StringBuilder path = new StringBuilder();
+	/**
+	 * The value of the current object*/
+	private StringBuilder value = new StringBuilder();
+	/**
+	 * The Map (list) of all read objects*/
+	private Map<String, SSDObject> objects;
+	
+	/**
+	 * The schema that is checked while reading, or null*/
+	private SSDFSchema schema;
+	/**
+	 * Whether required objects should be checked*/
+	private boolean checkRequired;
+	/**
+	 * The arena where the values are stored, or null*/
+	private SSDFArena arena;
+	/**
+	 * Whether strings should be kept as slices of the content*/
+	private boolean lazyStrings;
+	/**
+	 * The positions of values of the read objects, or null*/
+	private Map<String, SSDFSource.Span> spans;
+	/**
+	 * The value of the last read number, an integer or the bits
+	 * of a floating-point number*/
+	private long number;
+	
+	/**
+	 * The limits of the read content, or null*/
+	private SSDFLimits limits;
+	/**
+	 * The maximum nesting depth*/
+	private int maxDepth;
+	/**
+	 * The maximum length of strings, names and other values*/
+	private int maxStringLength;
+	/**
+	 * The maximum number of items*/
+	private int maxElementCount;
+	/**
+	 * The number of read items*/
+	private int elementCount;
+	
+	/**
+	 * The stack of arrays and objects being read, the frames
+	 * are reused*/
+	private final List<Frame> frames = new ArrayList<>();
+	/**
+	 * The estimated peak size of the memory used while reading
+	 * the last content*/
+	private long peakTransientBytes;
+	/**
+	 * The paths of objects that are read, or null*/
+	private SSDFProjection projection;
+	
+	/**
+	 * Creates new instance of SSDF Parser.*/
+	public SSDFParser() {
+		this(null);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Parser that checks the
+	 * read content against the given schema.
+	 * @param schema The schema, or null*/
+	public SSDFParser(SSDFSchema schema) {
+		this.schema = schema;
+	}
+	
+	/**
+	 * Gets the parser of the current thread, that is used by the other
+	 * classes of this package. The parser has the default settings,
+	 * the classes reset all the settings they change after their use.
+	 * @return The parser of the current thread*/
+	static SSDFParser local() {
+		return LOCAL.get();
+	}
+	
+	/**
+	 * Sets the schema that is checked while reading.
+	 * @param schema The schema, or null*/
+	public void setSchema(SSDFSchema schema) {
+		this.schema = schema;
+	}
+	
+	/**
+	 * Gets the schema that is checked while reading.
+	 * @return The schema, or null*/
+	public SSDFSchema getSchema() {
+		return schema;
+	}
+	
+	/**
+	 * Sets the arena where the values of strings and numbers are stored
+	 * while reading, instead of storing them on the heap.
+	 * @param arena The arena, or null
+	 * @since 1.2*/
+	public void setArena(SSDFArena arena) {
+		this.arena = arena;
+	}
+	
+	/**
+	 * Gets the arena where the values of strings and numbers are stored
+	 * while reading.
+	 * @return The arena, or null
+	 * @since 1.2*/
+	public SSDFArena getArena() {
+		return arena;
+	}
+	
+	/**
+	 * Sets whether the values of strings should be kept as slices of
+	 * the read content, instead of copying them. A slice is copied into
+	 * a string only when the object's value is requested. The slices
+	 * keep the whole content in memory, as long as any of the read
+	 * objects is used.<br><br>
+	 * Only a content given as a {@code String} can be sliced. Other
+	 * contents, and contents read while there is an arena, are read
+	 * as usual.
+	 * @param lazyStrings Whether strings should be kept as slices
+	 * @since 1.2*/
+	public void setLazyStrings(boolean lazyStrings) {
+		this.lazyStrings = lazyStrings;
+	}
+	
+	/**
+	 * Gets whether the values of strings are kept as slices of
+	 * the read content.
+	 * @return True, if strings are kept as slices, otherwise false
+	 * @since 1.2*/
+	public boolean isLazyStrings() {
+		return lazyStrings;
+	}
+	
+	/**
+	 * Sets the limits of the read content. When a limit is exceeded,
+	 * the reading stops with an {@link SSDFException}. The limits of
+	 * the depth and of the size of the content are checked by
+	 * the validation as well.
+	 * @param limits The limits, or null, if there are no limits
+	 * @since 1.2*/
+	public void setLimits(SSDFLimits limits) {
+		this.limits = limits;
+	}
+	
+	/**
+	 * Gets the limits of the read content.
+	 * @return The limits, or null
+	 * @since 1.2*/
+	public SSDFLimits getLimits() {
+		return limits;
+	}
+	
+	/**
+	 * Sets the paths of objects that should be read. All other objects
+	 * are skipped while reading, without creating their names and values.
+	 * @param projection The projection, or null, if all objects
+	 * 					 should be read
+	 * @since 1.2*/
+	public void setProjection(SSDFProjection projection) {
+		this.projection = projection;
+	}
+	
+	/**
+	 * Gets the paths of objects that are read.
+	 * @return The projection, or null
+	 * @since 1.2*/
+	public SSDFProjection getProjection() {
+		return projection;
+	}
+	
+	/**
+	 * Gets the estimated peak size of the memory used by the parser
+	 * while reading the last content, in addition to the memory retained
+	 * by the read objects. It contains the read buffer, the scratch
+	 * buffers of names and values, the stack of nested arrays and objects,
+	 * and the old table of the map of objects while it was being resized.
+	 * The content itself and the reader are not counted.<br><br>
+	 * The size is not measured, it is an estimate computed from the final
+	 * capacities of the buffers and the usual layout of objects
+	 * of a 64-bit JVM with compressed references, so the memory actually
+	 * used can differ.
+	 * @return The estimated size, in bytes, or zero, if no content
+	 * 		   was read yet
+	 * @since 1.2*/
+	public long getPeakTransientBytes() {
+		return peakTransientBytes;
+	}
+	
+	/**
+	 * Sets the map where the positions of values of the read objects
+	 * are put, or null, if the positions should not be remembered.
+	 * @param spans The map of the positions, or null*/
+	void setSpans(Map<String, SSDFSource.Span> spans) {
+		this.spans = spans;
+	}
+	
+	/**
+	 * Reads all objects from the given content.
+	 * @param content The content in SSDF Syntax
+	 * @return The main array of all read objects
+	 * @throws SSDFException When the content violates the schema*/
+	public SSDArray parse(CharSequence content) {
+		try {
+			return parse(content, null);
+		} catch(IOException ex) {
+			// Should not happen, no I/O is done
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * Reads all objects from the given reader. The reader is not closed.
+	 * @param reader The reader of the content in SSDF Syntax
+	 * @return The main array of all read objects
+	 * @throws IOException When the content cannot be read
+	 * @throws SSDFException When the content violates the schema*/
+	public SSDArray parse(Reader reader) throws IOException {
+		return parse(null, reader);
+	}
+	
+	/**
+	 * Checks that the given content is well-formed, without reading
+	 * any objects. Unlike reading, the check is strict: brackets must
+	 * be balanced, strings and comments terminated, every object must
+	 * have a name and every value must be valid. The schema is not used.
+	 * @param content The content in SSDF Syntax
+	 * @throws SSDFException When the content is not well-formed,
+	 * 		   it contains the position of the first error
+	 * @since 1.2*/
+	public void validate(CharSequence content) {
+		try {
+			validate(content, null);
+		} catch(IOException ex) {
+			// Should not happen, no I/O is done
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * Checks that the content of the given reader is well-formed,
+	 * without reading any objects. The reader is not closed.
+	 * @param reader The reader of the content in SSDF Syntax
+	 * @throws IOException When the content cannot be read
+	 * @throws SSDFException When the content is not well-formed,
+	 * 		   it contains the position of the first error
+	 * @see #validate(CharSequence)
+	 * @since 1.2*/
+	public void validate(Reader reader) throws IOException {
+		validate(null, reader);
+	}
+	
+	/**
+	 * Checks that the given char sequence or reader is well-formed.
+	 * @param content The char sequence, or null
+	 * @param reader  The reader, or null
+	 * @throws IOException When the content cannot be read*/
+	private void validate(CharSequence content, Reader reader) throws IOException {
+		begin(content, reader);
+		try {
+			validateDocument();
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Reads all objects from the given char sequence or reader.
+	 * @param content The char sequence, or null
+	 * @param reader  The reader, or null
+	 * @return The main array of all read objects
+	 * @throws IOException When the content cannot be read*/
+	private SSDArray parse(CharSequence content, Reader reader) throws IOException {
+		begin(content, reader);
+		SSDArray array = null;
+		try {
+			lexer.skip();
+			array = lexer.peek() == oOB ? parseNext() : new SSDArray();
+			return array;
+		} finally {
+			peakTransientBytes = estimateTransientSize(
+				array != null ? array.getObjects().size() : 0);
+			release();
+		}
+	}
+	
+	/**
+	 * Estimates the peak size of the memory used while reading,
+	 * that is not retained by the read objects.
+	 * @param size The number of read objects
+	 * @return The estimated size, in bytes*/
+	private long estimateTransientSize(int size) {
+		// The read buffer, the scratch builders and the stack of frames
+		long bytes = SSDFFootprint.sizeOfChars(SSDFLexer.BUFFER_SIZE, false)
+				+ 2L * SSDFFootprint.sizeOfObject(2)
+				+ SSDFFootprint.sizeOfChars(path.capacity(), true)
+				+ SSDFFootprint.sizeOfChars(value.capacity(), true)
+				+ frames.size() * SSDFFootprint.sizeOfObject(5);
+		// The old table of the map of objects, while it was resized last
+		long capacity = SSDFFootprint.tableCapacity(size);
+		if(capacity > 16L)
+			bytes += SSDFFootprint.sizeOfReferences(capacity / 2L);
+		return bytes;
+	}
+	
+	/**
+	 * Starts reading of the given char sequence or reader.
+	 * @param content The char sequence, or null
+	 * @param reader  The reader, or null*/
+	void begin(CharSequence content, Reader reader) {
+		this.checkRequired = schema != null && schema.hasRequired();
+		
+		SSDFLimits l		 = limits;
+		this.maxDepth		 = l != null ? l.getMaxDepth()		  : Integer.MAX_VALUE;
+		this.maxStringLength = l != null ? l.getMaxStringLength() : Integer.MAX_VALUE;
+		this.maxElementCount = l != null ? l.getMaxElementCount() : Integer.MAX_VALUE;
+		this.elementCount	 = 0;
+		lexer.begin(content, reader, l != null ? l.getMaxDocumentSize() : Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Reads the next top-level object of the content. All characters
+	 * before its opening brackets are skipped.
+	 * @return The array of all objects of the top-level object, or null,
+	 * 		   if there are no more objects
+	 * @throws IOException When the content cannot be read*/
+	SSDArray parseNext() throws IOException {
+		for(int c;;) {
+			lexer.skip();
+			if((c = lexer.peek()) < 0)
+				return null;
+			lexer.next();
+			if(c == oOB)
+				break;
+		}
+		
+		SSDArray array = new SSDArray();
+		objects = array.getObjects();
+		path.setLength(0);
+		try {
+			parseMembers(false);
+			return array;
+		} finally {
+			objects = null;
+		}
+	}
+	
+	/**
+	 * Ends reading of the current content.*/
+	void end() {
+		release();
+	}
+	
+	/**
+	 * Releases the read content and trims the scratch builders.*/
+	private void release() {
+		lexer.end();
+		objects = null;
+		
+		if(path.capacity() > MAX_RETAINED_CAPACITY)
+			path = new StringBuilder();
+		if(value.capacity() > MAX_RETAINED_CAPACITY)
+			value = new StringBuilder();
+	}
+	
+	/**
+	 * Reads all items of an object or an array, including all nested
+	 * arrays and objects. The opening brackets must already be read.
+	 * Nested arrays and objects are read without recursion, using
+	 * the stack of frames.
+	 * @param array If true, the items are in an array, otherwise
+	 * 				they are in an object
+	 * @throws IOException When the content cannot be read*/
+	private void parseMembers(boolean array) throws IOException {
+		int depth = 0;
+		Frame frame = push(depth++, array,
+			projection != null ? projection.roots() : SSDFProjection.ALL);
+		for(int c;;) {
+			boolean closed;
+			lexer.skip();
+			if((c = lexer.peek()) < 0) {
+				closed = true;
+			} else if(c == frame.close) {
+				lexer.next();
+				closed = true;
+			} else {
+				int mark = frame.mark;
+				if(mark > 0)
+					path.append('.');
+				if(frame.array) {
+					path.append(frame.index++);
+				} else if(!lexer.readName(path, maxStringLength)) {
+					// Skips an item without a name
+					path.setLength(mark);
+					if((c = lexer.peek()) >= 0 && c != frame.close)
+						lexer.next();
+					continue;
+				}
+		
+				SSDFProjection.Node[] nodes = frame.nodes;
+				if(nodes != SSDFProjection.ALL)
+					nodes = SSDFProjection.step(nodes, path, mark == 0 ? 0 : mark+1, path.length());
+				if(frame.names != null)
+					frame.names.add(path.substring(mark == 0 ? 0 : mark+1));
+				
+				if(nodes == null || (nodes != SSDFProjection.ALL && !isNested())) {
+					// Skips the item, neither it nor its items are projected
+					skipItem(frame.close);
+				} else {
+					if(++elementCount > maxElementCount)
+						throw lexer.violation("The content has more than " + maxElementCount + " items");
+					
+					int open = parseValue(frame.close);
+					if(open != 0) {
+						// The items of the nested array or object are read first
+						frame = push(depth++, open == oAB, nodes);
+						continue;
+					}
+				}
+				
+				closed = parseDelimiter(frame);
+			}
+			
+			// Finishes all the arrays and objects that were closed
+			while(closed) {
+				if(frame.names != null)
+					checkRequired(path.toString(), frame.names);
+				frame.names = null;
+				if(--depth == 0)
+					return;
+				frame  = frames.get(depth-1);
+				closed = parseDelimiter(frame);
+			}
+		}
+	}
+		
+	/**
+	 * Pushes a frame of an array or object to the stack.
+	 * @param depth The number of frames in the stack
+	 * @param array Whether the frame is of an array
+	 * @param nodes The nodes of the projection of the array or object
+	 * @return The frame*/
+	private Frame push(int depth, boolean array, SSDFProjection.Node[] nodes) {
+		if(depth >= maxDepth)
+			throw lexer.violation("The content is nested deeper than " + maxDepth + " levels");
+		
+		Frame frame;
+		if(depth < frames.size()) {
+			frame = frames.get(depth);
+		} else {
+			frames.add(frame = new Frame());
+		}
+		
+		frame.array = array;
+		frame.close = array ? cAB : cOB;
+		frame.mark	= path.length();
+		frame.index = 0;
+		frame.nodes = nodes;
+		// Names of the objects, used only for checking required objects
+		frame.names = checkRequired && !array ? new HashSet<>() : null;
+		return frame;
+	}
+	
+	/**
+	 * Reads the delimiter after an item of the given array or object.
+	 * @param frame The frame of the array or object
+	 * @return True, if the array or object was closed, otherwise false
+	 * @throws IOException When the content cannot be read*/
+	private boolean parseDelimiter(Frame frame) throws IOException {
+		path.setLength(frame.mark);
+		lexer.skip();
+		int c = lexer.peek();
+		if(c == itd) {
+			lexer.next();
+			return false;
+		}
+		if(c == frame.close) {
+			lexer.next();
+			return true;
+		}
+		
+		return c < 0;
+	}
+	
+	/**
+	 * Reads object's value, or the opening brackets of an array
+	 * or object.
+	 * @param close The closing brackets of the parent
+	 * @return The read opening brackets, or zero, if a value was read
+	 * @throws IOException When the content cannot be read*/
+	private int parseValue(char close) throws IOException {
+		lexer.skip();
+		int c = lexer.peek();
+		if(c == oOB || c == oAB) {
+			if(schema != null)
+				checkArray(path.toString());
+			lexer.next();
+			return c;
+		}
+		
+		long start	  = lexer.position();
+		long column	  = lexer.column();
+		int startLine = lexer.line();
+		
+		SSDType type;
+		SSDFSlice slice = null;
+		value.setLength(0);
+		if(c == '\"' || c == '\'') {
+			lexer.next();
+			if(lazyStrings && arena == null && lexer.content() instanceof String)
+				slice = sliceString(c);
+			else
+				parseString(c);
+			type = SSDType.STRING;
+		} else if((c >= '0' && c <= '9') || c == '-') {
+			type = parseNumber();
+		} else {
+			type = parseWord();
+		}
+		
+		if(value.length() > maxStringLength)
+			throw lexer.violation("A value is longer than " + maxStringLength + " characters");
+		
+		long end = lexer.position();
+		lexer.skipValue(close);
+		String name = path.toString();
+		if(schema != null)
+			checkObject(name, type, value, start, startLine, column);
+		SSDObject object = slice != null ? new SSDObject(name, type, slice)
+										 : newObject(name, type);
+		objects.put(name, object);
+		if(spans != null)
+			spans.put(name, new SSDFSource.Span(name, start, end, object));
+		return 0;
+	}
+	
+	/**
+	 * Creates an object with the current value. Words and empty values
+	 * are shared, other values are stored in the arena, if there is one.
+	 * @param name The object's name
+	 * @param type The object's type
+	 * @return The object*/
+	private SSDObject newObject(String name, SSDType type) {
+		String text;
+		if(type == SSDType.BOOLEAN)   text = value.length() == 4 ? "true" : "false";
+		else if(type == SSDType.NULL) text = "null";
+		else if(value.length() == 0)  text = "";
+		else if(arena != null)		  return new SSDObject(name, type, arena, arena.put(value));
+		else if(type == SSDType.INTEGER
+					|| type == SSDType.FLOAT) return new SSDObject(name, type, value.toString(), number);
+		else 						  text = value.toString();
+		
+		return new SSDObject(name, type, text, false);
+	}
+	
+	/**
+	 * Reads a quoted string. The opening quote must already be read.
+	 * @param quote The quote character
+	 * @throws IOException When the content cannot be read*/
+	private void parseString(int quote) throws IOException {
+		for(int c; (c = lexer.next()) >= 0;) {
+			if(c == '\\') {
+				// Escapes the next character
+				if((c = lexer.next()) < 0) break;
+			} else if(c == quote) {
+				break;
+			}
+			
+			if(value.length() >= maxStringLength)
+				throw lexer.violation("A string is longer than " + maxStringLength + " characters");
+			value.append((char) c);
+		}
+	}
+	
+	/**
+	 * Reads a quoted string without copying it. The opening quote
+	 * must already be read.
+	 * @param quote The quote character
+	 * @return The slice of the string, or null, if the string is empty
+	 * @throws IOException When the content cannot be read*/
+	private SSDFSlice sliceString(int quote) throws IOException {
+		int start		= (int) lexer.position();
+		boolean escaped = false;
+		int c;
+		while((c = lexer.next()) >= 0 && c != quote) {
+			if(c == '\\') {
+				escaped = true;
+				if(lexer.next() < 0) break;
+			}
+			if(lexer.position() - start > maxStringLength)
+				throw lexer.violation("A string is longer than " + maxStringLength + " characters");
+		}
+		
+		// The closing quote is not a part of the string
+		int end = (int) lexer.position() - (c == quote ? 1 : 0);
+		return end > start ? new SSDFSlice((String) lexer.content(), start, end, escaped) : null;
+	}
+	
+	/**
+	 * Reads a number. The number can be negative and can have
+	 * a fraction and an exponent. The value of the number is computed
+	 * from its digits, so that it does not have to be parsed again.
+	 * @return The type of the number
+	 * @throws IOException When the content cannot be read*/
+	private SSDType parseNumber() throws IOException {
+		if(!lexer.readNumber(value, maxStringLength)) {
+			// Not a number at all, e.g. a single minus sign
+			if(value.length() <= 1)
+				value.setLength(0);
+			return SSDType.UNDEFINED;
+		}
+		
+		boolean negative = value.charAt(0) == '-';
+		int i			 = negative ? 1 : 0;
+		int length		 = value.length();
+		
+		// At most 19 significant digits fit into the mantissa
+		long mantissa	  = 0L;
+		int significant	  = 0;
+		int exponent	  = 0;
+		boolean truncated = false;
+		
+		char c;
+		for(; i < length && (c = value.charAt(i)) >= '0' && c <= '9'; i++) {
+			if(mantissa == 0L && c == '0')
+				continue;
+			if(significant < 19) {
+				mantissa = mantissa * 10L + (c - '0');
+				significant++;
+			} else {
+				exponent++;
+				truncated |= c != '0';
+			}
+		}
+		
+		if(i == length) {
+			// Longer integers are parsed again when their values are requested
+			number = negative ? -mantissa : mantissa;
+			return SSDType.INTEGER;
+		}
+		
+		if(value.charAt(i) == '.') {
+			for(i++; i < length && (c = value.charAt(i)) >= '0' && c <= '9'; i++) {
+				if(mantissa == 0L && c == '0') {
+					exponent--;
+				} else if(significant < 19) {
+					mantissa = mantissa * 10L + (c - '0');
+					significant++;
+					exponent--;
+				} else {
+					truncated |= c != '0';
+				}
+			}
+		}
+		
+		if(i < length) {
+			// The exponent
+			boolean negativeExponent = (c = value.charAt(++i)) == '-';
+			if(c == '-' || c == '+')
+				i++;
+			
+			int exp = 0;
+			for(; i < length; i++) {
+				// Limit the exponent, larger values do not change the result
+				if(exp < 100000)
+					exp = exp * 10 + (value.charAt(i) - '0');
+			}
+			
+			exponent += negativeExponent ? -exp : exp;
+		}
+		
+		double result = truncated ? Double.NaN
+			: SSDFNumbers.toDouble(negative, mantissa, exponent);
+		if(Double.isNaN(result))
+			result = Double.parseDouble(value.toString());
+		number = Double.doubleToRawLongBits(result);
+		return SSDType.FLOAT;
+	}
+	
+	/**
+	 * Reads a special word (true, false or null).
+	 * @return The type of the word
+	 * @throws IOException When the content cannot be read*/
+	private SSDType parseWord() throws IOException {
+		lexer.readWord(value, maxStringLength);
+		
+		if(SSDFLexer.startsWith(value, "true"))  { value.setLength(4); return SSDType.BOOLEAN; }
+		if(SSDFLexer.startsWith(value, "false")) { value.setLength(5); return SSDType.BOOLEAN; }
+		if(SSDFLexer.startsWith(value, "null"))  { value.setLength(4); return SSDType.NULL; }
+		
+		value.setLength(0);
+		return SSDType.UNDEFINED;
+	}
+	
+	/**
+	 * Checks whether the next value is an array or object.
+	 * @return True, if the value starts with opening brackets,
+	 * 		   otherwise false
+	 * @throws IOException When the content cannot be read*/
+	private boolean isNested() throws IOException {
+		lexer.skip();
+		int c = lexer.peek();
+		return c == oOB || c == oAB;
+	}
+	
+	/**
+	 * Skips the value of an item without reading it. Arrays and objects
+	 * are skipped by matching their brackets, quoted strings and comments
+	 * are taken into account.
+	 * @param close The closing brackets of the parent
+	 * @throws IOException When the content cannot be read*/
+	private void skipItem(char close) throws IOException {
+		if(isNested()) {
+			int depth = 0;
+			// 0 = brackets, '#' = line comment, '*' = block comment,
+			// otherwise a quote of a string
+			int state = 0;
+			for(int c; (c = lexer.next()) >= 0;) {
+				if(state == 0) {
+					if(c == oOB || c == oAB) {
+						depth++;
+					} else if(c == cOB || c == cAB) {
+						if(--depth == 0)
+							break;
+					} else if(c == '\"' || c == '\'' || c == '#') {
+						state = c;
+					} else if(c == '/' && lexer.peek() == '*') {
+						lexer.next();
+						state = '*';
+					}
+				} else if(state == '#') {
+					if(c == '\n' || c == '\r')
+						state = 0;
+				} else if(state == '*') {
+					if(c == '*' && lexer.peek() == '/') {
+						lexer.next();
+						state = 0;
+					}
+				} else if(c == '\\') {
+					lexer.next();
+				} else if(c == state) {
+					state = 0;
+				}
+			}
+		}
+		
+		lexer.skipValue(close);
+	}
+	
+	/**
+	 * Checks the whole content. Nested arrays and objects are checked
+	 * without recursion, the stack of their closing brackets is kept
+	 * in the path builder.
+	 * @throws IOException When the content cannot be read*/
+	private void validateDocument() throws IOException {
+		skipStrict();
+		int c = lexer.peek();
+		// An empty content is read as an empty array
+		if(c < 0)
+			return;
+		if(c != oOB)
+			throw lexer.violation("Expected '" + oOB + "'");
+		lexer.next();
+		
+		StringBuilder closers = path;
+		closers.setLength(0);
+		closers.append(cOB);
+		while(closers.length() > 0) {
+			char close = closers.charAt(closers.length()-1);
+			skipStrict();
+			if((c = lexer.peek()) < 0)
+				throw lexer.violation("Unexpected end of the input, expected '" + close + "'");
+			
+			if(c == close) {
+				lexer.next();
+				closers.setLength(closers.length()-1);
+				if(closers.length() > 0)
+					validateDelimiter(closers.charAt(closers.length()-1));
+				continue;
+			}
+			
+			if(close == cOB)
+				validateName();
+			
+			skipStrict();
+			if((c = lexer.peek()) == oOB || c == oAB) {
+				if(closers.length() >= maxDepth)
+					throw lexer.violation("The content is nested deeper than " + maxDepth + " levels");
+				lexer.next();
+				closers.append(c == oOB ? cOB : cAB);
+				continue;
+			}
+			
+			validateValue();
+			validateDelimiter(close);
+		}
+		
+		skipStrict();
+		if(lexer.peek() >= 0)
+			throw lexer.violation("Unexpected content after the main object");
+	}
+	
+	/**
+	 * Checks that the current item is followed by the items delimiter,
+	 * or by the closing brackets of its parent. The delimiter is read.
+	 * @param close The closing brackets of the parent
+	 * @throws IOException When the content cannot be read*/
+	private void validateDelimiter(char close) throws IOException {
+		skipStrict();
+		int c = lexer.peek();
+		if(c == itd) {
+			lexer.next();
+		} else if(c != close) {
+			throw lexer.violation(c < 0
+				? "Unexpected end of the input, expected '" + close + "'"
+				: "Expected '" + itd + "' or '" + close + "'");
+		}
+	}
+	
+	/**
+	 * Checks object's name and reads it, including the name/value
+	 * delimiter. The name can be quoted.
+	 * @throws IOException When the content cannot be read*/
+	private void validateName() throws IOException {
+		int c = lexer.peek();
+		int quote = c == '\"' || c == '\'' ? c : 0;
+		if(quote != 0)
+			lexer.next();
+		
+		int length = 0;
+		while(SSDFLexer.isNameChar(c = lexer.peek())) {
+			lexer.next();
+			length++;
+		}
+		
+		if(length == 0)
+			throw lexer.violation("Expected a name");
+		if(quote != 0) {
+			if(c != quote)
+				throw lexer.violation("Expected " + (char) quote);
+			lexer.next();
+		}
+		
+		skipStrict();
+		if(lexer.peek() != nvd)
+			throw lexer.violation("Expected '" + nvd + "'");
+		lexer.next();
+	}
+	
+	/**
+	 * Checks a value (string, number, or a special word) and reads it.
+	 * @throws IOException When the content cannot be read*/
+	private void validateValue() throws IOException {
+		long start	  = lexer.position();
+		int startLine = lexer.line();
+		long column	  = lexer.column();
+		
+		int c = lexer.peek();
+		if(c == '\"' || c == '\'') {
+			lexer.next();
+			for(int quote = c;;) {
+				if((c = lexer.next()) < 0 || (c == '\\' && lexer.next() < 0))
+					throw new SSDFException("Unterminated string", start, startLine, column);
+				if(c == quote)
+					return;
+			}
+		}
+		
+		if((c >= '0' && c <= '9') || c == '-') {
+			if(c == '-')
+				lexer.next();
+			validateDigits();
+			if((c = lexer.peek()) == '.') {
+				lexer.next();
+				validateDigits();
+				c = lexer.peek();
+			}
+			if(c == 'e' || c == 'E') {
+				lexer.next();
+				if((c = lexer.peek()) == '+' || c == '-')
+					lexer.next();
+				validateDigits();
+				c = lexer.peek();
+			}
+			
+			if(SSDFLexer.isNameChar(c) || c == '.')
+				throw lexer.violation("Invalid number");
+			return;
+		}
+		
+		if(!SSDFLexer.isNameChar(c))
+			throw lexer.violation("Expected a value");
+		
+		value.setLength(0);
+		while(SSDFLexer.isNameChar(c = lexer.peek()))
+			value.append((char) lexer.next());
+		
+		String word = value.toString();
+		if(!word.equals("true") && !word.equals("false") && !word.equals("null"))
+			throw new SSDFException("Invalid value '" + word + "'", start, startLine, column);
+	}
+	
+	/**
+	 * Checks and reads a non-empty sequence of digits.
+	 * @throws IOException When the content cannot be read*/
+	private void validateDigits() throws IOException {
+		int c = lexer.peek();
+		if(c < '0' || c > '9')
+			throw lexer.violation("Invalid number");
+		while((c = lexer.peek()) >= '0' && c <= '9')
+			lexer.next();
+	}
+	
+	/**
+	 * Skips all spaces, breaks (line delimiters) and comments. Unlike
+	 * {@link #lexer.skip()}, a block comment must be terminated.
+	 * @throws IOException When the content cannot be read*/
+	private void skipStrict() throws IOException {
+		for(int c; (c = lexer.peek()) >= 0;) {
+			if(c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				lexer.next();
+			} else if(c == '#') {
+				while((c = lexer.peek()) >= 0 && c != '\n' && c != '\r')
+					lexer.next();
+			} else if(c == '/' && lexer.peekNext() == '*') {
+				long start	  = lexer.position();
+				int startLine = lexer.line();
+				long column	  = lexer.column();
+				lexer.next();
+				lexer.next();
+				while((c = lexer.next()) >= 0 && !(c == '*' && lexer.peek() == '/'));
+				if(lexer.next() < 0)
+					throw new SSDFException("Unterminated comment", start, startLine, column);
+			} else {
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Checks the object against the schema.
+	 * @param name 	 The object's name
+	 * @param type 	 The object's type
+	 * @param value	 The object's value
+	 * @param start	 The position of the value in the content
+	 * @param line	 The line of the value
+	 * @param column The column of the value*/
+	private void checkObject(String name, SSDType type, CharSequence value,
+			long start, int line, long column) {
+		String message = schema.checkObject(name, type, value);
+		if(message != null)
+			throw new SSDFException(message, start, line, column);
+	}
+	
+	/**
+	 * Checks the array or object with the given name against the schema.
+	 * @param name The name of the array or object*/
+	private void checkArray(String name) {
+		String message = schema.checkArray(name);
+		if(message != null)
+			throw lexer.violation(message);
+	}
+	
+	/**
+	 * Checks that the object with the given name contains all the required
+	 * objects defined by the schema.
+	 * @param name  The object's name
+	 * @param names The names of all objects in the object*/
+	private void checkRequired(String name, Set<String> names) {
+		String message = schema.checkRequired(name, names);
+		if(message != null)
+			throw lexer.violation(message);
+	}
+	
+	/**
+	 * Represents an array or object that is being read.
+	 * @author Sune*/
+	private static final class Frame {
+		
+		/**
+		 * Whether the items are in an array*/
+		boolean array;
+		/**
+		 * The closing brackets*/
+		char close;
+		/**
+		 * The length of the path of the array or object*/
+		int mark;
+		/**
+		 * The index of the next item of an array*/
+		int index;
+		/**
+		 * Names of the objects, used only for checking required objects*/
+		Set<String> names;
+		/**
+		 * The nodes of the projection, {@link SSDFProjection#ALL},
+		 * if all items are read*/
+		SSDFProjection.Node[] nodes;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,200 @@
+package sune.ssdf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Paths of objects that should be read from a content, all other objects
+ * are skipped without being read. Each path is a name of an object, array
+ * or item, where a part of the name can be replaced by an asterisk (*),
+ * which matches any name or index, e.g. {@code db.*} or
+ * {@code servers.*.host}. All objects in a matched array or object are
+ * read as well.<br><br>
+ * Skipped arrays and objects are not checked by the schema and their
+ * items are not counted by the limits, except for the size of the content.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFProjection {
+	
+	/**
+	 * The nodes of an array or object, whose all objects are read*/
+	static final Node[] ALL = new Node[0];
+	
+	/**
+	 * The paths*/
+	private final List<String> paths;
+	/**
+	 * The nodes of the main object*/
+	private final Node[] roots;
+	
+	/**
+	 * Creates new instance of SSDF Projection.
+	 * @param paths The paths
+	 * @param root	The node of the main object*/
+	private SSDFProjection(List<String> paths, Node root) {
+		this.paths = paths;
+		this.roots = new Node[] { root };
+	}
+	
+	/**
+	 * Creates a projection of the given paths.
+	 * @param paths The paths of objects that should be read
+	 * @return The projection
+	 * @throws IllegalArgumentException If a path is null, empty or contains
+	 * 		   an empty part*/
+	public static SSDFProjection of(String... paths) {
+		Node root = new Node();
+		for(String path : paths) {
+			if(path == null || path.isEmpty())
+				throw new IllegalArgumentException("Path cannot be null or empty");
+			
+			Node node = root;
+			for(String part : path.split("\\.", -1)) {
+				if(part.isEmpty())
+					throw new IllegalArgumentException("Path '" + path + "' contains an empty part");
+				node = node.child(part);
+			}
+			
+			node.terminal = true;
+		}
+		
+		return new SSDFProjection(Collections.unmodifiableList(
+			new ArrayList<>(Arrays.asList(paths))), root);
+	}
+	
+	/**
+	 * Checks whether the object with the given name would be read.
+	 * @param name The full name of the object
+	 * @return True, if the object matches a path, otherwise false*/
+	public boolean matches(String name) {
+		Node[] nodes = roots;
+		for(int start = 0; nodes != ALL;) {
+			int end = name.indexOf('.', start);
+			if(end < 0)
+				end = name.length();
+			if((nodes = step(nodes, name, start, end)) == null)
+				return false;
+			start = end + 1;
+			if(start > name.length())
+				return nodes == ALL;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the paths of the projection.
+	 * @return The unmodifiable List of the paths*/
+	public List<String> getPaths() {
+		return paths;
+	}
+	
+	/**
+	 * Gets the nodes of the main object.
+	 * @return The nodes*/
+	Node[] roots() {
+		return roots;
+	}
+	
+	/**
+	 * Gets the nodes of an item of an array or object with the given nodes.
+	 * @param nodes The nodes of the array or object
+	 * @param path	The path containing the item's name
+	 * @param start The start of the item's name, inclusive
+	 * @param end	The end of the item's name, exclusive
+	 * @return {@link #ALL}, if the item matches a path, the nodes of the item,
+	 * 		   if items of the item can match a path, otherwise null*/
+	static Node[] step(Node[] nodes, CharSequence path, int start, int end) {
+		Node[] next = null;
+		int count	= 0;
+		for(Node node : nodes) {
+			Node child = node.find(path, start, end);
+			for(int i = 0; i < 2; i++, child = node.any) {
+				if(child == null)
+					continue;
+				if(child.terminal)
+					return ALL;
+				if(next == null)
+					next = new Node[2 * nodes.length];
+				next[count++] = child;
+			}
+		}
+		
+		return next == null || count == next.length ? next : Arrays.copyOf(next, count);
+	}
+	
+	/**
+	 * Called when the projection should be converted
+	 * into a string.
+	 * @return The string of the projection*/
+	@Override
+	public String toString() {
+		return paths.toString();
+	}
+	
+	/**
+	 * Part of a path, with all the parts that follow it.
+	 * @author Sune*/
+	static final class Node {
+		
+		/**
+		 * The names of the following parts*/
+		private String[] names = new String[0];
+		/**
+		 * The following parts, by their names*/
+		private Node[] children = new Node[0];
+		/**
+		 * The following part matching any name, or null*/
+		private Node any;
+		/**
+		 * Whether a path ends with this part*/
+		private boolean terminal;
+		
+		/**
+		 * Gets the following part with the given name, or creates it.
+		 * @param name The name, or an asterisk
+		 * @return The part*/
+		Node child(String name) {
+			if(name.equals("*"))
+				return any != null ? any : (any = new Node());
+			
+			for(int i = 0; i < names.length; i++) {
+				if(names[i].equals(name))
+					return children[i];
+			}
+			
+			Node child = new Node();
+			names	 = Arrays.copyOf(names, names.length + 1);
+			children = Arrays.copyOf(children, children.length + 1);
+			names[names.length-1]		= name;
+			children[children.length-1] = child;
+			return child;
+		}
+		
+		/**
+		 * Finds the following part with the given name.
+		 * @param path	The path containing the name
+		 * @param start The start of the name, inclusive
+		 * @param end	The end of the name, exclusive
+		 * @return The part, or null, if there is no such part*/
+		Node find(CharSequence path, int start, int end) {
+			int length = end - start;
+			next:
+			for(int i = 0; i < names.length; i++) {
+				String name = names[i];
+				if(name.length() != length)
+					continue;
+				for(int k = 0; k < length; k++) {
+					if(name.charAt(k) != path.charAt(start + k))
+						continue next;
+				}
+				
+				return children[i];
+			}
+			
+			return null;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package sune.ssdf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a sequence of top-level SSDF objects (records) from a single
+ * content, e.g. a file with one object per line. Any characters between
+ * the records, such as line breaks or commas, are skipped.<br><br>
+ * All the records are read by the same parser, so its buffers are reused
+ * and the content is read only once. The reader is not thread-safe.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFRecordReader implements Iterator<SSDArray>, Closeable {
+	
+	/**
+	 * The parser of all the records*/
+	private final SSDFParser parser;
+	/**
+	 * The reader of the content, or null*/
+	private final Reader reader;
+	
+	/**
+	 * The next record, if it is already read*/
+	private SSDArray nextRecord;
+	/**
+	 * Whether all the records were read*/
+	private boolean done;
+	
+	/**
+	 * Creates new instance of SSDF Record Reader.
+	 * @param content The content containing the records*/
+	public SSDFRecordReader(CharSequence content) {
+		this(content, null, null);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Record Reader.
+	 * @param reader The reader of the content containing the records*/
+	public SSDFRecordReader(Reader reader) {
+		this(null, reader, null);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Record Reader that checks
+	 * every record against the given schema.
+	 * @param reader The reader of the content containing the records
+	 * @param schema The schema, or null*/
+	public SSDFRecordReader(Reader reader, SSDFSchema schema) {
+		this(null, reader, schema);
+	}
+	
+	/**
+	 * Creates new instance of SSDF Record Reader.
+	 * @param content The content, or null
+	 * @param reader  The reader, or null
+	 * @param schema  The schema, or null*/
+	private SSDFRecordReader(CharSequence content, Reader reader, SSDFSchema schema) {
+		this.parser = new SSDFParser(schema);
+		this.reader = reader;
+		parser.begin(content, reader);
+	}
+	
+	/**
+	 * Checks if there is a next record.
+	 * @return True, if there is a next record, otherwise false
+	 * @throws UncheckedIOException When the content cannot be read*/
+	@Override
+	public boolean hasNext() {
+		if(nextRecord != null)
+			return true;
+		if(done)
+			return false;
+		
+		try {
+			nextRecord = parser.parseNext();
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		
+		if(nextRecord == null) {
+			done = true;
+			parser.end();
+		}
+		
+		return nextRecord != null;
+	}
+	
+	/**
+	 * Reads the next record.
+	 * @return The array of all objects of the record
+	 * @throws NoSuchElementException When there are no more records
+	 * @throws UncheckedIOException When the content cannot be read*/
+	@Override
+	public SSDArray next() {
+		if(!hasNext())
+			throw new NoSuchElementException("There are no more records");
+		
+		SSDArray record = nextRecord;
+		nextRecord = null;
+		return record;
+	}
+	
+	/**
+	 * Reads at most the given number of next records.
+	 * @param count The maximum number of records
+	 * @return The list of read records, it is empty when
+	 * 		   there are no more records
+	 * @throws UncheckedIOException When the content cannot be read*/
+	public List<SSDArray> nextBatch(int count) {
+		List<SSDArray> batch = new ArrayList<>(Math.min(count, 1024));
+		while(batch.size() < count && hasNext())
+			batch.add(next());
+		return batch;
+	}
+	
+	/**
+	 * Gets a sequential stream of the remaining records. Closing
+	 * the stream closes this reader.
+	 * @return The stream of records*/
+	public Stream<SSDArray> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+			Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						close();
+					} catch(IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+	}
+	
+	/**
+	 * Closes the reader of the content.
+	 * @throws IOException When the reader cannot be closed*/
+	@Override
+	public void close() throws IOException {
+		if(!done) {
+			done 	   = true;
+			nextRecord = null;
+			parser.end();
+		}
+		
+		if(reader != null)
+			reader.close();
+	}
+}
\ No newline at end of file
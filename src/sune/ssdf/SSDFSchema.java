@@ -0,0 +1,268 @@
+package sune.ssdf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes the expected structure of SSD File. It contains
+ * the expected types of objects, required objects and allowed
+ * ranges of numbers. The schema is checked by SSDF Core while
+ * the content is being read, so the first violation is reported
+ * immediately.<br><br>
+ * Paths of the schema are names of objects, where the segment
+ * <code>*</code> matches any single segment, e.g.
+ * <code>servers.*.port</code> matches the port of every item
+ * of the servers array.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFSchema {
+	
+	/**
+	 * The wildcard segment*/
+	private static final String WILDCARD = "*";
+	
+	/**
+	 * Rules of paths without wildcards*/
+	private final Map<String, Rule> rules = new HashMap<>();
+	/**
+	 * Rules of paths with wildcards*/
+	private final List<Rule> wildcardRules = new ArrayList<>();
+	
+	/**
+	 * Sets the expected type of the object at the given path.
+	 * @param path The object's path
+	 * @param type The expected type*/
+	public void setType(String path, SSDType type) {
+		rule(path).type = type;
+	}
+	
+	/**
+	 * Sets the expected type of all items of the array at
+	 * the given path.
+	 * @param path The array's path
+	 * @param type The expected type of the items*/
+	public void setElementType(String path, SSDType type) {
+		setType(path + "." + WILDCARD, type);
+	}
+	
+	/**
+	 * Sets the allowed range of the number object at the given path.
+	 * Both bounds are inclusive.
+	 * @param path The object's path
+	 * @param min  The minimum value
+	 * @param max  The maximum value*/
+	public void setRange(String path, double min, double max) {
+		Rule rule = rule(path);
+		rule.min  = min;
+		rule.max  = max;
+	}
+	
+	/**
+	 * Sets the object (or array) at the given path as required.
+	 * It is checked in every parent object that is present.
+	 * @param path The object's path*/
+	public void setRequired(String path) {
+		int index = path.lastIndexOf('.');
+		rule(index < 0 ? "" : path.substring(0, index))
+			.required.add(path.substring(index + 1));
+	}
+	
+	/**
+	 * Gets the rule of the given path, creates the rule if
+	 * it does not exist yet.
+	 * @param path The path
+	 * @return The rule of the path*/
+	private Rule rule(String path) {
+		Rule rule = rules.get(path);
+		if(rule == null) {
+			for(Rule r : wildcardRules) {
+				if(r.path.equals(path))
+					return r;
+			}
+			
+			String[] segments = path.isEmpty() ? new String[0] : path.split("\\.");
+			rule = new Rule(path, segments);
+			boolean wildcard = false;
+			for(String segment : segments) {
+				if(segment.equals(WILDCARD))
+					wildcard = true;
+			}
+			
+			if(wildcard) wildcardRules.add(rule);
+			else 		 rules.put(path, rule);
+		}
+		
+		return rule;
+	}
+	
+	/**
+	 * Finds the rule matching the given object's name.
+	 * @param name The object's name
+	 * @return The rule, or null, if no rule matches*/
+	Rule find(String name) {
+		Rule rule = rules.get(name);
+		if(rule != null)
+			return rule;
+		
+		for(Rule r : wildcardRules) {
+			if(r.matches(name))
+				return r;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Checks if there is at least one required object.
+	 * @return True, if the schema has required objects, otherwise false*/
+	boolean hasRequired() {
+		for(Rule rule : rules.values()) {
+			if(!rule.required.isEmpty()) return true;
+		}
+		for(Rule rule : wildcardRules) {
+			if(!rule.required.isEmpty()) return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Checks the object with the given name, type and value.
+	 * @param name	The object's name
+	 * @param type	The object's type
+	 * @param value The object's value
+	 * @return The message of the violation, or null, if the object
+	 * 		   is valid*/
+	String checkObject(String name, SSDType type, CharSequence value) {
+		Rule rule = find(name);
+		if(rule == null)
+			return null;
+		
+		if(rule.type != null && rule.type != type && rule.type != SSDType.UNDEFINED)
+			return "The object '" + name + "' is not of type " + rule.type;
+		
+		if(rule.hasRange()) {
+			if(type != SSDType.INTEGER && type != SSDType.FLOAT)
+				return "The object '" + name + "' is not a number";
+			if(!rule.inRange(Double.parseDouble(value.toString())))
+				return "The object '" + name + "' is out of range ["
+					+ rule.min + ", " + rule.max + "]";
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Checks the array or object with the given name. An array
+	 * or object violates every rule with a type.
+	 * @param name The name of the array or object
+	 * @return The message of the violation, or null, if the array
+	 * 		   or object is valid*/
+	String checkArray(String name) {
+		Rule rule = find(name);
+		return rule != null && rule.type != null
+					? "The object '" + name + "' is not of type " + rule.type
+					: null;
+	}
+	
+	/**
+	 * Checks that the object with the given name contains all
+	 * the required objects.
+	 * @param name	The object's name
+	 * @param names The names of all objects in the object
+	 * @return The message of the violation, or null, if all
+	 * 		   the required objects are present*/
+	String checkRequired(String name, Set<String> names) {
+		Rule rule = find(name);
+		if(rule == null)
+			return null;
+		
+		for(String required : rule.required) {
+			if(!names.contains(required))
+				return "The object '" + name + (name.isEmpty() ? "" : ".")
+					+ required + "' is required";
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Represents a rule of a single path.
+	 * @author Sune*/
+	static final class Rule {
+		
+		/**
+		 * The path*/
+		final String path;
+		/**
+		 * The segments of the path*/
+		final String[] segments;
+		/**
+		 * Names of required objects in the object at the path*/
+		final List<String> required = new ArrayList<>();
+		
+		/**
+		 * The expected type, or null, if any type is allowed*/
+		SSDType type;
+		/**
+		 * The minimum number value*/
+		double min = Double.NEGATIVE_INFINITY;
+		/**
+		 * The maximum number value*/
+		double max = Double.POSITIVE_INFINITY;
+		
+		/**
+		 * Creates new instance of Rule.
+		 * @param path	   The path
+		 * @param segments The segments of the path*/
+		Rule(String path, String[] segments) {
+			this.path	  = path;
+			this.segments = segments;
+		}
+		
+		/**
+		 * Checks whether the given object's name matches
+		 * the path of this rule.
+		 * @param name The object's name
+		 * @return True, if the name matches, otherwise false*/
+		boolean matches(String name) {
+			int start = 0;
+			int length = name.length();
+			for(int i = 0; i < segments.length; i++) {
+				if(start > length)
+					return false;
+				
+				int end = name.indexOf('.', start);
+				if(end < 0) end = length;
+				
+				String segment = segments[i];
+				if(!segment.equals(WILDCARD)
+						&& (segment.length() != end - start
+								|| !name.regionMatches(start, segment, 0, end - start)))
+					return false;
+				
+				start = end + 1;
+			}
+			
+			return start == length + 1 || (segments.length == 0 && length == 0);
+		}
+		
+		/**
+		 * Checks whether the given number is in the allowed range.
+		 * @param value The number
+		 * @return True, if the number is in the range, otherwise false*/
+		boolean inRange(double value) {
+			return value >= min && value <= max;
+		}
+		
+		/**
+		 * Checks whether the rule has a range.
+		 * @return True, if the rule has a range, otherwise false*/
+		boolean hasRange() {
+			return min != Double.NEGATIVE_INFINITY || max != Double.POSITIVE_INFINITY;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package sune.ssdf;
+
+/**
+ * Represents a string value as a part of the source content it was
+ * read from. The value is unescaped and copied into a string only when
+ * it is needed for the first time, the string is then cached.<br><br>
+ * The slice keeps the whole source content in memory.
+ * @author Sune
+ * @since 1.2*/
+final class SSDFSlice implements CharSequence {
+	
+	/**
+	 * The source content*/
+	private final String source;
+	/**
+	 * The start of the value in the source content, inclusive*/
+	private final int start;
+	/**
+	 * The end of the value in the source content, exclusive*/
+	private final int end;
+	/**
+	 * Whether the value contains escaped characters*/
+	private final boolean escaped;
+	
+	/**
+	 * The cached string of the value, or null*/
+	private String value;
+	
+	/**
+	 * Creates new instance of SSDF Slice.
+	 * @param source  The source content
+	 * @param start	  The start of the value, inclusive
+	 * @param end	  The end of the value, exclusive
+	 * @param escaped Whether the value contains escaped characters*/
+	SSDFSlice(String source, int start, int end, boolean escaped) {
+		this.source	 = source;
+		this.start	 = start;
+		this.end	 = end;
+		this.escaped = escaped;
+	}
+	
+	/**
+	 * Gets the length of the value.
+	 * @return The number of characters of the value*/
+	@Override
+	public int length() {
+		return escaped ? toString().length() : end - start;
+	}
+	
+	/**
+	 * Gets the character of the value at the given index.
+	 * @param index The index
+	 * @return The character*/
+	@Override
+	public char charAt(int index) {
+		if(escaped)
+			return toString().charAt(index);
+		if(index < 0 || index >= end - start)
+			throw new IndexOutOfBoundsException("Index: " + index);
+		return source.charAt(start + index);
+	}
+	
+	/**
+	 * Gets a part of the value. The part is not copied, unless
+	 * the value contains escaped characters.
+	 * @param from The start of the part, inclusive
+	 * @param to   The end of the part, exclusive
+	 * @return The part of the value*/
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		if(escaped)
+			return toString().subSequence(from, to);
+		if(from < 0 || to > end - start || from > to)
+			throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ")");
+		return new SSDFSlice(source, start + from, start + to, false);
+	}
+	
+	/**
+	 * Gets the value as a string. The value is unescaped, if needed.
+	 * @return The string of the value*/
+	@Override
+	public String toString() {
+		String string = value;
+		if(string == null)
+			value = string = escaped ? unescape() : source.substring(start, end);
+		return string;
+	}
+	
+	/**
+	 * Gets the source content.
+	 * @return The source content*/
+	String source() {
+		return source;
+	}
+	
+	/**
+	 * Estimates the size of the slice, including its cached string,
+	 * but without the source content.
+	 * @return The estimated size, in bytes*/
+	long estimateSize() {
+		String string = value;
+		return SSDFFootprint.sizeOfObject(5)
+					+ (string != null ? SSDFFootprint.sizeOf(string) : 0L);
+	}
+	
+	/**
+	 * Removes the escaping backslashes from the value.
+	 * @return The unescaped value*/
+	private String unescape() {
+		StringBuilder sb = new StringBuilder(end - start);
+		for(int i = start; i < end; i++) {
+			char c = source.charAt(i);
+			if(c == '\\') {
+				// Escapes the next character
+				if(++i >= end) break;
+				c = source.charAt(i);
+			}
+			
+			sb.append(c);
+		}
+		
+		return sb.toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,316 @@
+package sune.ssdf;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Remembers where the values of objects are in the SSD File they were
+ * read from, so that the file can be saved by replacing only the values
+ * that were changed. Everything else, including comments, whitespace
+ * and the order of objects, is copied from the file as it is, without
+ * being decoded.<br><br>
+ * Only changes of values of existing objects can be saved this way.
+ * When objects are added or removed, or the file was changed since it
+ * was read, the whole content has to be written instead.
+ * @author Sune
+ * @since 1.2*/
+final class SSDFSource {
+	
+	/**
+	 * The file the objects were read from*/
+	private Path file;
+	/**
+	 * The size of the file when it was read, in bytes*/
+	private long size;
+	/**
+	 * The time of the last modification of the file when it was read*/
+	private FileTime lastModified;
+	/**
+	 * Whether the file contains only ASCII characters, so that
+	 * the positions of characters and bytes are the same*/
+	private boolean ascii;
+	/**
+	 * The positions of values of all read objects, or null,
+	 * if the file is compressed*/
+	private Map<String, Span> spans;
+	
+	/**
+	 * Creates new instance of SSDF Source.
+	 * @param file The file to read*/
+	SSDFSource(Path file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Reads all objects from the file and remembers the positions
+	 * of their values. The positions are not remembered, if the file
+	 * is compressed.
+	 * @return The main array of all read objects
+	 * @throws IOException When the file cannot be read*/
+	SSDArray read() throws IOException {
+		size		 = Files.size(file);
+		lastModified = Files.getLastModifiedTime(file);
+		ascii		 = true;
+		spans		 = new HashMap<>();
+		
+		SSDFParser parser = SSDFParser.local();
+		try(InputStream stream = new AsciiInputStream(Files.newInputStream(file))) {
+			InputStream in = SSDFCompression.decompress(stream);
+			if(in instanceof InflaterInputStream)
+				spans = null;
+			
+			try(Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+				parser.setSpans(spans);
+				return parser.parse(reader);
+			}
+		} finally {
+			parser.setSpans(null);
+		}
+	}
+	
+	/**
+	 * Saves the given objects to the given file by replacing only
+	 * the changed values in the content of the read file.
+	 * @param objects The Map (list) of all objects
+	 * @param target  The file where to save the content, it can be
+	 * 				  the read file itself
+	 * @return True, if the content was saved, false, if the whole content
+	 * 		   has to be written instead
+	 * @throws IOException When the file cannot be written*/
+	boolean save(Map<String, SSDObject> objects, Path target) throws IOException {
+		if(spans == null || objects.size() != spans.size()
+				|| SSDFCompression.forFileName(target.getFileName().toString())
+						!= SSDFCompression.NONE
+				|| !Files.exists(file)
+				|| Files.size(file) != size
+				|| !Files.getLastModifiedTime(file).equals(lastModified))
+			return false;
+		
+		List<Span> changed = new ArrayList<>();
+		for(Entry<String, SSDObject> entry : objects.entrySet()) {
+			Span span = spans.get(entry.getKey());
+			if(span == null)
+				return false;
+			if(span.object != entry.getValue())
+				changed.add(span);
+		}
+		
+		if(changed.isEmpty() && Files.exists(target) && Files.isSameFile(file, target))
+			return true;
+		
+		changed.sort((a, b) -> Long.compare(a.start, b.start));
+		long[] offsets = byteOffsets(changed);
+		
+		List<String> values = new ArrayList<>(changed.size());
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try(FileChannel in  = FileChannel.open(file, StandardOpenOption.READ);
+			FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = 0L;
+			for(int i = 0, l = changed.size(); i < l; i++) {
+				Span span = changed.get(i);
+				transfer(in, position, offsets[2*i] - position, out);
+				
+				StringBuilder sb = new StringBuilder();
+				SSDFWriter.appendValue(sb, objects.get(span.name));
+				String value = sb.toString();
+				ByteBuffer bytes = StandardCharsets.UTF_8.encode(value);
+				while(bytes.hasRemaining())
+					out.write(bytes);
+				
+				values.add(value);
+				position = offsets[2*i+1];
+			}
+			
+			transfer(in, position, in.size() - position, out);
+			out.force(false);
+		}
+		
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+		update(objects, changed, values, target);
+		return true;
+	}
+	
+	/**
+	 * Copies the given range of bytes between the given files.
+	 * @param in	   The source file
+	 * @param position The position of the range
+	 * @param count	   The number of bytes
+	 * @param out	   The target file
+	 * @throws IOException When the bytes cannot be copied*/
+	private static void transfer(FileChannel in, long position, long count, FileChannel out)
+			throws IOException {
+		while(count > 0L) {
+			long transferred = in.transferTo(position, count, out);
+			if(transferred <= 0L)
+				throw new IOException("The file was truncated");
+			position += transferred;
+			count	 -= transferred;
+		}
+	}
+	
+	/**
+	 * Converts the positions of the given values from characters
+	 * to bytes of the read file.
+	 * @param changed The values, sorted by their positions
+	 * @return The start and the end of each value, in bytes
+	 * @throws IOException When the file cannot be read*/
+	private long[] byteOffsets(List<Span> changed) throws IOException {
+		long[] offsets = new long[2 * changed.size()];
+		for(int i = 0, l = changed.size(); i < l; i++) {
+			offsets[2*i]   = changed.get(i).start;
+			offsets[2*i+1] = changed.get(i).end;
+		}
+		
+		if(ascii || offsets.length == 0)
+			return offsets;
+		
+		// Count the characters of the UTF-8 content, only the first
+		// bytes of characters are counted, 4-byte characters are
+		// decoded as two characters (a surrogate pair)
+		try(InputStream stream = Files.newInputStream(file)) {
+			byte[] buffer = new byte[65536];
+			long bytes = 0L, chars = 0L;
+			int index  = 0;
+			for(int read; (read = stream.read(buffer)) > 0;) {
+				for(int i = 0; i < read; i++, bytes++) {
+					int b = buffer[i];
+					if((b & 0xc0) == 0x80)
+						continue;
+					while(index < offsets.length && offsets[index] <= chars)
+						offsets[index++] = bytes;
+					if(index == offsets.length)
+						return offsets;
+					chars += (b & 0xf8) == 0xf0 ? 2 : 1;
+				}
+			}
+			
+			// Values at the end of the file
+			while(index < offsets.length)
+				offsets[index++] = bytes;
+		}
+		
+		return offsets;
+	}
+	
+	/**
+	 * Updates the positions of all values after the changed values
+	 * were written to the given file.
+	 * @param objects The Map (list) of all objects
+	 * @param changed The changed values, sorted by their positions
+	 * @param values  The written changed values
+	 * @param target  The file where the content was saved
+	 * @throws IOException When the file cannot be read*/
+	private void update(Map<String, SSDObject> objects, List<Span> changed,
+			List<String> values, Path target) throws IOException {
+		int count	  = changed.size();
+		long[] starts = new long[count];
+		// The sum of changes of lengths of the first i values
+		long[] shifts = new long[count + 1];
+		for(int i = 0; i < count; i++) {
+			Span span	 = changed.get(i);
+			String value = values.get(i);
+			starts[i]	 = span.start;
+			shifts[i+1]	 = shifts[i] + value.length() - (span.end - span.start);
+			
+			for(int k = 0, l = value.length(); k < l && ascii; k++)
+				ascii = value.charAt(k) < 0x80;
+		}
+		
+		for(Span span : spans.values()) {
+			int index = Arrays.binarySearch(starts, span.start);
+			long shift = shifts[index >= 0 ? index : -index - 1];
+			span.start += shift;
+			if(index >= 0) {
+				span.end	= span.start + values.get(index).length();
+				span.object = objects.get(span.name);
+			} else {
+				span.end += shift;
+			}
+		}
+		
+		file		 = target;
+		size		 = Files.size(target);
+		lastModified = Files.getLastModifiedTime(target);
+	}
+	
+	/**
+	 * Represents the position of a value in the read file.
+	 * @author Sune*/
+	static final class Span {
+		
+		/**
+		 * The name of the object*/
+		final String name;
+		/**
+		 * The position of the first character of the value*/
+		long start;
+		/**
+		 * The position after the last character of the value*/
+		long end;
+		/**
+		 * The object that was read or saved at this position*/
+		SSDObject object;
+		
+		/**
+		 * Creates new instance of Span.
+		 * @param name	 The name of the object
+		 * @param start	 The position of the first character of the value
+		 * @param end	 The position after the last character of the value
+		 * @param object The object*/
+		Span(String name, long start, long end, SSDObject object) {
+			this.name	= name;
+			this.start	= start;
+			this.end	= end;
+			this.object = object;
+		}
+	}
+	
+	/**
+	 * Input stream that checks whether all read bytes are ASCII characters.
+	 * @author Sune*/
+	private final class AsciiInputStream extends FilterInputStream {
+		
+		/**
+		 * Creates new instance of ASCII Input Stream.
+		 * @param in The input stream*/
+		AsciiInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b >= 0x80)
+				ascii = false;
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			for(int i = off, l = off + read; i < l && ascii; i++)
+				ascii = b[i] >= 0;
+			return read;
+		}
+	}
+}
\ No newline at end of file
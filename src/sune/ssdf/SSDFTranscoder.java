@@ -0,0 +1,593 @@
+package sune.ssdf;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Converts SSDF Syntax to JSON and JSON to SSDF Syntax. The content is
+ * converted token by token while it is read, without reading any objects,
+ * so even very large contents are converted in constant memory.<br><br>
+ * SSDF Syntax is read the same way as by {@link SSDFParser}: comments
+ * are removed, items without a name are skipped and values that are not
+ * valid are converted to {@code null}. Arrays and objects are converted
+ * to JSON arrays and objects by their brackets. Unlike reading of objects,
+ * empty arrays and objects, as well as objects with the same name, are
+ * kept as they are.<br><br>
+ * JSON is read strictly. Its main value must be an object and all names
+ * must be valid SSDF names, i.e. consist only of letters, digits and
+ * underscores.<br><br>
+ * The output is written without any formatting.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDFTranscoder {
+	
+	/**
+	 * The size of the write buffer*/
+	private static final int BUFFER_SIZE = 8192;
+	
+	/**
+	 * The writer of the converted content*/
+	private final Writer writer;
+	
+	/**
+	 * The lexer of the content*/
+	private final SSDFLexer lexer = new SSDFLexer();
+	
+	/**
+	 * The write buffer*/
+	private final char[] output = new char[BUFFER_SIZE];
+	/**
+	 * The number of characters in the write buffer*/
+	private int count;
+	
+	/**
+	 * The current name or value, only names, numbers and words
+	 * are stored here, strings are written directly*/
+	private final StringBuilder value = new StringBuilder();
+	/**
+	 * The closing brackets of the arrays and objects being converted*/
+	private char[] closers = new char[16];
+	/**
+	 * The number of arrays and objects being converted*/
+	private int depth;
+	
+	/**
+	 * Creates new instance of SSDF Transcoder.
+	 * @param reader The reader of the content
+	 * @param writer The writer of the converted content*/
+	private SSDFTranscoder(Reader reader, Writer writer) {
+		this.writer = writer;
+		lexer.begin(null, reader, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Converts the given content in SSDF Syntax to JSON.
+	 * @param content The content in SSDF Syntax
+	 * @return The content in JSON*/
+	public static String toJSON(String content) {
+		StringWriter writer = new StringWriter(content.length());
+		try {
+			toJSON(new StringReader(content), writer);
+		} catch(IOException ex) {
+			// Should not happen, no I/O is done
+			throw new UncheckedIOException(ex);
+		}
+		
+		return writer.toString();
+	}
+	
+	/**
+	 * Converts the content of the given reader in SSDF Syntax to JSON
+	 * and writes it to the given writer. Neither the reader, nor the writer
+	 * is closed, the writer is flushed.
+	 * @param reader The reader of the content in SSDF Syntax
+	 * @param writer The writer of the content in JSON
+	 * @throws IOException When the content cannot be read or written*/
+	public static void toJSON(Reader reader, Writer writer) throws IOException {
+		new SSDFTranscoder(reader, writer).convertSSDF();
+	}
+	
+	/**
+	 * Converts the given content in JSON to SSDF Syntax.
+	 * @param content The content in JSON
+	 * @return The content in SSDF Syntax
+	 * @throws SSDFException When the content is not valid JSON,
+	 * 		   or it cannot be written in SSDF Syntax*/
+	public static String toSSDF(String content) {
+		StringWriter writer = new StringWriter(content.length());
+		try {
+			toSSDF(new StringReader(content), writer);
+		} catch(IOException ex) {
+			// Should not happen, no I/O is done
+			throw new UncheckedIOException(ex);
+		}
+		
+		return writer.toString();
+	}
+	
+	/**
+	 * Converts the content of the given reader in JSON to SSDF Syntax
+	 * and writes it to the given writer. Neither the reader, nor the writer
+	 * is closed, the writer is flushed. When the content is not valid,
+	 * a part of the converted content may already be written.
+	 * @param reader The reader of the content in JSON
+	 * @param writer The writer of the content in SSDF Syntax
+	 * @throws IOException When the content cannot be read or written
+	 * @throws SSDFException When the content is not valid JSON,
+	 * 		   or it cannot be written in SSDF Syntax*/
+	public static void toSSDF(Reader reader, Writer writer) throws IOException {
+		new SSDFTranscoder(reader, writer).convertJSON();
+	}
+	
+	/**
+	 * Converts the whole content in SSDF Syntax. Nested arrays and
+	 * objects are converted without recursion.
+	 * @throws IOException When the content cannot be read or written*/
+	private void convertSSDF() throws IOException {
+		lexer.skip();
+		if(lexer.peek() != '{') {
+			// An empty content is read as an empty array
+			write("{}");
+			flush();
+			return;
+		}
+		
+		lexer.next();
+		write('{');
+		push('{');
+		boolean first = true;
+		for(int c;;) {
+			char close = closers[depth-1];
+			boolean closed;
+			lexer.skip();
+			if((c = lexer.peek()) < 0) {
+				closed = true;
+			} else if(c == close) {
+				lexer.next();
+				closed = true;
+			} else {
+				if(close == '}') {
+					value.setLength(0);
+					if(!lexer.readName(value, Integer.MAX_VALUE)) {
+						// Skips an item without a name
+						if((c = lexer.peek()) >= 0 && c != close)
+							lexer.next();
+						continue;
+					}
+					
+					if(!first)
+						write(',');
+					write('\"');
+					write(value);
+					write("\":");
+				} else if(!first) {
+					write(',');
+				}
+				
+				first = false;
+				int open = convertSSDFValue(close);
+				if(open != 0) {
+					write((char) open);
+					push(open);
+					first = true;
+					continue;
+				}
+				
+				closed = readDelimiter(close);
+			}
+			
+			// Closes all the arrays and objects that were closed
+			while(closed) {
+				write(closers[--depth]);
+				if(depth == 0) {
+					flush();
+					return;
+				}
+				
+				first  = false;
+				closed = readDelimiter(closers[depth-1]);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the delimiter after an item in SSDF Syntax.
+	 * @param close The closing brackets of the parent
+	 * @return True, if the parent was closed, otherwise false
+	 * @throws IOException When the content cannot be read*/
+	private boolean readDelimiter(char close) throws IOException {
+		lexer.skip();
+		int c = lexer.peek();
+		if(c == ',') {
+			lexer.next();
+			return false;
+		}
+		if(c == close) {
+			lexer.next();
+			return true;
+		}
+		
+		return c < 0;
+	}
+	
+	/**
+	 * Converts object's value in SSDF Syntax, or the opening brackets
+	 * of an array or object.
+	 * @param close The closing brackets of the parent
+	 * @return The opening brackets, or zero, if a value was converted
+	 * @throws IOException When the content cannot be read or written*/
+	private int convertSSDFValue(char close) throws IOException {
+		lexer.skip();
+		int c = lexer.peek();
+		if(c == '{' || c == '[') {
+			lexer.next();
+			return c;
+		}
+		
+		value.setLength(0);
+		if(c == '\"' || c == '\'') {
+			lexer.next();
+			write('\"');
+			for(int quote = c; (c = lexer.next()) >= 0;) {
+				if(c == '\\') {
+					// Escapes the next character
+					if((c = lexer.next()) < 0) break;
+				} else if(c == quote) {
+					break;
+				}
+				
+				writeJSONChar((char) c);
+			}
+			write('\"');
+		} else if((c >= '0' && c <= '9') || c == '-') {
+			if(lexer.readNumber(value, Integer.MAX_VALUE))
+				writeNumber();
+			else
+				write("null");
+		} else {
+			lexer.readWord(value, Integer.MAX_VALUE);
+			write(SSDFLexer.startsWith(value, "true")  ? "true"  :
+				  SSDFLexer.startsWith(value, "false") ? "false" : "null");
+		}
+		
+		lexer.skipValue(close);
+		return 0;
+	}
+	
+	/**
+	 * Writes the current number as a JSON number, i.e. without
+	 * leading zeros.
+	 * @throws IOException When the content cannot be written*/
+	private void writeNumber() throws IOException {
+		int start = 0;
+		if(value.charAt(0) == '-') {
+			write('-');
+			start = 1;
+		}
+		
+		int length = value.length();
+		while(start < length-1 && value.charAt(start) == '0'
+				&& isDigit(value.charAt(start+1)))
+			start++;
+		
+		for(int i = start; i < length; i++)
+			write(value.charAt(i));
+	}
+	
+	/**
+	 * Writes a character of a JSON string, escaped if needed.
+	 * @param c The character
+	 * @throws IOException When the content cannot be written*/
+	private void writeJSONChar(char c) throws IOException {
+		switch(c) {
+			case '\"': write("\\\""); break;
+			case '\\': write("\\\\"); break;
+			case '\n': write("\\n");  break;
+			case '\r': write("\\r");  break;
+			case '\t': write("\\t");  break;
+			case '\b': write("\\b");  break;
+			case '\f': write("\\f");  break;
+			default:
+				if(c < 0x20) {
+					write("\\u00");
+					write(Character.forDigit(c >> 4, 16));
+					write(Character.forDigit(c & 0xf, 16));
+				} else {
+					write(c);
+				}
+		}
+	}
+	
+	/**
+	 * Converts the whole content in JSON. Nested arrays and objects
+	 * are converted without recursion.
+	 * @throws IOException When the content cannot be read or written*/
+	private void convertJSON() throws IOException {
+		skipWhitespace();
+		if(lexer.peek() != '{')
+			throw expected("'{'");
+		
+		lexer.next();
+		write('{');
+		push('{');
+		boolean empty = true;
+		for(;;) {
+			char close = closers[depth-1];
+			skipWhitespace();
+			boolean closed = empty && lexer.peek() == close;
+			if(closed) {
+				lexer.next();
+			} else {
+				if(close == '}')
+					convertJSONName();
+				int open = convertJSONValue();
+				if(open != 0) {
+					push(open);
+					empty = true;
+					continue;
+				}
+			}
+			
+			// Closes all the arrays and objects that were closed,
+			// up to the next items delimiter
+			for(;;) {
+				if(closed) {
+					write(closers[--depth]);
+					if(depth == 0) {
+						skipWhitespace();
+						if(lexer.peek() >= 0)
+							throw lexer.violation("Unexpected content after the main object");
+						flush();
+						return;
+					}
+				}
+				
+				close = closers[depth-1];
+				skipWhitespace();
+				int c = lexer.peek();
+				if(c == ',') {
+					lexer.next();
+					write(',');
+					break;
+				}
+				if(c != close)
+					throw expected("',' or '" + close + "'");
+				lexer.next();
+				closed = true;
+			}
+			
+			empty = false;
+		}
+	}
+	
+	/**
+	 * Converts object's name in JSON, including the name/value delimiter.
+	 * @throws IOException When the content cannot be read or written
+	 * @throws SSDFException When the name is not a valid SSDF name*/
+	private void convertJSONName() throws IOException {
+		if(lexer.peek() != '\"')
+			throw expected("a name");
+		
+		long start	  = lexer.position();
+		int startLine = lexer.line();
+		long column	  = lexer.column();
+		lexer.next();
+		value.setLength(0);
+		for(int c; (c = readJSONChar()) >= 0;)
+			value.append((char) c);
+		
+		boolean valid = value.length() > 0;
+		for(int i = 0, l = value.length(); i < l && valid; i++)
+			valid = SSDFLexer.isNameChar(value.charAt(i));
+		if(!valid)
+			throw new SSDFException("The name \"" + value + "\" cannot be written in SSDF Syntax",
+				start, startLine, column);
+		
+		write(value);
+		skipWhitespace();
+		if(lexer.peek() != ':')
+			throw expected("':'");
+		lexer.next();
+		write(':');
+	}
+	
+	/**
+	 * Converts a value in JSON, or the opening brackets of an array
+	 * or object.
+	 * @return The opening brackets, or zero, if a value was converted
+	 * @throws IOException When the content cannot be read or written*/
+	private int convertJSONValue() throws IOException {
+		skipWhitespace();
+		int c = lexer.peek();
+		if(c == '{' || c == '[') {
+			lexer.next();
+			write((char) c);
+			return c;
+		}
+		
+		if(c == '\"') {
+			lexer.next();
+			write('\"');
+			while((c = readJSONChar()) >= 0) {
+				if(c == '\"' || c == '\\')
+					write('\\');
+				write((char) c);
+			}
+			write('\"');
+			return 0;
+		}
+		
+		if((c >= '0' && c <= '9') || c == '-') {
+			convertJSONNumber();
+			return 0;
+		}
+		
+		value.setLength(0);
+		while((c = lexer.peek()) >= 'a' && c <= 'z')
+			value.append((char) lexer.next());
+		
+		String word = value.toString();
+		if(!word.equals("true") && !word.equals("false") && !word.equals("null"))
+			throw expected("a value");
+		write(word);
+		return 0;
+	}
+	
+	/**
+	 * Converts a number in JSON. JSON numbers are valid SSDF numbers,
+	 * so the number is only checked.
+	 * @throws IOException When the content cannot be read or written*/
+	private void convertJSONNumber() throws IOException {
+		int c = lexer.peek();
+		if(c == '-') {
+			write((char) lexer.next());
+			c = lexer.peek();
+		}
+		
+		if(c == '0') {
+			write((char) lexer.next());
+		} else {
+			convertJSONDigits();
+		}
+		
+		if((c = lexer.peek()) == '.') {
+			write((char) lexer.next());
+			convertJSONDigits();
+			c = lexer.peek();
+		}
+		
+		if(c == 'e' || c == 'E') {
+			write((char) lexer.next());
+			if((c = lexer.peek()) == '+' || c == '-')
+				write((char) lexer.next());
+			convertJSONDigits();
+		}
+	}
+	
+	/**
+	 * Converts a non-empty sequence of digits in JSON.
+	 * @throws IOException When the content cannot be read or written*/
+	private void convertJSONDigits() throws IOException {
+		if(!isDigit(lexer.peek()))
+			throw lexer.violation("Invalid number");
+		while(isDigit(lexer.peek()))
+			write((char) lexer.next());
+	}
+	
+	/**
+	 * Reads a character of a JSON string. The opening quote must
+	 * already be read.
+	 * @return The unescaped character, or -1 at the closing quote
+	 * @throws IOException When the content cannot be read*/
+	private int readJSONChar() throws IOException {
+		int c = lexer.peek();
+		if(c < 0)
+			throw lexer.violation("Unterminated string");
+		if(c < 0x20)
+			throw lexer.violation("Invalid character in a string");
+		lexer.next();
+		if(c == '\"')
+			return -1;
+		if(c != '\\')
+			return c;
+		
+		switch(c = lexer.next()) {
+			case '\"':
+			case '\\':
+			case '/': return c;
+			case 'n': return '\n';
+			case 'r': return '\r';
+			case 't': return '\t';
+			case 'b': return '\b';
+			case 'f': return '\f';
+			case 'u': {
+				int code = 0;
+				for(int i = 0; i < 4; i++) {
+					int digit = Character.digit(lexer.peek(), 16);
+					if(digit < 0)
+						throw lexer.violation("Invalid escape sequence");
+					lexer.next();
+					code = (code << 4) | digit;
+				}
+				
+				return code;
+			}
+			default:
+				throw lexer.violation(c < 0 ? "Unterminated string" : "Invalid escape sequence");
+		}
+	}
+	
+	/**
+	 * Skips all whitespace characters in JSON.
+	 * @throws IOException When the content cannot be read*/
+	private void skipWhitespace() throws IOException {
+		for(int c; (c = lexer.peek()) == ' ' || c == '\t' || c == '\n' || c == '\r';)
+			lexer.next();
+	}
+	
+	/**
+	 * Checks whether the given character is a digit.
+	 * @param c The character
+	 * @return True, if the character is a digit, otherwise false*/
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+	
+	/**
+	 * Pushes the closing brackets of the given opening brackets
+	 * to the stack.
+	 * @param open The opening brackets*/
+	private void push(int open) {
+		if(depth == closers.length)
+			closers = Arrays.copyOf(closers, depth * 2);
+		closers[depth++] = open == '{' ? '}' : ']';
+	}
+	
+	/**
+	 * Writes a character to the write buffer.
+	 * @param c The character
+	 * @throws IOException When the content cannot be written*/
+	private void write(char c) throws IOException {
+		if(count == output.length) {
+			writer.write(output, 0, count);
+			count = 0;
+		}
+		
+		output[count++] = c;
+	}
+	
+	/**
+	 * Writes the characters to the write buffer.
+	 * @param chars The characters
+	 * @throws IOException When the content cannot be written*/
+	private void write(CharSequence chars) throws IOException {
+		for(int i = 0, l = chars.length(); i < l; i++)
+			write(chars.charAt(i));
+	}
+	
+	/**
+	 * Writes the write buffer and flushes the writer.
+	 * @throws IOException When the content cannot be written*/
+	private void flush() throws IOException {
+		writer.write(output, 0, count);
+		writer.flush();
+		count = 0;
+	}
+	
+	/**
+	 * Creates an exception of an unexpected character at the current
+	 * position.
+	 * @param expected The description of the expected content
+	 * @return The exception
+	 * @throws IOException When the content cannot be read*/
+	private SSDFException expected(String expected) throws IOException {
+		return lexer.violation(lexer.peek() < 0
+			? "Unexpected end of the input, expected " + expected
+			: "Expected " + expected);
+	}
+}
\ No newline at end of file
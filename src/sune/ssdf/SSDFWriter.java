@@ -0,0 +1,367 @@
+package sune.ssdf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts objects to SSDF Syntax. The objects are first arranged into
+ * a tree of arrays, so that every object is visited only once.<br><br>
+ * In parallel mode, large subtrees are written concurrently on the
+ * common fork-join pool into their own buffers, which are then joined
+ * in order. The result is the same as in the sequential mode.<br><br>
+ * When the objects are written to a writer, the content is passed
+ * to the writer in small parts while it is created, so that it is never
+ * held in memory as a whole.
+ * @author Sune
+ * @since 1.2*/
+final class SSDFWriter {
+	
+	/**
+	 * The minimum number of objects in a subtree that is written
+	 * by a separate task*/
+	private static final int PARALLEL_THRESHOLD = 8192;
+	/**
+	 * The number of characters that are collected before they are
+	 * passed to the writer*/
+	private static final int FLUSH_SIZE = 8192;
+	
+	/**
+	 * The root of the tree of arrays*/
+	private final Node root = new Node("");
+	/**
+	 * Whether to use compress mode or not*/
+	private final boolean compress;
+	/**
+	 * Whether large subtrees should be written concurrently*/
+	private final boolean parallel;
+	/**
+	 * The indentations of all depth levels*/
+	private final String[] tabs;
+	
+	/**
+	 * The writer where the content is passed, or null*/
+	private Writer out;
+	/**
+	 * The builder of the content that is passed to the writer*/
+	private StringBuilder buffer;
+	
+	/**
+	 * Creates new instance of SSDF Writer.
+	 * @param objects  The Map (list) of all objects to write
+	 * @param compress Whether to use compress mode or not
+	 * @param parallel Whether large subtrees should be written concurrently*/
+	SSDFWriter(Map<String, SSDObject> objects, boolean compress, boolean parallel) {
+		this.compress = compress;
+		this.parallel = parallel;
+		
+		int maxDepth = 0;
+		for(Entry<String, SSDObject> entry : objects.entrySet()) {
+			String[] splitKey = entry.getKey().split("\\.");
+			if(splitKey.length == 0)
+				continue;
+			
+			Node node = root;
+			node.size++;
+			for(int i = 0, l = splitKey.length-1; i < l; i++) {
+				// Arrays are written as arrays, if all their items have indexes
+				node.indexed &= isIndex(splitKey[i+1]);
+				node = node.child(splitKey[i]);
+				node.size++;
+			}
+			
+			// Objects at the top level are written with their full names
+			node.addItem(splitKey.length == 1 ? entry.getKey()
+				: splitKey[splitKey.length-1], entry.getValue());
+			maxDepth = Math.max(maxDepth, splitKey.length);
+		}
+		
+		tabs = new String[maxDepth + 1];
+		for(int i = 0; i <= maxDepth; i++)
+			tabs[i] = SSDFUtils.repeatString("\t", i);
+	}
+	
+	/**
+	 * Checks whether the given name is an index of an array.
+	 * @param name The name
+	 * @return True, if the name consists only of digits, otherwise false*/
+	private static boolean isIndex(String name) {
+		if(name.isEmpty())
+			return false;
+		for(int i = 0, l = name.length(); i < l; i++) {
+			char c = name.charAt(i);
+			if(c < '0' || c > '9')
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Writes all the objects.
+	 * @return The content in SSDF Syntax*/
+	String write() {
+		StringBuilder sb = new StringBuilder();
+		appendAll(sb);
+		return sb.toString();
+	}
+	
+	/**
+	 * Writes all the objects to the given writer. The writer is
+	 * not flushed nor closed.
+	 * @param writer The writer
+	 * @throws IOException When the content cannot be written*/
+	void write(Writer writer) throws IOException {
+		out	   = writer;
+		buffer = new StringBuilder(FLUSH_SIZE + FLUSH_SIZE / 2);
+		try {
+			appendAll(buffer);
+			writer.append(buffer);
+		} catch(UncheckedIOException ex) {
+			throw ex.getCause();
+		} finally {
+			out	   = null;
+			buffer = null;
+		}
+	}
+	
+	/**
+	 * Passes the content written so far to the writer, if the given
+	 * builder is the builder of the content and it is large enough.
+	 * @param sb The string builder*/
+	private void drain(StringBuilder sb) {
+		if(sb != buffer || sb.length() < FLUSH_SIZE)
+			return;
+		
+		try {
+			out.append(sb);
+		} catch(IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		
+		sb.setLength(0);
+	}
+	
+	/**
+	 * Writes all the objects.
+	 * @param sb The string builder*/
+	private void appendAll(StringBuilder sb) {
+		sb.append("{");
+		if(!compress)
+			sb.append("\n");
+		
+		boolean isFirstItem = true;
+		for(int i = 0, l = root.itemNames.size(); i < l; i++) {
+			String objectName = root.itemNames.get(i);
+			// An object with the same name as an array is hidden by the array
+			if(root.children.containsKey(objectName))
+				continue;
+			
+			if(!isFirstItem) {
+				sb.append(",");
+				if(!compress)
+					sb.append("\n");
+			} else {
+				isFirstItem = false;
+			}
+			
+			if(!compress)
+				sb.append("\t");
+			sb.append(objectName);
+			sb.append(":");
+			if(!compress)
+				sb.append(" ");
+			appendValue(sb, root.itemObjects.get(i));
+			drain(sb);
+		}
+		
+		if(!root.children.isEmpty() && !isFirstItem) {
+			sb.append(",");
+			if(!compress)
+				sb.append("\n\n");
+		}
+		
+		appendChildren(sb, root, 1, false, false);
+		if(!compress)
+			sb.append("\n");
+		sb.append("}");
+	}
+	
+	/**
+	 * Writes all arrays of the given parent.
+	 * @param sb	   The string builder
+	 * @param parent   The parent
+	 * @param depth	   The depth level of the arrays
+	 * @param wasItems Whether there were some written items or not
+	 * @param inArray  Whether the parent is written as an array*/
+	private void appendChildren(StringBuilder sb, Node parent, int depth,
+			boolean wasItems, boolean inArray) {
+		List<ForkJoinTask<String>> tasks = null;
+		if(parallel && parent.size >= PARALLEL_THRESHOLD) {
+			// Start writing of all large subtrees, the smaller ones are
+			// written by the current thread in the meantime
+			tasks = new ArrayList<>(parent.children.size());
+			int index = 0;
+			for(Node child : parent.children.values()) {
+				boolean separate = index++ > 0 || wasItems;
+				tasks.add(child.size >= PARALLEL_THRESHOLD
+					? ForkJoinTask.adapt(() -> {
+						StringBuilder part = new StringBuilder();
+						appendArray(part, parent, child, depth, separate, inArray);
+						return part.toString();
+					}).fork()
+					: null);
+			}
+		}
+		
+		int index = 0;
+		for(Node child : parent.children.values()) {
+			ForkJoinTask<String> task = tasks != null ? tasks.get(index) : null;
+			boolean separate = index++ > 0 || wasItems;
+			if(task != null) sb.append(task.join());
+			else 			 appendArray(sb, parent, child, depth, separate, inArray);
+			drain(sb);
+		}
+	}
+	
+	/**
+	 * Writes the array with all its objects and arrays.
+	 * @param sb	   The string builder
+	 * @param parent   The parent of the array
+	 * @param array	   The array
+	 * @param depth	   The depth level of the array
+	 * @param separate Whether the array should be separated from
+	 * 				   the previous items
+	 * @param inArray  Whether the array's parent is written as an array*/
+	private void appendArray(StringBuilder sb, Node parent, Node array, int depth,
+			boolean separate, boolean inArray) {
+		String arrayTab	= tabs[depth];
+		boolean isArray = parent.indexed;
+		
+		if(separate) {
+			sb.append(",");
+			if(!compress)
+				sb.append("\n\n");
+		}
+		
+		if(!inArray) {
+			if(!compress)
+				sb.append(arrayTab);
+			sb.append(array.name);
+			sb.append(":");
+			if(!compress)
+				sb.append("\n");
+		}
+		
+		if(!compress)
+			sb.append(arrayTab);
+		sb.append(isArray ? "[" : "{");
+		if(!compress)
+			sb.append("\n");
+		
+		String objectTab = tabs[depth+1];
+		for(int i = 0, l = array.itemNames.size(); i < l; i++) {
+			if(i > 0) {
+				sb.append(",");
+				if(!compress)
+					sb.append("\n");
+			}
+			
+			if(!compress)
+				sb.append(objectTab);
+			
+			if(!isArray) {
+				sb.append(array.itemNames.get(i));
+				sb.append(":");
+				if(!compress)
+					sb.append(" ");
+			}
+			
+			appendValue(sb, array.itemObjects.get(i));
+			drain(sb);
+		}
+		
+		appendChildren(sb, array, depth+1, !array.itemNames.isEmpty(), isArray);
+		if(!compress) {
+			sb.append("\n");
+			sb.append(arrayTab);
+		}
+		sb.append(isArray ? "]" : "}");
+	}
+	
+	/**
+	 * Writes the value of the given object.
+	 * @param sb	 The string builder
+	 * @param object The object*/
+	static void appendValue(StringBuilder sb, SSDObject object) {
+		SSDType objectType = object.type();
+		if(objectType == SSDType.STRING) {
+			sb.append("\"");
+			sb.append(object.sequenceValue());
+			sb.append("\"");
+		} else {
+			sb.append(objectType == SSDType.UNDEFINED ?
+				"null" : object.stringValue());
+		}
+	}
+	
+	/**
+	 * Represents an array (or an object) in the tree of arrays.
+	 * @author Sune*/
+	private static final class Node {
+		
+		/**
+		 * The name of the array*/
+		final String name;
+		/**
+		 * The arrays in this array, in the order of their first object*/
+		final Map<String, Node> children = new LinkedHashMap<>();
+		/**
+		 * The names of the objects in this array*/
+		final List<String> itemNames = new ArrayList<>();
+		/**
+		 * The objects in this array*/
+		final List<SSDObject> itemObjects = new ArrayList<>();
+		
+		/**
+		 * Whether all objects of all arrays in this array have indexes*/
+		boolean indexed = true;
+		/**
+		 * The number of all objects in this array and its arrays*/
+		int size;
+		
+		/**
+		 * Creates new instance of Node.
+		 * @param name The name of the array*/
+		Node(String name) {
+			this.name = name;
+		}
+		
+		/**
+		 * Gets the array with the given name in this array, it is
+		 * created if it does not exist.
+		 * @param name The name of the array
+		 * @return The array*/
+		Node child(String name) {
+			Node child = children.get(name);
+			if(child == null)
+				children.put(name, child = new Node(name));
+			return child;
+		}
+		
+		/**
+		 * Adds the object to this array.
+		 * @param name	 The object's name
+		 * @param object The object*/
+		void addItem(String name, SSDObject object) {
+			itemNames.add(name);
+			itemObjects.add(object);
+		}
+	}
+}
\ No newline at end of file
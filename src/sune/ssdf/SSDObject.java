@@ -1,6 +1,6 @@
 package sune.ssdf;
 
-import java.util.regex.Pattern;
+import java.util.regex.Matcher;
 
 /**
  * Represents a data object that is used for storing
@@ -9,12 +9,22 @@ import java.util.regex.Pattern;
  * @author Sune*/
 public class SSDObject {
 	
+	/**
+	 * The maximum length of integers whose values are parsed in advance,
+	 * all such integers fit into a long*/
+	private static final int MAX_PARSED_LENGTH = 18;
+	
 	/**
 	 * The name of object*/
 	private final String name;
 	/**
-	 * The value of object*/
-	private final String value;
+	 * The value of object, its slice of the source content,
+	 * or the arena where the value is stored*/
+	private final Object value;
+	/**
+	 * The reference of the value in the arena, or the value
+	 * of a number, an integer or the bits of a floating-point number*/
+	private final long ref;
 	/**
 	 * The Data Type of object*/
 	private final SSDType type;
@@ -24,9 +34,12 @@ public class SSDObject {
 	 * @param name 	The object's name
 	 * @param value The object's value*/
 	public SSDObject(String name, String value) {
+		SSDType type = findDataType(value);
+		String data	 = extractValue(type, value);
 		this.name  = name;
-		this.type  = findDataType(value);
-		this.value = SSDFUtils.regex(type.getRegex(), value, 1);
+		this.type  = type;
+		this.value = data;
+		this.ref   = parseNumber(type, data);
 	}
 	
 	/**
@@ -35,9 +48,150 @@ public class SSDObject {
 	 * @param type	The object's type
 	 * @param value The object's value*/
 	protected SSDObject(String name, SSDType type, String value) {
+		this(name, type, value, true);
+	}
+	
+	/**
+	 * Creates new instance of Data Object.
+	 * @param name 	  The object's name
+	 * @param type	  The object's type
+	 * @param value   The object's value
+	 * @param extract Whether the value should be extracted using
+	 * 				  the type's regular expression, or whether it is
+	 * 				  already the final value
+	 * @since 1.2*/
+	SSDObject(String name, SSDType type, String value, boolean extract) {
+		String data = extract ? extractValue(type, value) : value;
 		this.name  = name;
 		this.type  = type;
-		this.value = SSDFUtils.regex(type.getRegex(), value, 1);
+		this.value = data;
+		this.ref   = parseNumber(type, data);
+	}
+	
+	/**
+	 * Creates new instance of Data Object of a number whose value
+	 * is already parsed.
+	 * @param name 	 The object's name
+	 * @param type	 The object's type, an integer or a floating number
+	 * @param value  The object's value
+	 * @param number The value of the number, an integer or the bits
+	 * 				 of a floating-point number
+	 * @since 1.2*/
+	SSDObject(String name, SSDType type, String value, long number) {
+		this.name  = name;
+		this.type  = type;
+		this.value = value;
+		this.ref   = number;
+	}
+	
+	/**
+	 * Creates new instance of Data Object whose value
+	 * is stored in the given arena.
+	 * @param name 	The object's name
+	 * @param type	The object's type
+	 * @param arena The arena where the value is stored
+	 * @param ref	The reference of the value in the arena
+	 * @since 1.2*/
+	SSDObject(String name, SSDType type, SSDFArena arena, long ref) {
+		this.name  = name;
+		this.type  = type;
+		this.value = arena;
+		this.ref   = ref;
+	}
+	
+	/**
+	 * Creates new instance of Data Object whose value is a slice
+	 * of the source content.
+	 * @param name 	The object's name
+	 * @param type	The object's type
+	 * @param slice The slice of the value
+	 * @since 1.2*/
+	SSDObject(String name, SSDType type, SSDFSlice slice) {
+		this.name  = name;
+		this.type  = type;
+		this.value = slice;
+		this.ref   = 0L;
+	}
+	
+	/**
+	 * Creates new instance of Data Object with the given name
+	 * and the value of the given object. The value is shared,
+	 * it is neither copied nor parsed again.
+	 * @param name 	 The object's name
+	 * @param object The object whose value is used
+	 * @since 1.2*/
+	SSDObject(String name, SSDObject object) {
+		this.name  = name;
+		this.type  = object.type;
+		this.value = object.value;
+		this.ref   = object.ref;
+	}
+	
+	/**
+	 * Extracts the value of the given Data Type from the object's
+	 * value.
+	 * @param type	The object's type
+	 * @param value The object's value
+	 * @return The extracted value, or null, if the value is not
+	 * 		   of the given type*/
+	private static final String extractValue(SSDType type, String value) {
+		Matcher matcher = type.getPattern().matcher(value);
+		return matcher.matches() ? matcher.group(1) : null;
+	}
+	
+	/**
+	 * Parses the value of a number, so that it does not have to be
+	 * parsed every time it is requested.
+	 * @param type	The object's type
+	 * @param value The object's value
+	 * @return The value of an integer, the bits of a floating-point
+	 * 		   number, or zero, if the value is not a number*/
+	private static final long parseNumber(SSDType type, String value) {
+		if(value == null)
+			return 0L;
+		if(type == SSDType.FLOAT)
+			return Double.doubleToRawLongBits(Double.parseDouble(value));
+		if(type == SSDType.INTEGER && value.length() <= MAX_PARSED_LENGTH)
+			return Long.parseLong(value);
+		return 0L;
+	}
+	
+	/**
+	 * Checks whether the value of the number is already parsed.
+	 * @return True, if the value is parsed, otherwise false*/
+	private final boolean isParsed() {
+		Object data = value;
+		return data instanceof String
+					&& (type == SSDType.FLOAT
+							|| (type == SSDType.INTEGER
+									&& ((String) data).length() <= MAX_PARSED_LENGTH));
+	}
+	
+	/**
+	 * Estimates the size of the object's value on the heap. The values
+	 * of special words are shared and are not counted, neither are values
+	 * stored in an arena, nor the source content of a slice.
+	 * @return The estimated size, in bytes
+	 * @since 1.2*/
+	long estimateValueSize() {
+		Object data = value;
+		if(data instanceof String) {
+			// Words and empty values created by the parser are shared
+			return data == "true" || data == "false" || data == "null" || data == ""
+						? 0L : SSDFFootprint.sizeOf((String) data);
+		}
+		
+		return data instanceof SSDFSlice ? ((SSDFSlice) data).estimateSize() : 0L;
+	}
+	
+	/**
+	 * Gets the source content of the object's value, if the value
+	 * is a slice of it.
+	 * @return The source content, or null
+	 * @since 1.2*/
+	String sliceSource() {
+		Object data = value;
+		return data instanceof SSDFSlice ? ((SSDFSlice) data).source() : null;
 	}
 	
 	/**
@@ -46,7 +200,7 @@ public class SSDObject {
 	 * @param value The object's value*/
 	private static final SSDType findDataType(String value) {
 		for(SSDType type : SSDType.values()) {
-			if(Pattern.matches(type.getRegex(), value)) {
+			if(type.getPattern().matcher(value).matches()) {
 				return type;
 			}
 		}
@@ -65,28 +219,62 @@ public class SSDObject {
 	 * Gets the string value of object.
 	 * @return The object's value*/
 	public String stringValue() {
-		return value;
+		Object data = value;
+		if(data instanceof String || data == null)
+			return (String) data;
+		if(data instanceof SSDFArena)
+			return ((SSDFArena) data).get(ref);
+		return data.toString();
+	}
+	
+	/**
+	 * Gets the string value of object as a char sequence. Unlike
+	 * {@link #stringValue()}, the value does not have to be copied
+	 * into a string, if it is still a part of the source content.
+	 * @return The object's value
+	 * @since 1.2*/
+	public CharSequence sequenceValue() {
+		Object data = value;
+		return data instanceof CharSequence ? (CharSequence) data : stringValue();
 	}
 	
 	/**
 	 * Gets the number value of object.
 	 * @return The object's value*/
 	public int integerValue() {
-		return Integer.parseInt(value);
+		if(type == SSDType.INTEGER && isParsed()) {
+			long number = ref;
+			if((int) number == number)
+				return (int) number;
+		}
+		
+		return Integer.parseInt(stringValue());
+	}
+	
+	/**
+	 * Gets the long number value of object.
+	 * @return The object's value
+	 * @since 1.2*/
+	public long longValue() {
+		if(type == SSDType.INTEGER && isParsed())
+			return ref;
+		return Long.parseLong(stringValue());
 	}
 	
 	/**
 	 * Gets the floating-point number value of object.
 	 * @return The object's value*/
 	public double doubleValue() {
-		return Double.parseDouble(value);
+		if(isParsed())
+			return type == SSDType.FLOAT ? Double.longBitsToDouble(ref) : (double) ref;
+		return Double.parseDouble(stringValue());
 	}
 	
 	/**
 	 * Gets the truth value of object.
 	 * @return The object's value*/
 	public boolean booleanValue() {
-		return Boolean.parseBoolean(value);
+		return Boolean.parseBoolean(stringValue());
 	}
 	
 	/**
@@ -114,6 +302,6 @@ public class SSDObject {
 	@Override
 	public String toString() {
 		return String.format(
-			"[name=%s, type=%s, value=%s]", name, type, value);
+			"[name=%s, type=%s, value=%s]", name, type, stringValue());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package sune.ssdf;
+
+/**
+ * Represents a precompiled path of an object or an array
+ * in SSD File. The path is split into its segments only once,
+ * when it is compiled, and its hash is computed in advance,
+ * so it can be used for repeated lookups without any string work.
+ * <br><br>
+ * Example: <code>SSDPath.compile("servers.3.host")</code>
+ * @author Sune
+ * @since 1.2*/
+public final class SSDPath {
+	
+	/**
+	 * The whole path*/
+	private final String path;
+	/**
+	 * The path with the delimiter at the end, used
+	 * as a prefix of all objects in the array*/
+	private final String prefix;
+	/**
+	 * All segments of the path*/
+	private final String[] segments;
+	/**
+	 * Precomputed hash of the whole path*/
+	private final int hash;
+	
+	/**
+	 * The last resolved true name of the path*/
+	private volatile Resolved resolved;
+	
+	/**
+	 * Creates new instance of SSD Path.
+	 * @param path 	   The whole path
+	 * @param segments All segments of the path*/
+	private SSDPath(String path, String[] segments) {
+		this.path 	  = path;
+		this.prefix	  = path.isEmpty() ? "" : path + ".";
+		this.segments = segments;
+		this.hash	  = path.hashCode();
+	}
+	
+	/**
+	 * Compiles the given path. The segments of the path
+	 * are delimited by the dot character.
+	 * @param path The path to compile
+	 * @return The compiled path*/
+	public static SSDPath compile(String path) {
+		if(path == null)
+			throw new IllegalArgumentException("Path cannot be null");
+		
+		int count = 1;
+		for(int i = 0, l = path.length(); i < l; i++)
+			if(path.charAt(i) == '.') count++;
+		
+		String[] segments = new String[path.isEmpty() ? 0 : count];
+		for(int i = 0, s = 0, k = 0, l = path.length(); i <= l && !path.isEmpty(); i++) {
+			if(i == l || path.charAt(i) == '.') {
+				segments[k++] = path.substring(s, i);
+				s = i + 1;
+			}
+		}
+		
+		return new SSDPath(path, segments);
+	}
+	
+	/**
+	 * Gets the true name of the path in an array with
+	 * the given name. It is the path with the name of
+	 * the array at the beginning. The last result is
+	 * cached, so resolving the path against the same
+	 * array again does not create any new string.
+	 * @param arrayName The name of the array
+	 * @return The true name of the path*/
+	String resolve(String arrayName) {
+		if(arrayName.isEmpty())
+			return path;
+		
+		Resolved res = resolved;
+		if(res != null && (res.arrayName == arrayName
+				|| res.arrayName.equals(arrayName)))
+			return res.trueName;
+		
+		String trueName = arrayName + "." + path;
+		resolved = new Resolved(arrayName, trueName);
+		return trueName;
+	}
+	
+	/**
+	 * Gets the prefix of all objects that are in the array
+	 * defined by this path, i.e. the path with the delimiter
+	 * at the end.
+	 * @return The prefix of the objects in the array*/
+	String prefix() {
+		return prefix;
+	}
+	
+	/**
+	 * Gets the number of segments of the path.
+	 * @return The number of segments*/
+	public int length() {
+		return segments.length;
+	}
+	
+	/**
+	 * Gets the segment of the path at the given index.
+	 * @param index The index of the segment
+	 * @return The segment of the path*/
+	public String segment(int index) {
+		return segments[index];
+	}
+	
+	/**
+	 * Gets all segments of the path.
+	 * @return The array of all segments*/
+	public String[] segments() {
+		return segments.clone();
+	}
+	
+	/**
+	 * Gets the whole path as a string.
+	 * @return The path string*/
+	public String path() {
+		return path;
+	}
+	
+	/**
+	 * Checks if the path is equal to the given object.
+	 * @param obj The object to check
+	 * @return True, if the object is the same path, otherwise false*/
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) return true;
+		if(!(obj instanceof SSDPath)) return false;
+		SSDPath other = (SSDPath) obj;
+		return hash == other.hash && path.equals(other.path);
+	}
+	
+	/**
+	 * Gets the hash code of the path.
+	 * @return The hash code*/
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+	
+	/**
+	 * Called when the path should be converted
+	 * into a string.
+	 * @return The string of the path*/
+	@Override
+	public String toString() {
+		return path;
+	}
+	
+	/**
+	 * Holds the true name of a path resolved against
+	 * an array.
+	 * @author Sune*/
+	private static final class Resolved {
+		
+		/**
+		 * The name of the array*/
+		final String arrayName;
+		/**
+		 * The true name of the path*/
+		final String trueName;
+		
+		/**
+		 * Creates new instance of Resolved.
+		 * @param arrayName The name of the array
+		 * @param trueName	The true name of the path*/
+		Resolved(String arrayName, String trueName) {
+			this.arrayName = arrayName;
+			this.trueName  = trueName;
+		}
+	}
+}
\ No newline at end of file
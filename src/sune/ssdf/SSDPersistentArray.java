@@ -0,0 +1,749 @@
+package sune.ssdf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Represents an immutable version of a data array. Every change of
+ * the array returns a new version, while the original version stays
+ * unchanged. The versions share all the unchanged parts of the array,
+ * so that a change takes only O(log n) time and memory, no matter how
+ * large the array is. This makes it cheap to keep the history of changes,
+ * or many variants of the same array.<br><br>
+ * The objects are stored in a hash array mapped trie by their full names
+ * and keep the order in which they were added, like in {@link SSDArray}.
+ * The versions can be safely shared by any number of threads.
+ * @author Sune
+ * @since 1.2*/
+public final class SSDPersistentArray implements Iterable<SSDObject> {
+	
+	/**
+	 * The number of bits of a hash used by a single level of the trie*/
+	private static final int BITS = 5;
+	/**
+	 * The mask of the bits of a hash used by a single level of the trie*/
+	private static final int MASK = (1 << BITS) - 1;
+	
+	/**
+	 * The empty array*/
+	private static final SSDPersistentArray EMPTY
+		= new SSDPersistentArray(BitmapNode.EMPTY, 0, 0L, 0);
+	
+	/**
+	 * The root node of the trie*/
+	private final Node root;
+	/**
+	 * The number of objects in the array*/
+	private final int size;
+	/**
+	 * The order of the next added object*/
+	private final long nextOrder;
+	/**
+	 * The index of the next appended object*/
+	private final int currentIndex;
+	/**
+	 * The entries in the order in which the objects were added,
+	 * or null, if they were not ordered yet*/
+	private volatile ObjectEntry[] ordered;
+	
+	/**
+	 * Creates new instance of SSD Persistent Array.
+	 * @param root		   The root node of the trie
+	 * @param size		   The number of objects
+	 * @param nextOrder	   The order of the next added object
+	 * @param currentIndex The index of the next appended object*/
+	private SSDPersistentArray(Node root, int size, long nextOrder, int currentIndex) {
+		this.root		  = root;
+		this.size		  = size;
+		this.nextOrder	  = nextOrder;
+		this.currentIndex = currentIndex;
+	}
+	
+	/**
+	 * Gets the empty array.
+	 * @return The empty array*/
+	public static SSDPersistentArray empty() {
+		return EMPTY;
+	}
+	
+	/**
+	 * Creates the first version of an array with all objects
+	 * of the given array. The objects are stored by their full names.
+	 * @param array The array
+	 * @return The array with all the objects*/
+	public static SSDPersistentArray of(SSDArray array) {
+		return of(array.getObjects());
+	}
+	
+	/**
+	 * Creates the first version of an array with all the given objects.
+	 * @param objects The Map (list) of all objects
+	 * @return The array with all the objects*/
+	public static SSDPersistentArray of(Map<String, SSDObject> objects) {
+		SSDPersistentArray array = EMPTY;
+		for(Entry<String, SSDObject> entry : objects.entrySet())
+			array = array.with(entry.getKey(), entry.getValue());
+		return array;
+	}
+	
+	/**
+	 * Computes the hash of the given name, its bits are spread so that
+	 * all levels of the trie are used.
+	 * @param name The name
+	 * @return The hash*/
+	private static int hash(String name) {
+		int h = name.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * Gets the position of the given hash in a node.
+	 * @param hash  The hash
+	 * @param shift The shift of the node's level
+	 * @return The bit of the position*/
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+	
+	/**
+	 * Gets the stored entry of the object with the given name.
+	 * @param name The object's full name
+	 * @return The entry, or null, if there is no such object*/
+	private ObjectEntry entry(String name) {
+		return root.find(name, hash(name), 0);
+	}
+	
+	/**
+	 * Creates a new version with the object put by the given full name.
+	 * An existing object keeps its position.
+	 * @param name	 The object's full name
+	 * @param object The object
+	 * @return The new version*/
+	private SSDPersistentArray with(String name, SSDObject object) {
+		return with(name, object, currentIndex);
+	}
+	
+	/**
+	 * Creates a new version with the object put by the given full name.
+	 * An existing object keeps its position.
+	 * @param name		   The object's full name
+	 * @param object	   The object
+	 * @param currentIndex The index of the next appended object
+	 * @return The new version*/
+	private SSDPersistentArray with(String name, SSDObject object, int currentIndex) {
+		int hash			 = hash(name);
+		ObjectEntry previous = root.find(name, hash, 0);
+		if(previous != null && previous.object == object && currentIndex == this.currentIndex)
+			return this;
+		
+		long order = previous != null ? previous.order : nextOrder;
+		Node node  = root.put(new ObjectEntry(name, hash, object, order), 0);
+		return new SSDPersistentArray(node, previous != null ? size : size + 1,
+			previous != null ? nextOrder : nextOrder + 1, currentIndex);
+	}
+	
+	/**
+	 * Creates a new version without the object with the given full name.
+	 * @param name The object's full name
+	 * @return The new version, or this version, if there is no such object*/
+	private SSDPersistentArray without(String name) {
+		int hash = hash(name);
+		if(root.find(name, hash, 0) == null)
+			return this;
+		
+		Node node = root.remove(name, hash, 0);
+		if(node == null) node = BitmapNode.EMPTY;
+		return new SSDPersistentArray(node, size - 1, nextOrder, currentIndex);
+	}
+	
+	/**
+	 * Gets the object by the given name.
+	 * @param name The name of the object to get
+	 * @return The SSD object, or null, if there is no such object*/
+	public SSDObject getObject(String name) {
+		ObjectEntry entry = entry(name);
+		return entry != null ? entry.object : null;
+	}
+	
+	/**
+	 * Gets the object by the given precompiled path.
+	 * @param path The path of the object to get
+	 * @return The SSD object, or null, if there is no such object*/
+	public SSDObject getObject(SSDPath path) {
+		return getObject(path.path());
+	}
+	
+	/**
+	 * Finds the object by the given name.
+	 * @param name The name of the object to find
+	 * @return The SSD object, or an empty optional, if there is no such object*/
+	public Optional<SSDObject> find(String name) {
+		return Optional.ofNullable(getObject(name));
+	}
+	
+	/**
+	 * Finds the object by the given precompiled path.
+	 * @param path The path of the object to find
+	 * @return The SSD object, or an empty optional, if there is no such object*/
+	public Optional<SSDObject> find(SSDPath path) {
+		return Optional.ofNullable(getObject(path.path()));
+	}
+	
+	/**
+	 * Checks if the array contains an object by the given name.
+	 * @param name The object's name
+	 * @return True, if the object was found, otherwise false*/
+	public boolean hasObject(String name) {
+		return entry(name) != null;
+	}
+	
+	/**
+	 * Checks if the array contains an object by the given
+	 * precompiled path.
+	 * @param path The object's path
+	 * @return True, if the object was found, otherwise false*/
+	public boolean hasObject(SSDPath path) {
+		return entry(path.path()) != null;
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param name 	The object's name
+	 * @param value New object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(String name, String value) {
+		return with(name, new SSDObject(name, "\"" + value + "\""));
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param name 	The object's name
+	 * @param value New object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(String name, int value) {
+		return with(name, new SSDObject(name, Integer.toString(value)));
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param name 	The object's name
+	 * @param value New object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(String name, double value) {
+		return with(name, new SSDObject(name, Double.toString(value)));
+	}
+	
+	/**
+	 * Sets the object value.
+	 * @param name 	The object's name
+	 * @param value New object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(String name, boolean value) {
+		return with(name, new SSDObject(name, Boolean.toString(value)));
+	}
+	
+	/**
+	 * Sets the object value to null.
+	 * @param name 	The object's name
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(String name) {
+		return with(name, new SSDObject(name, SSDType.NULL, "null"));
+	}
+	
+	/**
+	 * Sets the object.
+	 * @param name 	 The object's name
+	 * @param object The object
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(String name, SSDObject object) {
+		return with(name, object);
+	}
+	
+	/**
+	 * Sets the object.
+	 * @param path 	 The object's precompiled path
+	 * @param object The object
+	 * @return The new version of the array*/
+	public SSDPersistentArray setObject(SSDPath path, SSDObject object) {
+		return with(path.path(), object);
+	}
+	
+	/**
+	 * Appends the string object.
+	 * @param value Object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray appendObject(String value) {
+		String objectName = Integer.toString(currentIndex);
+		return with(objectName, new SSDObject(objectName, "\"" + value + "\""), currentIndex + 1);
+	}
+	
+	/**
+	 * Appends the number object.
+	 * @param value Object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray appendObject(int value) {
+		String objectName = Integer.toString(currentIndex);
+		return with(objectName, new SSDObject(objectName, Integer.toString(value)), currentIndex + 1);
+	}
+	
+	/**
+	 * Appends the floating-point number object.
+	 * @param value Object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray appendObject(double value) {
+		String objectName = Integer.toString(currentIndex);
+		return with(objectName, new SSDObject(objectName, Double.toString(value)), currentIndex + 1);
+	}
+	
+	/**
+	 * Appends the boolean object.
+	 * @param value Object's value
+	 * @return The new version of the array*/
+	public SSDPersistentArray appendObject(boolean value) {
+		String objectName = Integer.toString(currentIndex);
+		return with(objectName, new SSDObject(objectName, Boolean.toString(value)), currentIndex + 1);
+	}
+	
+	/**
+	 * Appends the null object.
+	 * @return The new version of the array*/
+	public SSDPersistentArray appendObject() {
+		String objectName = Integer.toString(currentIndex);
+		return with(objectName, new SSDObject(objectName, SSDType.NULL, "null"), currentIndex + 1);
+	}
+	
+	/**
+	 * Appends the object.
+	 * @param object The object
+	 * @return The new version of the array*/
+	public SSDPersistentArray appendObject(SSDObject object) {
+		return with(Integer.toString(currentIndex), object, currentIndex + 1);
+	}
+	
+	/**
+	 * Removes the object. When the object does not exist,
+	 * the same version is returned.
+	 * @param name The object's name
+	 * @return The new version of the array*/
+	public SSDPersistentArray removeObject(String name) {
+		return without(name);
+	}
+	
+	/**
+	 * Removes the object. When the object does not exist,
+	 * the same version is returned.
+	 * @param path The object's precompiled path
+	 * @return The new version of the array*/
+	public SSDPersistentArray removeObject(SSDPath path) {
+		return without(path.path());
+	}
+	
+	/**
+	 * Gets the number of objects in the array.
+	 * @return The number of objects*/
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Checks whether the array has no objects.
+	 * @return True, if the array is empty, otherwise false*/
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Gets all entries of the array in the order in which
+	 * the objects were added. The entries are ordered only once
+	 * for each version.
+	 * @return The array of entries, it must not be changed*/
+	private ObjectEntry[] entries() {
+		ObjectEntry[] entries = ordered;
+		if(entries == null) {
+			List<ObjectEntry> list = new ArrayList<>(size);
+			root.collect(list);
+			entries = list.toArray(new ObjectEntry[list.size()]);
+			Arrays.sort(entries, Comparator.comparingLong((entry) -> entry.order));
+			// Versions are immutable, so are their ordered entries
+			ordered = entries;
+		}
+		
+		return entries;
+	}
+	
+	/**
+	 * Gets all objects that are stored in the array, in the order
+	 * in which they were added.
+	 * @return The Map (list) of all stored objects*/
+	public Map<String, SSDObject> getAllObjects() {
+		Map<String, SSDObject> objects = new LinkedHashMap<>();
+		for(ObjectEntry entry : entries())
+			objects.put(entry.name, entry.object);
+		return objects;
+	}
+	
+	/**
+	 * Creates a mutable array with all objects of this version.
+	 * @return The SSD Array object with all the objects*/
+	public SSDArray toArray() {
+		return new SSDArray("", getAllObjects());
+	}
+	
+	/**
+	 * Gets the iterator of all objects in the order in which
+	 * they were added.
+	 * @return The iterator object*/
+	@Override
+	public Iterator<SSDObject> iterator() {
+		ObjectEntry[] entries = entries();
+		return new Iterator<SSDObject>() {
+			
+			/**
+			 * The index of the next entry*/
+			private int index;
+			
+			@Override
+			public boolean hasNext() {
+				return index < entries.length;
+			}
+			
+			@Override
+			public SSDObject next() {
+				if(index >= entries.length)
+					throw new NoSuchElementException();
+				return entries[index++].object;
+			}
+		};
+	}
+	
+	/**
+	 * Called when the array should be converted
+	 * into a string.
+	 * @return The string of the array*/
+	@Override
+	public String toString() {
+		return getAllObjects().toString();
+	}
+	
+	/**
+	 * Represents a stored object.
+	 * @author Sune*/
+	private static final class ObjectEntry {
+		
+		/**
+		 * The object's full name*/
+		final String name;
+		/**
+		 * The hash of the name*/
+		final int hash;
+		/**
+		 * The object*/
+		final SSDObject object;
+		/**
+		 * The order in which the object was added*/
+		final long order;
+		
+		/**
+		 * Creates new instance of Object Entry.
+		 * @param name	 The object's full name
+		 * @param hash	 The hash of the name
+		 * @param object The object
+		 * @param order	 The order in which the object was added*/
+		ObjectEntry(String name, int hash, SSDObject object, long order) {
+			this.name	= name;
+			this.hash	= hash;
+			this.object = object;
+			this.order	= order;
+		}
+	}
+	
+	/**
+	 * Represents a node of the trie. Nodes are never changed, a changed
+	 * node is always copied.
+	 * @author Sune*/
+	private static abstract class Node {
+		
+		/**
+		 * Finds the entry with the given name.
+		 * @param name	The name
+		 * @param hash	The hash of the name
+		 * @param shift The shift of this node's level
+		 * @return The entry, or null, if there is no such entry*/
+		abstract ObjectEntry find(String name, int hash, int shift);
+		
+		/**
+		 * Puts the given entry to a copy of this node.
+		 * @param entry The entry
+		 * @param shift The shift of this node's level
+		 * @return The new node*/
+		abstract Node put(ObjectEntry entry, int shift);
+		
+		/**
+		 * Removes the entry with the given name from a copy of this node.
+		 * @param name	The name
+		 * @param hash	The hash of the name
+		 * @param shift The shift of this node's level
+		 * @return The new node, or null, if the node is empty*/
+		abstract Node remove(String name, int hash, int shift);
+		
+		/**
+		 * Gets the only entry of this node.
+		 * @return The entry, or null, if the node does not contain
+		 * 		   exactly one entry*/
+		abstract ObjectEntry single();
+		
+		/**
+		 * Adds all entries of this node to the given list.
+		 * @param entries The list of entries*/
+		abstract void collect(List<ObjectEntry> entries);
+	}
+	
+	/**
+	 * Represents a node whose items, entries or child nodes, are
+	 * indexed by a part of the hash.
+	 * @author Sune*/
+	private static final class BitmapNode extends Node {
+		
+		/**
+		 * The empty node*/
+		static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+		
+		/**
+		 * The bits of positions that have an item*/
+		final int bitmap;
+		/**
+		 * The items, entries or child nodes*/
+		final Object[] items;
+		
+		/**
+		 * Creates new instance of Bitmap Node.
+		 * @param bitmap The bits of positions that have an item
+		 * @param items	 The items*/
+		BitmapNode(int bitmap, Object[] items) {
+			this.bitmap = bitmap;
+			this.items	= items;
+		}
+		
+		/**
+		 * Creates a node with the two given entries of different names.
+		 * @param a		The first entry
+		 * @param b		The second entry
+		 * @param shift The shift of the node's level
+		 * @return The node*/
+		static Node of(ObjectEntry a, ObjectEntry b, int shift) {
+			if(a.hash == b.hash || shift >= 32)
+				return new CollisionNode(new ObjectEntry[] { a, b });
+			
+			int bitA = bit(a.hash, shift);
+			int bitB = bit(b.hash, shift);
+			if(bitA == bitB)
+				return new BitmapNode(bitA, new Object[] { of(a, b, shift + BITS) });
+			
+			// The items are sorted by their positions, compared as unsigned
+			return new BitmapNode(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0
+				? new Object[] { a, b }
+				: new Object[] { b, a });
+		}
+		
+		/**
+		 * Gets the index of the item at the given position.
+		 * @param bit The bit of the position
+		 * @return The index*/
+		int index(int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+		
+		@Override
+		ObjectEntry find(String name, int hash, int shift) {
+			int bit = bit(hash, shift);
+			if((bitmap & bit) == 0)
+				return null;
+			
+			Object item = items[index(bit)];
+			if(item instanceof ObjectEntry) {
+				ObjectEntry entry = (ObjectEntry) item;
+				return entry.hash == hash && entry.name.equals(name) ? entry : null;
+			}
+			
+			return ((Node) item).find(name, hash, shift + BITS);
+		}
+		
+		@Override
+		Node put(ObjectEntry entry, int shift) {
+			int bit   = bit(entry.hash, shift);
+			int index = index(bit);
+			if((bitmap & bit) == 0) {
+				Object[] copy = new Object[items.length + 1];
+				System.arraycopy(items, 0, copy, 0, index);
+				copy[index] = entry;
+				System.arraycopy(items, index, copy, index + 1, items.length - index);
+				return new BitmapNode(bitmap | bit, copy);
+			}
+			
+			Object item = items[index];
+			Object replacement;
+			if(item instanceof ObjectEntry) {
+				ObjectEntry current = (ObjectEntry) item;
+				replacement = current.hash == entry.hash && current.name.equals(entry.name)
+					? entry
+					: of(current, entry, shift + BITS);
+			} else {
+				replacement = ((Node) item).put(entry, shift + BITS);
+			}
+			
+			Object[] copy = items.clone();
+			copy[index] = replacement;
+			return new BitmapNode(bitmap, copy);
+		}
+		
+		@Override
+		Node remove(String name, int hash, int shift) {
+			int bit = bit(hash, shift);
+			if((bitmap & bit) == 0)
+				return this;
+			
+			int index	= index(bit);
+			Object item = items[index];
+			if(item instanceof ObjectEntry) {
+				ObjectEntry entry = (ObjectEntry) item;
+				if(entry.hash != hash || !entry.name.equals(name))
+					return this;
+				return without(bit, index);
+			}
+			
+			Node child	  = (Node) item;
+			Node newChild = child.remove(name, hash, shift + BITS);
+			if(newChild == child)
+				return this;
+			if(newChild == null)
+				return without(bit, index);
+			
+			// A child node with a single entry is replaced by the entry
+			ObjectEntry single = newChild.single();
+			Object[] copy	   = items.clone();
+			copy[index] = single != null ? single : newChild;
+			return new BitmapNode(bitmap, copy);
+		}
+		
+		/**
+		 * Creates a copy of this node without the item at the given position.
+		 * @param bit	The bit of the position
+		 * @param index The index of the item
+		 * @return The new node, or null, if the node is empty*/
+		Node without(int bit, int index) {
+			if(items.length == 1)
+				return null;
+			
+			Object[] copy = new Object[items.length - 1];
+			System.arraycopy(items, 0, copy, 0, index);
+			System.arraycopy(items, index + 1, copy, index, copy.length - index);
+			return new BitmapNode(bitmap & ~bit, copy);
+		}
+		
+		@Override
+		ObjectEntry single() {
+			return items.length == 1 && items[0] instanceof ObjectEntry
+						? (ObjectEntry) items[0]
+						: null;
+		}
+		
+		@Override
+		void collect(List<ObjectEntry> entries) {
+			for(Object item : items) {
+				if(item instanceof ObjectEntry) entries.add((ObjectEntry) item);
+				else 							((Node) item).collect(entries);
+			}
+		}
+	}
+	
+	/**
+	 * Represents a node of entries whose names have the same hash.
+	 * @author Sune*/
+	private static final class CollisionNode extends Node {
+		
+		/**
+		 * The entries*/
+		final ObjectEntry[] entries;
+		
+		/**
+		 * Creates new instance of Collision Node.
+		 * @param entries The entries*/
+		CollisionNode(ObjectEntry[] entries) {
+			this.entries = entries;
+		}
+		
+		/**
+		 * Gets the index of the entry with the given name.
+		 * @param name The name
+		 * @return The index, or -1, if there is no such entry*/
+		int indexOf(String name) {
+			for(int i = 0; i < entries.length; i++) {
+				if(entries[i].name.equals(name))
+					return i;
+			}
+			
+			return -1;
+		}
+		
+		@Override
+		ObjectEntry find(String name, int hash, int shift) {
+			int index = indexOf(name);
+			return index >= 0 ? entries[index] : null;
+		}
+		
+		@Override
+		Node put(ObjectEntry entry, int shift) {
+			if(entry.hash != entries[0].hash) {
+				// An entry with a different hash splits the node
+				Node node = BitmapNode.EMPTY;
+				for(ObjectEntry current : entries)
+					node = node.put(current, shift);
+				return node.put(entry, shift);
+			}
+			
+			int index = indexOf(entry.name);
+			ObjectEntry[] copy;
+			if(index >= 0) {
+				copy = entries.clone();
+				copy[index] = entry;
+			} else {
+				copy = Arrays.copyOf(entries, entries.length + 1);
+				copy[entries.length] = entry;
+			}
+			
+			return new CollisionNode(copy);
+		}
+		
+		@Override
+		Node remove(String name, int hash, int shift) {
+			int index = indexOf(name);
+			if(index < 0)
+				return this;
+			if(entries.length == 1)
+				return null;
+			
+			ObjectEntry[] copy = new ObjectEntry[entries.length - 1];
+			System.arraycopy(entries, 0, copy, 0, index);
+			System.arraycopy(entries, index + 1, copy, index, copy.length - index);
+			return new CollisionNode(copy);
+		}
+		
+		@Override
+		ObjectEntry single() {
+			return entries.length == 1 ? entries[0] : null;
+		}
+		
+		@Override
+		void collect(List<ObjectEntry> entries) {
+			entries.addAll(Arrays.asList(this.entries));
+		}
+	}
+}
\ No newline at end of file
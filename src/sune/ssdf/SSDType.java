@@ -1,5 +1,7 @@
 package sune.ssdf;
 
+import java.util.regex.Pattern;
+
 /**
  * Stores all supported data types of
  * objects in SSD Files.
@@ -14,16 +16,19 @@ public enum SSDType {
 	/**
 	 * Represents an integer object. In SSD File
 	 * it is defined as a collection of only-number
-	 * characters.*/
-	INTEGER("^(\\d+)$"),
+	 * characters, optionally preceded by a minus sign.*/
+	INTEGER("^(-?\\d+)$"),
 	/**
 	 * Represents a floating number object. In SSD
 	 * File it is defined as a collection of number
 	 * characters and dot character, that is used
 	 * to split the number on two parts, where the
 	 * first defines the normal numbers and the
-	 * second defines the decimal numbers.*/
-	FLOAT("^(\\d+\\.\\d+)$"),
+	 * second defines the decimal numbers. It can be
+	 * preceded by a minus sign and followed by
+	 * an exponent (e.g. <code>-1.5e10</code>), in which
+	 * case the decimal numbers are optional.*/
+	FLOAT("^(-?\\d+(?:\\.\\d+(?:[eE][+-]?\\d+)?|[eE][+-]?\\d+))$"),
 	/**
 	 * Represents a truth object. In SSD File
 	 * it is defined by two words: true and false.*/
@@ -43,12 +48,16 @@ public enum SSDType {
 	 * The string of the object type written in
 	 * regular expression.*/
 	private String regex;
+	/**
+	 * The compiled regular expression of the object type.*/
+	private Pattern pattern;
 	
 	/**
 	 * Creates new instance of Data Type.
 	 * @param regex The string written in regular expression*/
 	private SSDType(String regex) {
-		this.regex = regex;
+		this.regex 	 = regex;
+		this.pattern = Pattern.compile(regex);
 	}
 	
 	/**
@@ -57,4 +66,12 @@ public enum SSDType {
 	public String getRegex() {
 		return regex;
 	}
+	
+	/**
+	 * Gets the compiled regular expression of the object type.
+	 * @return The compiled regular expression
+	 * @since 1.2*/
+	public Pattern getPattern() {
+		return pattern;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.junit.Test;
+
+/**
+ * Tests of appending and iterating of arrays.
+ * @author Sune
+ * @since 1.2*/
+public class SSDArrayTest {
+	
+	/**
+	 * An array appended to itself gets all its objects once more.*/
+	@Test
+	public void appendsItself() {
+		SSDArray main  = new SSDFCore("{a:[1,2]}").getArray();
+		SSDArray array = main.getArray("a");
+		array.appendArray(array);
+		assertEquals(4, array.getAllObjects().size());
+	}
+	
+	/**
+	 * An array appended to the array it is a view of gets
+	 * all its objects.*/
+	@Test
+	public void appendsViewToItsParent() {
+		SSDArray main = new SSDFCore("{a:[1,2],b:3}").getArray();
+		main.appendArray(main.getArray("a"));
+		assertEquals(5, main.getAllObjects().size());
+		assertEquals(1, main.getInt("0", 0));
+		assertEquals(2, main.getInt("1", 0));
+	}
+	
+	/**
+	 * An array is iterated in the order of its objects.*/
+	@Test
+	public void iteratesInOrder() {
+		SSDArray array = new SSDArray("");
+		for(int i = 0; i < 1000; i++)
+			array.appendObject(i);
+		
+		int count = 0;
+		for(SSDObject object : array)
+			assertEquals(count++, object.integerValue());
+		assertEquals(1000, count);
+	}
+	
+	/**
+	 * A view of an array is iterated over its own objects only.*/
+	@Test
+	public void iteratesView() {
+		SSDArray array = new SSDFCore("{a:1,b:[2,3,4],c:5}").getArray().getArray("b");
+		int sum = 0, count = 0;
+		for(SSDObject object : array) {
+			sum += object.integerValue();
+			count++;
+		}
+		
+		assertEquals(3, count);
+		assertEquals(9, sum);
+	}
+	
+	/**
+	 * Reading after the last object of an iterator fails.*/
+	@Test(expected=ArrayIndexOutOfBoundsException.class)
+	public void failsAfterLastObject() {
+		Iterator<SSDObject> iterator = new SSDFCore("{a:1}").getArray().iterator();
+		iterator.next();
+		assertFalse(iterator.hasNext());
+		iterator.next();
+	}
+	
+	/**
+	 * A missing array of a path is null.*/
+	@Test
+	public void returnsNullForMissingArray() {
+		SSDArray array = new SSDFCore("{a:[1]}").getArray();
+		assertNull(array.getArray(SSDPath.compile("b")));
+		assertNull(array.getObject(SSDPath.compile("a.1")));
+	}
+	
+	/**
+	 * A returned array keeps the objects it had, when its parent
+	 * is changed.*/
+	@Test
+	public void keepsObjectsWhenParentChanges() {
+		SSDArray main  = new SSDFCore("{a:{x:1,y:2},b:3}").getArray();
+		SSDArray array = main.getArray("a");
+		main.setObject("a.z", 3);
+		main.removeObject("a.x");
+		assertEquals(Arrays.asList("x", "y"), new ArrayList<>(array.getAllObjects().keySet()));
+		assertEquals(Arrays.asList("y", "z"), new ArrayList<>(main.getArray("a").getAllObjects().keySet()));
+	}
+	
+	/**
+	 * A returned array can be iterated, while its parent is changed.*/
+	@Test
+	public void iteratesWhileParentChanges() {
+		SSDArray main  = new SSDFCore("{a:{b:{x:1,y:2,z:3}},c:4}").getArray();
+		SSDArray array = main.getArray("a").getArray("b");
+		List<String> names = new ArrayList<>();
+		for(SSDObject object : array) {
+			names.add(object.name());
+			main.setObject("a.b.w" + names.size(), 5);
+		}
+		
+		assertEquals(Arrays.asList("a.b.x", "a.b.y", "a.b.z"), names);
+		assertEquals(3, array.getAllObjects().size());
+		assertEquals(6, main.getArray("a.b").getAllObjects().size());
+	}
+	
+	/**
+	 * Objects removed by an iterator of a returned array are not
+	 * iterated again, when the parent is changed.*/
+	@Test
+	public void removesWhileParentChanges() {
+		SSDArray main  = new SSDFCore("{a:[1,2,3,4]}").getArray();
+		SSDArray array = main.getArray("a");
+		List<String> names = new ArrayList<>();
+		for(Iterator<Entry<String, SSDObject>> it = array.getObjects().entrySet().iterator(); it.hasNext();) {
+			String name = it.next().getKey();
+			names.add(name);
+			if(name.equals("1")) {
+				it.remove();
+				main.setObject("a.4", 5);
+			}
+		}
+		
+		assertEquals(Arrays.asList("0", "1", "2", "3"), names);
+		assertEquals(Arrays.asList("0", "2", "3"), new ArrayList<>(array.getAllObjects().keySet()));
+		assertEquals(5, main.getAllObjects().size());
+	}
+}
\ No newline at end of file
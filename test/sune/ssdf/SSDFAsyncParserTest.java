@@ -0,0 +1,74 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests of reading of documents from chunks of bytes.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFAsyncParserTest {
+	
+	/**
+	 * Gets the bytes of the given content.
+	 * @param content The content
+	 * @return The buffer of bytes*/
+	private static ByteBuffer bytes(String content) {
+		return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Documents split between chunks are read.*/
+	@Test
+	public void readsSplitDocuments() {
+		SSDFAsyncParser parser = new SSDFAsyncParser();
+		assertEquals(0, parser.feed(bytes("{a:\"x}\",")));
+		assertEquals(1, parser.feed(bytes("b:1}  {c:")));
+		assertEquals(1, parser.feed(bytes("2}")));
+		assertEquals(0, parser.finish());
+		assertEquals("x}", parser.poll().getString("a", null));
+		assertEquals(2, parser.poll().getInt("c", 0));
+	}
+	
+	/**
+	 * The parser reads other input after the listener failed.*/
+	@Test
+	public void readsAfterFailedListener() {
+		List<SSDArray> arrays = new ArrayList<>();
+		SSDFAsyncParser parser = new SSDFAsyncParser();
+		parser.setListener((array) -> {
+			if(array.hasObject("fail"))
+				throw new IllegalStateException();
+			arrays.add(array);
+		});
+		
+		try {
+			parser.feed(bytes("{fail:1}"));
+			fail("The listener did not fail");
+		} catch(IllegalStateException ex) {
+			// Expected
+		}
+		
+		assertEquals(1, parser.feed(bytes("{a:1}")));
+		parser.reset();
+		assertEquals(1, parser.feed(bytes("{b:2}")));
+		assertEquals(2, arrays.size());
+		assertEquals(2, arrays.get(1).getInt("b", 0));
+	}
+	
+	/**
+	 * The input cannot end inside a document.*/
+	@Test(expected=SSDFException.class)
+	public void rejectsUnfinishedDocument() {
+		SSDFAsyncParser parser = new SSDFAsyncParser();
+		parser.feed(bytes("{a:1"));
+		parser.finish();
+	}
+}
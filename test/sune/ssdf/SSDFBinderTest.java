@@ -0,0 +1,96 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Tests of binding and unbinding of objects.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFBinderTest {
+	
+	/**
+	 * A class with values of all kinds.
+	 * @author Sune*/
+	static final class Values {
+		String text;
+		long count;
+		double ratio;
+		boolean enabled;
+		BigInteger big;
+		BigDecimal exact;
+		Object raw;
+	}
+	
+	/**
+	 * A class with a number that is not supported.
+	 * @author Sune*/
+	static final class Counter {
+		AtomicLong count;
+	}
+	
+	/**
+	 * Unbound values have their types and are bound back unchanged.*/
+	@Test
+	public void bindsUnboundValues() {
+		Values values  = new Values();
+		values.text	   = "x\ny \"quoted\"";
+		values.count   = Long.MIN_VALUE;
+		values.ratio   = -2.5e-300;
+		values.enabled = true;
+		values.big	   = new BigInteger("123456789012345678901234567890");
+		values.exact   = new BigDecimal("-1234.5678901234567890");
+		values.raw	   = 42L;
+		
+		SSDArray array = SSDFBinder.unbind(values);
+		assertEquals(SSDType.STRING, array.getObject("text").type());
+		assertEquals(values.text, array.getObject("text").stringValue());
+		assertEquals(SSDType.INTEGER, array.getObject("count").type());
+		assertEquals(SSDType.FLOAT, array.getObject("ratio").type());
+		assertEquals(SSDType.BOOLEAN, array.getObject("enabled").type());
+		assertEquals(SSDType.INTEGER, array.getObject("big").type());
+		assertEquals(SSDType.FLOAT, array.getObject("exact").type());
+		
+		Values bound = SSDFBinder.bind(array, Values.class);
+		assertEquals(values.text, bound.text);
+		assertEquals(values.count, bound.count);
+		assertEquals(values.ratio, bound.ratio, 0.0);
+		assertEquals(values.enabled, bound.enabled);
+		assertEquals(values.big, bound.big);
+		assertEquals(values.exact, bound.exact);
+		assertEquals(values.raw, bound.raw);
+	}
+	
+	/**
+	 * Numbers read from content are bound to big numbers.*/
+	@Test
+	public void bindsBigNumbers() {
+		Values bound = SSDFBinder.bind(new SSDFCore(
+			"{big:98765432109876543210,exact:1.5e3,text:null}").getArray(), Values.class);
+		assertEquals(new BigInteger("98765432109876543210"), bound.big);
+		assertEquals(new BigDecimal("1.5e3"), bound.exact);
+		assertNull(bound.text);
+	}
+	
+	/**
+	 * Infinite numbers are unbound as nulls.*/
+	@Test
+	public void unbindsInfinityAsNull() {
+		Values values = new Values();
+		values.ratio  = Double.POSITIVE_INFINITY;
+		assertEquals(SSDType.NULL, SSDFBinder.unbind(values).getObject("ratio").type());
+	}
+	
+	/**
+	 * Numbers that cannot be bound are rejected in both directions.*/
+	@Test(expected=IllegalArgumentException.class)
+	public void rejectsUnsupportedNumber() {
+		SSDFBinder.unbind(new Counter());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of caching of read files.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFCacheTest {
+	
+	/**
+	 * The SSD File*/
+	private Path file;
+	/**
+	 * The cache*/
+	private SSDFCache cache;
+	
+	@Before
+	public void createFile() throws IOException {
+		file  = Files.createTempFile("ssdf-cache", ".ssdf");
+		cache = new SSDFCache(1024L * 1024L);
+		write("{a:1,l:[{v:1},{v:2},{v:3}]}");
+	}
+	
+	@After
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+	
+	/**
+	 * Writes the given content to the file.
+	 * @param content The content
+	 * @throws IOException When the file cannot be written*/
+	private void write(String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * The file is read once, until it changes.*/
+	@Test
+	public void readsChangedFileAgain() throws IOException {
+		SSDFCore document = cache.get(file);
+		assertSame(document, cache.get(file));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		
+		write("{a:22}");
+		SSDFCore changed = cache.get(file);
+		assertNotSame(document, changed);
+		assertEquals(22, changed.getArray().getInt("a", 0));
+		assertEquals(1, document.getArray().getInt("a", 0));
+		assertEquals(1, cache.size());
+	}
+	
+	/**
+	 * Objects of a cached document cannot be changed.*/
+	@Test(expected=UnsupportedOperationException.class)
+	public void rejectsChange() throws IOException {
+		cache.get(file).getArray().setObject("a", 2);
+	}
+	
+	/**
+	 * Indexes of a cached document cannot be created.*/
+	@Test(expected=UnsupportedOperationException.class)
+	public void rejectsIndex() throws IOException {
+		SSDArray array = cache.get(file).getArray();
+		assertFalse(array.removeIndex("l", "v"));
+		array.createIndex("l", "v");
+	}
+	
+	/**
+	 * Arrays of a cached document are read by more threads at once.*/
+	@Test
+	public void readsArraysConcurrently() throws Exception {
+		SSDArray array = cache.get(file).getArray();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for(int i = 0; i < 4; i++) {
+				results.add(executor.submit((Callable<Integer>) () -> {
+					int sum = 0;
+					for(int k = 0; k < 10000; k++) {
+						for(SSDObject object : array.getArray("l"))
+							sum += object.integerValue();
+					}
+					return sum;
+				}));
+			}
+			
+			for(Future<Integer> result : results)
+				assertEquals(60000, (int) result.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
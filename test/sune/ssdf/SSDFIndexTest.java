@@ -0,0 +1,80 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests of indexes of fields of arrays.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFIndexTest {
+	
+	/**
+	 * Gets the names of the given elements.
+	 * @param elements The elements
+	 * @return The names*/
+	private static List<String> names(List<SSDArray> elements) {
+		List<String> names = new ArrayList<>();
+		for(SSDArray element : elements)
+			names.add(element.getName());
+		return names;
+	}
+	
+	/**
+	 * Elements of an array in a named array are found.*/
+	@Test
+	public void looksUpInNamedArray() {
+		SSDArray array = new SSDArray("cfg");
+		array.setObject("users.0.id", 7);
+		array.setObject("users.1.id", 8);
+		array.setObject("users.1.name", "Ann");
+		array.createIndex("users", "id");
+		
+		SSDArray element = array.lookup("users", "id", 8).get();
+		assertEquals("cfg.users.1", element.getName());
+		assertEquals("Ann", element.getString("name", null));
+		assertFalse(array.lookup("users", "id", 9).isPresent());
+	}
+	
+	/**
+	 * The index is updated when values are set and arrays are removed.*/
+	@Test
+	public void updatesOnChanges() {
+		SSDArray array = new SSDArray("cfg");
+		array.setObject("users.0.id", 7);
+		array.setObject("users.1.id", 8);
+		array.createIndex("users", "id", true);
+		
+		array.setObject("users.2.id", 8);
+		array.setObject("users.0.id", 9);
+		assertEquals(Arrays.asList("cfg.users.1", "cfg.users.2"),
+			names(array.lookupAll("users", "id", 8)));
+		assertFalse(array.lookup("users", "id", 7).isPresent());
+		assertTrue(array.lookup("users", "id", 9).isPresent());
+		
+		array.removeArray("users.1");
+		assertEquals(Arrays.asList("cfg.users.2"), names(array.lookupAll("users", "id", 8)));
+		assertEquals(Arrays.asList("cfg.users.2", "cfg.users.0"),
+			names(array.lookupRange("users", "id", 8, 10)));
+		
+		array.removeArray("users");
+		assertFalse(array.lookup("users", "id", 9).isPresent());
+	}
+	
+	/**
+	 * Numbers are compared by their values, not by their text.*/
+	@Test
+	public void comparesNumbersByValue() {
+		SSDArray array = new SSDFCore("{items:[{v:4711},{v:4711.0},{v:\"4711\"}]}").getArray();
+		array.createIndex("items", "v");
+		assertEquals(Arrays.asList("items.0", "items.1"), names(array.lookupAll("items", "v", 4711)));
+		assertEquals(Arrays.asList("items.2"), names(array.lookupAll("items", "v", "4711")));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of replaying and compacting of journals, including journals
+ * left by a crash.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFJournalTest {
+	
+	/**
+	 * The directory of the files*/
+	private Path directory;
+	/**
+	 * The SSD File*/
+	private Path file;
+	
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("ssdf-journal");
+		file	  = directory.resolve("data.ssdf");
+	}
+	
+	@After
+	public void deleteDirectory() throws IOException {
+		try(Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach((path) -> path.toFile().delete());
+		}
+	}
+	
+	/**
+	 * Records appended before a crash, i.e. without closing the journal,
+	 * are replayed when the file is opened again.*/
+	@Test
+	public void replaysRecordsAfterCrash() throws IOException {
+		SSDFJournal crashed = SSDFJournal.open(file);
+		crashed.getArray().setObject("a", 1);
+		crashed.getArray().setObject("b", "text");
+		crashed.getArray().setObject("c", true);
+		crashed.getArray().removeObject("c");
+		
+		try(SSDFJournal journal = SSDFJournal.open(file)) {
+			assertEquals(4, journal.getRecordCount());
+			assertEquals(1, journal.getArray().getInt("a", 0));
+			assertEquals("text", journal.getArray().getString("b", null));
+			assertFalse(journal.getArray().hasObject("c"));
+		} finally {
+			crashed.close();
+		}
+	}
+	
+	/**
+	 * A record that was not written completely is ignored and new records
+	 * are appended after the last complete record.*/
+	@Test
+	public void ignoresIncompleteRecord() throws IOException {
+		try(SSDFJournal journal = SSDFJournal.open(file)) {
+			journal.getArray().setObject("a", 1);
+		}
+		
+		Path journalFile = file.resolveSibling("data.ssdf.journal");
+		Files.write(journalFile, "S\tb\tb\tINT".getBytes(StandardCharsets.UTF_8),
+			StandardOpenOption.APPEND);
+		try(SSDFJournal journal = SSDFJournal.open(file)) {
+			assertEquals(1, journal.getRecordCount());
+			assertFalse(journal.getArray().hasObject("b"));
+			journal.getArray().setObject("c", 3);
+		}
+		
+		try(SSDFJournal journal = SSDFJournal.open(file)) {
+			assertEquals(2, journal.getRecordCount());
+			assertEquals(1, journal.getArray().getInt("a", 0));
+			assertEquals(3, journal.getArray().getInt("c", 0));
+		}
+	}
+	
+	/**
+	 * A compaction interrupted by a crash, after the records were moved
+	 * aside, is finished when the file is opened again.*/
+	@Test
+	public void finishesInterruptedCompaction() throws IOException {
+		try(SSDFJournal journal = SSDFJournal.open(file)) {
+			journal.getArray().setObject("a", 1);
+			journal.getArray().setObject("b", 2);
+		}
+		
+		Path journalFile	= file.resolveSibling("data.ssdf.journal");
+		Path compactingFile = file.resolveSibling("data.ssdf.journal.old");
+		Files.move(journalFile, compactingFile, StandardCopyOption.ATOMIC_MOVE);
+		try(SSDFJournal journal = SSDFJournal.open(file)) {
+			assertEquals(2, journal.getArray().getInt("b", 0));
+			journal.getArray().setObject("c", 3);
+			journal.compact();
+			assertFalse(Files.exists(compactingFile));
+		}
+		
+		Files.deleteIfExists(journalFile);
+		SSDArray array = new SSDFCore(file.toFile()).getArray();
+		assertEquals(1, array.getInt("a", 0));
+		assertEquals(2, array.getInt("b", 0));
+		assertEquals(3, array.getInt("c", 0));
+	}
+	
+	/**
+	 * The journal is compacted to the file once it has enough records.*/
+	@Test
+	public void compactsAfterThreshold() throws IOException {
+		try(SSDFJournal journal = SSDFJournal.open(file, 5)) {
+			for(int i = 0; i < 12; i++)
+				journal.getArray().setObject("item" + i, i);
+			journal.compact();
+			assertEquals(0, journal.getRecordCount());
+		}
+		
+		assertTrue(Files.exists(file));
+		SSDArray array = new SSDFCore(file.toFile()).getArray();
+		for(int i = 0; i < 12; i++)
+			assertEquals(i, array.getInt("item" + i, -1));
+	}
+}
\ No newline at end of file
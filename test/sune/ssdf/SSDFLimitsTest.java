@@ -0,0 +1,121 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests of limits of read content.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFLimitsTest {
+	
+	/**
+	 * Reads the given content with the given limits, it has to fail.
+	 * @param limits  The limits
+	 * @param content The content
+	 * @return The exception*/
+	private static SSDFException violation(SSDFLimits limits, String content) {
+		SSDFParser parser = new SSDFParser();
+		parser.setLimits(limits);
+		try {
+			parser.parse(content);
+		} catch(SSDFException ex) {
+			return ex;
+		}
+		
+		fail("The content is within the limits: " + content);
+		return null;
+	}
+	
+	/**
+	 * Reads the given content with the given limits.
+	 * @param limits  The limits
+	 * @param content The content
+	 * @return The main array*/
+	private static SSDArray parse(SSDFLimits limits, String content) {
+		SSDFParser parser = new SSDFParser();
+		parser.setLimits(limits);
+		return parser.parse(content);
+	}
+	
+	/**
+	 * Strings, names, numbers and words are not longer than
+	 * the maximum length.*/
+	@Test
+	public void limitsLengthOfValues() {
+		SSDFLimits limits = new SSDFLimits().setMaxStringLength(8);
+		assertEquals(12345678, parse(limits, "{a:12345678}").getInt("a", 0));
+		assertEquals("abcdefgh", parse(limits, "{a:\"abcdefgh\"}").getString("a", null));
+		violation(limits, "{a:\"abcdefghi\"}");
+		violation(limits, "{abcdefghi:1}");
+		violation(limits, "{a:123456789}");
+		violation(limits, "{a:1234.56789}");
+		violation(limits, "{a:truetruetrue}");
+	}
+	
+	/**
+	 * A number or word is not read further than the maximum length,
+	 * even when it does not end.*/
+	@Test
+	public void stopsReadingLongNumber() {
+		StringBuilder content = new StringBuilder("{a:");
+		for(int i = 0; i < 1000000; i++)
+			content.append('7');
+		
+		SSDFException ex = violation(new SSDFLimits().setMaxStringLength(16), content.toString());
+		assertTrue(ex.getMessage(), ex.getPosition() <= 3 + 16);
+	}
+	
+	/**
+	 * The content is not larger than the maximum size.*/
+	@Test
+	public void limitsSizeOfContent() {
+		SSDFLimits limits = new SSDFLimits().setMaxDocumentSize(16);
+		assertEquals(1, parse(limits, "{a:1,b:2}").getInt("a", 0));
+		violation(limits, "{a:1,b:2,c:3,d:4,e:5}");
+	}
+	
+	/**
+	 * Arrays and objects are not nested deeper than the maximum depth.*/
+	@Test
+	public void limitsDepth() {
+		SSDFLimits limits = new SSDFLimits().setMaxDepth(3);
+		assertEquals(1, parse(limits, "{a:{b:{c:1}}}").getInt("a.b.c", 0));
+		violation(limits, "{a:{b:{c:{d:1}}}}");
+	}
+	
+	/**
+	 * The content does not have more items than the maximum count.*/
+	@Test
+	public void limitsElementCount() {
+		SSDFLimits limits = new SSDFLimits().setMaxElementCount(4);
+		parse(limits, "{a:1,b:2}");
+		violation(limits, "{a:[1,2,3,4,5]}");
+	}
+	
+	/**
+	 * A parser can read other content after a violation.*/
+	@Test
+	public void readsAfterViolation() {
+		SSDFParser parser = new SSDFParser();
+		parser.setLimits(new SSDFLimits().setMaxStringLength(4));
+		try {
+			parser.parse("{a:123456}");
+			fail("The content is within the limits");
+		} catch(SSDFException ex) {
+			// Expected
+		}
+		
+		assertEquals(1234, parser.parse("{a:1234}").getInt("a", 0));
+	}
+	
+	/**
+	 * Invalid limits are rejected.*/
+	@Test(expected=IllegalArgumentException.class)
+	public void rejectsInvalidLimit() {
+		new SSDFLimits().setMaxStringLength(0);
+	}
+}
\ No newline at end of file
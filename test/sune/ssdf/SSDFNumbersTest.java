@@ -0,0 +1,140 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of reading of numbers.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFNumbersTest {
+	
+	/**
+	 * Reads the number of the given text.
+	 * @param number The text of the number
+	 * @return The object of the number*/
+	private static SSDObject read(String number) {
+		return new SSDFCore("{a:" + number + "}").getArray().getObject("a");
+	}
+	
+	/**
+	 * Checks that the number of the given text is read the same
+	 * as by {@link Double#parseDouble(String)}.
+	 * @param number The text of the number*/
+	private static void assertParsed(String number) {
+		SSDObject object = read(number);
+		assertEquals(number, SSDType.FLOAT, object.type());
+		assertEquals(number, Double.doubleToRawLongBits(Double.parseDouble(number)),
+			Double.doubleToRawLongBits(object.doubleValue()));
+	}
+	
+	/**
+	 * Numbers halfway between two doubles and subnormal numbers
+	 * are rounded correctly.*/
+	@Test
+	public void roundsHardCases() {
+		assertEquals(Double.parseDouble("2.2250738585072011e-308"),
+			SSDFNumbers.toDouble(false, 22250738585072011L, -324), 0.0);
+		assertEquals(9007199254740992.0, SSDFNumbers.toDouble(false, 9007199254740993L, 0), 0.0);
+		assertEquals(9007199254740996.0, SSDFNumbers.toDouble(false, 9007199254740995L, 0), 0.0);
+		assertEquals(1e23, SSDFNumbers.toDouble(false, 1L, 23), 0.0);
+		
+		assertParsed("2.2250738585072011e-308");
+		assertParsed("2.2250738585072012e-308");
+		assertParsed("9007199254740993.0");
+		assertParsed("1e23");
+		assertParsed("8.98846567431158e307");
+		assertParsed("4.9406564584124654e-324");
+		assertParsed("2.4703282292062327e-324");
+		assertParsed("2.4703282292062328e-324");
+		assertParsed("1.7976931348623157e308");
+		assertParsed("1e309");
+		assertParsed("1e-400");
+	}
+	
+	/**
+	 * Negative numbers and negative exponents are read.*/
+	@Test
+	public void readsNegativeNumbers() {
+		assertEquals(-2.5, SSDFNumbers.toDouble(true, 25L, -1), 0.0);
+		assertEquals(-1e-300, SSDFNumbers.toDouble(true, 1L, -300), 0.0);
+		assertEquals(Double.doubleToRawLongBits(-0.0),
+			Double.doubleToRawLongBits(SSDFNumbers.toDouble(true, 0L, 5)));
+		
+		assertParsed("-1.5e-3");
+		assertParsed("-0.000001");
+		assertParsed("-4.9e-324");
+		assertParsed("-0.0");
+		assertParsed("1E+5");
+		assertEquals(-42, read("-42").integerValue());
+		assertEquals(SSDType.INTEGER, read("-42").type());
+	}
+	
+	/**
+	 * Integers with 19 digits are read, larger integers overflow.*/
+	@Test
+	public void readsLongIntegers() {
+		assertEquals(1234567890123456789L, read("1234567890123456789").longValue());
+		assertEquals(Long.MAX_VALUE, read("9223372036854775807").longValue());
+		assertEquals(Long.MIN_VALUE, read("-9223372036854775808").longValue());
+		assertEquals(999999999999999999L, read("999999999999999999").longValue());
+		assertEquals(9.223372036854775807e18, read("9223372036854775807").doubleValue(), 0.0);
+		assertEquals(SSDType.INTEGER, read("9223372036854775808").type());
+	}
+	
+	/**
+	 * A long value of an integer larger than a long is rejected.*/
+	@Test(expected=NumberFormatException.class)
+	public void rejectsLongOverflow() {
+		read("9223372036854775808").longValue();
+	}
+	
+	/**
+	 * An int value of an integer larger than an int is rejected.*/
+	@Test(expected=NumberFormatException.class)
+	public void rejectsIntegerOverflow() {
+		read("2147483648").integerValue();
+	}
+	
+	/**
+	 * Numbers with more than 19 digits, that are read by the fallback,
+	 * and random numbers are read the same as by {@link Double#parseDouble(String)}.*/
+	@Test
+	public void readsAsParseDouble() {
+		assertParsed("2.22507385850720113605740979670913197593481954e-308");
+		assertParsed("9007199254740993.00000000000000000001");
+		assertParsed("123456789012345678901234567890.0");
+		assertParsed("0.1000000000000000055511151231257827021181583404541015625");
+		
+		Random random = new Random(20);
+		for(int i = 0; i < 20000; i++) {
+			StringBuilder number = new StringBuilder();
+			if(random.nextBoolean())
+				number.append('-');
+			number.append(1 + random.nextInt(9));
+			for(int k = random.nextInt(25); k > 0; k--)
+				number.append(random.nextInt(10));
+			number.append('.').append(random.nextInt(10));
+			number.append('e').append(random.nextInt(660) - 340);
+			assertParsed(number.toString());
+		}
+		
+		for(int i = 0; i < 20000; i++) {
+			double value = Double.longBitsToDouble(random.nextLong());
+			if(!Double.isNaN(value) && !Double.isInfinite(value))
+				assertParsed(Double.toString(value));
+		}
+		
+		for(int i = 0; i < 20000; i++) {
+			long mantissa = random.nextLong() >>> random.nextInt(64);
+			int exponent  = random.nextInt(700) - 350;
+			double value  = SSDFNumbers.toDouble(false, mantissa, exponent);
+			assertTrue(Double.isNaN(value) || value == Double.parseDouble(
+				Long.toUnsignedString(mantissa) + "e" + exponent));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests of iterating of layered arrays.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFOverlayTest {
+	
+	/**
+	 * The base array*/
+	private static final String BASE = "{a:1,b:2,db:{host:\"x\",port:1},l:[1,2,3]}";
+	/**
+	 * The override*/
+	private static final String OVERRIDE = "{b:3,c:4,db:{port:2},l:[9]}";
+	
+	/**
+	 * Gets the names and values of all objects of the given array,
+	 * in the order they are iterated.
+	 * @param array The array
+	 * @return The names and values*/
+	private static List<String> iterate(SSDArray array) {
+		List<String> objects = new ArrayList<>();
+		for(SSDObject object : array)
+			objects.add(object.name() + "=" + object.value());
+		return objects;
+	}
+	
+	/**
+	 * Objects are merged, arrays are replaced and every object
+	 * is iterated once.*/
+	@Test
+	public void iteratesDefaultModes() {
+		SSDArray array = SSDFOverlay.of(new SSDFCore(BASE).getArray(),
+			new SSDFCore(OVERRIDE).getArray());
+		assertEquals(Arrays.asList("a=1", "b=3", "db.host=x", "db.port=2", "c=4", "l.0=9"),
+			iterate(array));
+		assertEquals(6, array.getAllObjects().size());
+	}
+	
+	/**
+	 * Objects are replaced, arrays are merged and every object
+	 * is iterated once.*/
+	@Test
+	public void iteratesOtherModes() {
+		SSDArray array = new SSDFOverlay()
+			.setObjectMode(SSDFOverlay.Mode.REPLACE)
+			.setArrayMode(SSDFOverlay.Mode.MERGE)
+			.overlay(new SSDFCore(BASE).getArray(), new SSDFCore(OVERRIDE).getArray());
+		assertEquals(Arrays.asList("a=1", "b=3", "l.0=9", "l.1=2", "l.2=3", "c=4", "db.port=2"),
+			iterate(array));
+		assertEquals(7, array.getAllObjects().size());
+		assertFalse(array.hasObject("db.host"));
+	}
+	
+	/**
+	 * The count of the objects is the same as the number of iterated
+	 * objects, however many times it is requested.*/
+	@Test
+	public void countsIteratedObjects() {
+		SSDArray array = SSDFOverlay.of(new SSDFCore(BASE).getArray(),
+			new SSDFCore(OVERRIDE).getArray(), new SSDFCore("{a:5,e:6}").getArray());
+		Map<String, SSDObject> objects = array.getObjects();
+		for(int i = 0; i < 3; i++) {
+			assertEquals(7, objects.size());
+			assertEquals(7, objects.entrySet().size());
+			assertEquals(7, iterate(array).size());
+		}
+		
+		assertEquals(5, array.getInt("a", 0));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of loading of only the requested paths.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFProjectionTest {
+	
+	/**
+	 * The names used in random content*/
+	private static final String[] NAMES = { "a", "b", "db", "cache", "ttl", "x1", "_y" };
+	/**
+	 * The scalars used in random content, some of them contain
+	 * brackets, quotes and comments*/
+	private static final String[] SCALARS = {
+		"-7", "1.5e3", "\"s{[,]}\\\"q\"", "'it''s'", "true", "null",
+		"\"#no /* comment */\"", "\"plain\"" };
+	
+	/**
+	 * Gets the types and values of the given objects.
+	 * @param objects The objects
+	 * @return The types and values, by the names of the objects*/
+	private static Map<String, String> values(Map<String, SSDObject> objects) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for(Entry<String, SSDObject> entry : objects.entrySet()) {
+			SSDObject object = entry.getValue();
+			values.put(entry.getKey(), object.type() + "=" + object.stringValue());
+		}
+		return values;
+	}
+	
+	/**
+	 * Appends a random value to the given content.
+	 * @param random  The random
+	 * @param content The content
+	 * @param depth	  The depth of the value*/
+	private static void value(Random random, StringBuilder content, int depth) {
+		if(depth >= 4 || random.nextInt(3) != 0) {
+			content.append(SCALARS[random.nextInt(SCALARS.length)]);
+			return;
+		}
+		
+		boolean array = random.nextBoolean();
+		content.append(array ? '[' : '{');
+		for(int i = 0, l = random.nextInt(5); i < l; i++) {
+			if(i > 0)
+				content.append(random.nextInt(4) == 0 ? " , # c}]\n" : ",");
+			if(random.nextInt(6) == 0)
+				content.append("/* }] */");
+			if(!array) {
+				String name = NAMES[random.nextInt(NAMES.length)];
+				content.append(random.nextBoolean() ? name : "\"" + name + "\"").append(": ");
+			}
+			value(random, content, depth + 1);
+		}
+		content.append(array ? ']' : '}');
+	}
+	
+	/**
+	 * Paths with wildcards match names of objects and arrays.*/
+	@Test
+	public void matchesPaths() {
+		SSDFProjection projection = SSDFProjection.of("db.*", "cache.ttl");
+		assertTrue(projection.matches("db.x.y"));
+		assertTrue(projection.matches("cache.ttl"));
+		assertFalse(projection.matches("db"));
+		assertFalse(projection.matches("cache.ttl2"));
+		assertFalse(projection.matches("cache"));
+		assertEquals(Arrays.asList("db.*", "cache.ttl"), projection.getPaths());
+	}
+	
+	/**
+	 * Only the requested objects are loaded, matched arrays and objects
+	 * are loaded as a whole.*/
+	@Test
+	public void loadsRequestedPaths() {
+		String content = "{a:1,db:{host:\"x}\",ports:[1,2]},cache:{ttl:5,size:9},l:[{v:1},{v:2}]}";
+		SSDArray array = SSDFCore.load(content, SSDFProjection.of("db.*", "cache.ttl", "l.*.v"))
+			.getArray();
+		Map<String, String> expected = new LinkedHashMap<>();
+		expected.put("db.host", "STRING=x}");
+		expected.put("db.ports.0", "INTEGER=1");
+		expected.put("db.ports.1", "INTEGER=2");
+		expected.put("cache.ttl", "INTEGER=5");
+		expected.put("l.0.v", "INTEGER=1");
+		expected.put("l.1.v", "INTEGER=2");
+		assertEquals(expected, values(array.getAllObjects()));
+	}
+	
+	/**
+	 * Loaded objects are the same as the matching objects of the whole
+	 * content, for random content and paths.*/
+	@Test
+	public void loadsAsFullContent() {
+		Random random = new Random(7);
+		for(int t = 0; t < 20000; t++) {
+			StringBuilder content = new StringBuilder("{");
+			for(int i = 0, l = random.nextInt(6); i < l; i++) {
+				if(i > 0)
+					content.append(',');
+				content.append(NAMES[random.nextInt(NAMES.length)]).append(':');
+				value(random, content, 0);
+			}
+			content.append('}');
+			
+			List<String> paths = new ArrayList<>();
+			for(int i = 0, l = 1 + random.nextInt(3); i < l; i++) {
+				StringBuilder path = new StringBuilder();
+				for(int j = 0, k = 1 + random.nextInt(3); j < k; j++) {
+					if(j > 0)
+						path.append('.');
+					int part = random.nextInt(4);
+					path.append(part == 0 ? "*" : part == 1 ? Integer.toString(random.nextInt(3))
+						: NAMES[random.nextInt(NAMES.length)]);
+				}
+				paths.add(path.toString());
+			}
+			
+			String document = content.toString();
+			SSDFProjection projection = SSDFProjection.of(paths.toArray(new String[0]));
+			Map<String, String> all = values(new SSDFCore(document).getArray().getAllObjects());
+			Map<String, String> expected = new LinkedHashMap<>();
+			for(Entry<String, String> entry : all.entrySet()) {
+				if(projection.matches(entry.getKey()))
+					expected.put(entry.getKey(), entry.getValue());
+			}
+			
+			String message = document + " " + paths;
+			assertEquals(message, expected,
+				values(SSDFCore.load(document, projection).getArray().getAllObjects()));
+			assertEquals(message, expected, values(SSDFCore.load(new ByteArrayInputStream(
+				document.getBytes(StandardCharsets.UTF_8)), projection).getArray().getAllObjects()));
+		}
+	}
+	
+	/**
+	 * Empty paths are rejected.*/
+	@Test(expected=IllegalArgumentException.class)
+	public void rejectsEmptyPart() {
+		SSDFProjection.of("db..host");
+	}
+}
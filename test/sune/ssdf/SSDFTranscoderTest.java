@@ -0,0 +1,126 @@
+package sune.ssdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of converting of content between SSDF Syntax and JSON.
+ * @author Sune
+ * @since 1.2*/
+public class SSDFTranscoderTest {
+	
+	/**
+	 * The tokens used in random content*/
+	private static final String[] TOKENS = {
+		"{", "}", "[", "]", ":", ",", "a", "b1", "\"s\"", "'q'", "12", "-3.5e2",
+		"true", "null", "x y", " ", "\n", "#c\n", "/*k*/", "\"e\\\"s\"", "'a\"b\\\\c'",
+		"\"t\nu\"", "0", "-", "1.", "1.2.3", "truex", "\"\u00e9\u0001\"" };
+	
+	/**
+	 * Gets the names, types and values of all objects of the given content.
+	 * Undefined values are read as nulls, the same as by the transcoder.
+	 * @param content The content in SSDF Syntax
+	 * @return The names, types and values*/
+	private static String dump(String content) {
+		StringBuilder dump = new StringBuilder();
+		for(Entry<String, SSDObject> entry : new SSDFCore(content).getArray().getAllObjects().entrySet()) {
+			SSDObject object = entry.getValue();
+			SSDType type = object.type() == SSDType.UNDEFINED ? SSDType.NULL : object.type();
+			dump.append(entry.getKey()).append('=').append(type).append(':');
+			if(type == SSDType.INTEGER)	  dump.append(object.longValue());
+			else if(type != SSDType.NULL) dump.append(object.stringValue());
+			dump.append(';');
+		}
+		return dump.toString();
+	}
+	
+	/**
+	 * Converts the given JSON content, it has to fail.
+	 * @param content The content in JSON
+	 * @return The exception*/
+	private static SSDFException violation(String content) {
+		try {
+			SSDFTranscoder.toSSDF(content);
+		} catch(SSDFException ex) {
+			return ex;
+		}
+		
+		fail("The content is valid: " + content);
+		return null;
+	}
+	
+	/**
+	 * Content in SSDF Syntax is converted to JSON.*/
+	@Test
+	public void convertsToJSON() {
+		assertEquals("{\"a\":7,\"b\":[],\"c\":{\"x\":null},\"d\":\"it\",\"e\":\"q\\\"\"}",
+			SSDFTranscoder.toJSON("# c\n{a: 007, b: [], c: {x: -}, d: 'it''s', /* c */ e: \"q\\\"\"}"));
+		assertEquals("{}", SSDFTranscoder.toJSON(""));
+	}
+	
+	/**
+	 * Content in JSON is converted to SSDF Syntax.*/
+	@Test
+	public void convertsToSSDF() {
+		String json = "{\"a\":1,\"b\":[1,2,{\"c\":\"x\\\"y\\\\z\\n\\u00e9\"}],"
+			+ "\"d\":{},\"e\":[],\"f\":-0.5e+3,\"g\":null,\"h\":true}";
+		SSDArray array = new SSDFCore(SSDFTranscoder.toSSDF(json)).getArray();
+		assertEquals(1, array.getInt("a", 0));
+		assertEquals(2, array.getInt("b.1", 0));
+		assertEquals("x\"y\\z\n\u00e9", array.getString("b.2.c", null));
+		assertEquals(-500.0, array.getObject("f").doubleValue(), 0.0);
+		assertEquals(SSDType.NULL, array.getObject("g").type());
+		assertEquals(SSDType.BOOLEAN, array.getObject("h").type());
+		assertEquals(7, array.getAllObjects().size());
+	}
+	
+	/**
+	 * Invalid JSON is rejected with the position of the problem.*/
+	@Test
+	public void rejectsInvalidJSON() {
+		assertEquals(1, violation("[1]").getColumn());
+		assertEquals(2, violation("{\"a b\":1}").getColumn());
+		assertEquals(8, violation("{\"a\":1,}").getColumn());
+		assertEquals(7, violation("{\"a\":01}").getColumn());
+		assertEquals(9, violation("{\"a\":1} x").getColumn());
+		assertEquals(8, violation("{\"a\":\"x").getColumn());
+		assertEquals(9, violation("{\"a\":[1,]}").getColumn());
+		assertEquals(8, violation("{\"a\":1.}").getColumn());
+		
+		SSDFException ex = violation("{\n\"a\":\n tru}");
+		assertEquals(3, ex.getLine());
+		assertEquals(5, ex.getColumn());
+		assertEquals(11, ex.getPosition());
+	}
+	
+	/**
+	 * Deeply nested content is converted without recursion.*/
+	@Test
+	public void convertsDeepContent() {
+		StringBuilder content = new StringBuilder("{a:");
+		for(int i = 0; i < 100000; i++)
+			content.append('[');
+		assertEquals(2 * 100000 + 6, SSDFTranscoder.toJSON(content.toString()).length());
+	}
+	
+	/**
+	 * Random content converted to JSON and back has the same objects.*/
+	@Test
+	public void convertsBack() {
+		Random random = new Random(1);
+		for(int i = 0; i < 20000; i++) {
+			StringBuilder content = new StringBuilder("{");
+			for(int j = 0, l = random.nextInt(30); j < l; j++)
+				content.append(TOKENS[random.nextInt(TOKENS.length)]);
+			
+			String ssdf = content.toString();
+			String json = SSDFTranscoder.toJSON(ssdf);
+			assertEquals(ssdf + " " + json, dump(ssdf), dump(SSDFTranscoder.toSSDF(json)));
+		}
+	}
+}